@@ -39,9 +39,12 @@ import com.android.dx.rop.cst.CstType;
 import com.android.dx.rop.type.StdTypeList;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
@@ -503,20 +506,26 @@ public final class DexMaker {
      *     application's private data dir.
      */
     public ClassLoader generateAndLoad(ClassLoader parent, File dexCache) throws IOException {
-        if (dexCache == null) {
-            String property = System.getProperty("dexmaker.dexcache");
-            if (property != null) {
-                dexCache = new File(property);
-            } else {
-                dexCache = new AppDataDirGuesser().guess();
-                if (dexCache == null) {
-                    throw new IllegalArgumentException("dexcache == null (and no default could be"
-                            + " found; consider setting the 'dexmaker.dexcache' system property)");
-                }
-            }
-        }
+        return generateAndLoad(parent, dexCache, generateFileName());
+    }
 
-        File result = new File(dexCache, generateFileName());
+    /**
+     * Generates a dex file and loads its types into the current process, storing
+     * the dex under the given {@code fileName} instead of a name derived from the
+     * declared method ids.
+     *
+     * <p>This allows callers that already know a stable key for the generated code
+     * to reuse a previously written file with {@link #loadCached} without declaring
+     * any of its types again.
+     *
+     * @param fileName the name of the jar file within {@code dexCache}
+     * @see #generateAndLoad(ClassLoader, File)
+     */
+    public ClassLoader generateAndLoad(ClassLoader parent, File dexCache, String fileName)
+            throws IOException {
+        dexCache = resolveDexCache(dexCache);
+
+        File result = new File(dexCache, fileName);
         // Check that the file exists. If it does, return a DexClassLoader and skip all
         // the dex bytecode generation.
         if (result.exists()) {
@@ -528,6 +537,19 @@ public final class DexMaker {
             }
         }
 
+        generateJar(result);
+
+        return generateClassLoader(result, dexCache, parent);
+    }
+
+    /**
+     * Generates a dex file and writes it, jarred, to {@code result} without loading it.
+     *
+     * <p>This works on any JVM, so it can be used ahead of time to produce dex files
+     * that are later loaded with {@link #loadCached} or
+     * {@link #generateAndLoad(ClassLoader, File, String)} under the same file name.
+     */
+    public void generateJar(File result) throws IOException {
         byte[] dex = generate();
 
         /*
@@ -538,9 +560,8 @@ public final class DexMaker {
          * TODO: load the dex from memory where supported.
          */
 
-        JarOutputStream jarOut =
-                new JarOutputStream(new BufferedOutputStream(new FileOutputStream(result)));
-        result.setReadOnly();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(dex.length + 512);
+        JarOutputStream jarOut = new JarOutputStream(bytes);
         try {
             JarEntry entry = new JarEntry(DexFormat.DEX_IN_JAR_NAME);
             entry.setSize(dex.length);
@@ -553,10 +574,79 @@ public final class DexMaker {
         } finally {
             jarOut.close();
         }
+        writeReadOnly(bytes.toByteArray(), result);
+    }
 
+    /**
+     * Copies a jarred dex file, for example one generated ahead of time with
+     * {@link #generateJar} and shipped in the application's assets, to
+     * {@code result} so that it can be loaded with {@link #loadCached}.
+     */
+    public static void copyJar(InputStream in, File result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+        }
+        writeReadOnly(bytes.toByteArray(), result);
+    }
+
+    /**
+     * Writes {@code bytes} to a temporary file first and only renames it once it is
+     * complete, so a process killed halfway through never leaves a truncated
+     * read-only jar behind for the next start to pick up.
+     */
+    private static void writeReadOnly(byte[] bytes, File result) throws IOException {
+        File tmp = File.createTempFile(result.getName(), ".tmp", result.getAbsoluteFile().getParentFile());
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            tmp.setReadOnly();
+            if (!tmp.renameTo(result) && !result.exists()) {
+                throw new IOException("Unable to move " + tmp + " to " + result);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Loads a dex file previously written by {@link #generateAndLoad(ClassLoader, File, String)}
+     * without generating any code.
+     *
+     * @return the class loader for the cached dex file, or {@code null} if there is no
+     *     complete dex file named {@code fileName} in {@code dexCache}.
+     */
+    public ClassLoader loadCached(ClassLoader parent, File dexCache, String fileName) {
+        dexCache = resolveDexCache(dexCache);
+        File result = new File(dexCache, fileName);
+        if (!result.exists() || result.canWrite()) {
+            return null;
+        }
         return generateClassLoader(result, dexCache, parent);
     }
 
+    private File resolveDexCache(File dexCache) {
+        if (dexCache != null) {
+            return dexCache;
+        }
+        String property = System.getProperty("dexmaker.dexcache");
+        if (property != null) {
+            return new File(property);
+        }
+        dexCache = new AppDataDirGuesser().guess();
+        if (dexCache == null) {
+            throw new IllegalArgumentException("dexcache == null (and no default could be"
+                    + " found; consider setting the 'dexmaker.dexcache' system property)");
+        }
+        return dexCache;
+    }
+
     DexFile getDexFile() {
         if (outputDex == null) {
             DexOptions options = new DexOptions();
@@ -5,6 +5,8 @@ public class Const {
 	public static final String SUBCLASS_SUFFIX = "$Enhancer$";
 	
 	public static final String SUBCLASS_INVOKE_SUPER_SUFFIX = "$Super$";
+
+	public static final Object[] EMPTY_ARGS = new Object[0];
 	
 	public static Class getPackedType(Class primitive) {
 		if (primitive == boolean.class) {
@@ -50,4 +52,62 @@ public class Const {
 		}
 	}
 
+	public static Object getDefaultValue(Class primitive) {
+		if (primitive == boolean.class) {
+			return Boolean.FALSE;
+		} else if (primitive == byte.class) {
+			return (byte) 0;
+		} else if (primitive == char.class) {
+			return (char) 0;
+		} else if (primitive == double.class) {
+			return 0d;
+		} else if (primitive == float.class) {
+			return 0f;
+		} else if (primitive == int.class) {
+			return 0;
+		} else if (primitive == long.class) {
+			return 0L;
+		} else if (primitive == short.class) {
+			return (short) 0;
+		} else {
+			throw new ProxyException(primitive.getName() + " dit not primitive class");
+		}
+	}
+
+	/**
+	 * Boxes a value passed as {@code long} to {@link PrimitiveMethodInterceptor}.
+	 */
+	public static Object box(Class primitive, long value) {
+		if (primitive == boolean.class) {
+			return value != 0;
+		} else if (primitive == byte.class) {
+			return (byte) value;
+		} else if (primitive == char.class) {
+			return (char) value;
+		} else if (primitive == int.class) {
+			return (int) value;
+		} else if (primitive == long.class) {
+			return value;
+		} else if (primitive == short.class) {
+			return (short) value;
+		} else {
+			throw new ProxyException(primitive.getName() + " dit not integral class");
+		}
+	}
+
+	/**
+	 * Widens a boxed integral or {@code boolean} value for {@link PrimitiveMethodInterceptor}.
+	 */
+	public static long toLong(Object value) {
+		if (value == null) {
+			return 0L;
+		} else if (value instanceof Boolean) {
+			return (Boolean) value ? 1L : 0L;
+		} else if (value instanceof Character) {
+			return (Character) value;
+		} else {
+			return ((Number) value).longValue();
+		}
+	}
+
 }
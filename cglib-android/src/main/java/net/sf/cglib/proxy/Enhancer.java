@@ -10,21 +10,110 @@ import net.sf.cglib.dx.Label;
 import net.sf.cglib.dx.Local;
 import net.sf.cglib.dx.MethodId;
 import net.sf.cglib.dx.TypeId;
+import net.sf.cglib.dx.stock.ProxyBuilder.MethodSetEntry;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Enhancer {
-	
+
+	// Version of the generated subclass layout. It should be updated if the implementation
+	// of the generated proxy class changes, so that dex files cached on disk by an older
+	// version are not picked up.
+	public static final int VERSION = 4;
+
+	private static final String FIELD_NAME_METHODS = "methods$Enhancer$";
+	private static final String FIELD_NAME_METHOD_PROXIES = "methodProxies$Enhancer$";
+	private static final String FIELD_NAME_CALLBACK = "callback$Enhancer$";
+
+	// Overrides keep the access of the super method but none of its other modifiers.
+	private static final int ACCESS_MODIFIERS = Modifier.PUBLIC | Modifier.PROTECTED;
+
+	private static final MethodId<MethodInterceptor, Object> INTERCEPT = TypeId.get(MethodInterceptor.class).getMethod(
+			TypeId.OBJECT, "intercept", TypeId.OBJECT, TypeId.get(Method.class), TypeId.get(Object[].class), TypeId.get(MethodProxy.class));
+	private static final TypeId<PrimitiveMethodInterceptor> PRIMITIVE_INTERCEPTOR = TypeId.get(PrimitiveMethodInterceptor.class);
+	private static final MethodId<PrimitiveMethodInterceptor, Object> INTERCEPT_NO_ARGS = PRIMITIVE_INTERCEPTOR.getMethod(
+			TypeId.OBJECT, "intercept", TypeId.OBJECT, TypeId.get(Method.class), TypeId.get(MethodProxy.class));
+	private static final MethodId<PrimitiveMethodInterceptor, Object> INTERCEPT_LONG_ARG = PRIMITIVE_INTERCEPTOR.getMethod(
+			TypeId.OBJECT, "intercept", TypeId.OBJECT, TypeId.get(Method.class), TypeId.LONG, TypeId.get(MethodProxy.class));
+	private static final MethodId<PrimitiveMethodInterceptor, Long> INTERCEPT_LONG_NO_ARGS = PRIMITIVE_INTERCEPTOR.getMethod(
+			TypeId.LONG, "interceptLong", TypeId.OBJECT, TypeId.get(Method.class), TypeId.get(MethodProxy.class));
+	private static final MethodId<PrimitiveMethodInterceptor, Long> INTERCEPT_LONG_LONG_ARG = PRIMITIVE_INTERCEPTOR.getMethod(
+			TypeId.LONG, "interceptLong", TypeId.OBJECT, TypeId.get(Method.class), TypeId.LONG, TypeId.get(MethodProxy.class));
+	private static final MethodId<PrimitiveMethodInterceptor, Long> INTERCEPT_LONG = PRIMITIVE_INTERCEPTOR.getMethod(
+			TypeId.LONG, "interceptLong", TypeId.OBJECT, TypeId.get(Method.class), TypeId.get(Object[].class), TypeId.get(MethodProxy.class));
+	private static final FieldId<Const, Object[]> EMPTY_ARGS = TypeId.get(Const.class).getField(TypeId.get(Object[].class), "EMPTY_ARGS");
+	private static final MethodId<Dispatcher, Object> LOAD_OBJECT = TypeId.get(Dispatcher.class).getMethod(TypeId.OBJECT, "loadObject");
+	private static final MethodId<FixedValue, Object> LOAD_VALUE = TypeId.get(FixedValue.class).getMethod(TypeId.OBJECT, "loadValue");
+
+	// Supported callback types, in the order they are matched against callback instances.
+	private static final Class<?>[] CALLBACK_TYPES = {MethodInterceptor.class, NoOp.class, Dispatcher.class, FixedValue.class};
+
+	/**
+	 * A cache of all enhanced classes generated in this process, keyed on superclass,
+	 * interfaces and callback types. Android's runtime doesn't support class unloading
+	 * so there's little value in using weak references.
+	 */
+	private static final Map<EnhancedClass, Class<?>> generatedClasses =
+			Collections.synchronizedMap(new HashMap<EnhancedClass, Class<?>>());
+
+	/**
+	 * Generations in progress, keyed like {@link #generatedClasses}. Each class is
+	 * generated by one thread while others asking for the same class wait for it;
+	 * generations of different classes do not wait for each other.
+	 */
+	private static final ConcurrentMap<EnhancedClass, Generation> generations =
+			new ConcurrentHashMap<EnhancedClass, Generation>();
+
+	/**
+	 * Monitors per dex file name, so that equal dex files requested under keys that
+	 * are not equal are not written concurrently.
+	 */
+	private static final ConcurrentMap<String, Object> fileLocks = new ConcurrentHashMap<String, Object>();
+
+	// Directory of the dex files, both in the application's private data and in its assets.
+	private static final String DEX_DIRECTORY = "dexfiles";
+
+	private static final AtomicLong memoryCacheHits = new AtomicLong();
+
+	private static final AtomicLong diskCacheHits = new AtomicLong();
+
+	private static final AtomicLong cacheMisses = new AtomicLong();
+
+	private static final AtomicLong generationTimeNanos = new AtomicLong();
+
 	private Context context;
 	private Class<?> superclass;
 //	private MethodInterceptor interceptor;
 	private Callback[] callbacks;
-	private Class[] interfaces;
+	private Class[] callbackTypes;
+	private CallbackFilter filter;
+	private Class[] interfaces = new Class[0];
 	public Enhancer(Context context) {
 		this.context = context;
 	}
@@ -42,7 +131,7 @@ public class Enhancer {
 //'setInterfaces(Class[])' clashes with 'setInterfaces(Class<?>[])'; both methods have same erasure
 
 	public void setInterfaces(Class<?>[] interfaces) {
-		this.interfaces = interfaces;
+		this.interfaces = (interfaces != null ? interfaces : new Class[0]);
 	}
 
 	
@@ -51,44 +140,13 @@ public class Enhancer {
 //	}
 	
 	public Object create() {
-		String superClsName = superclass.getName().replace(".", "/");
-		String subClsName = superClsName + Const.SUBCLASS_SUFFIX;
-
-		TypeId<?> superType = TypeId.get("L" + superClsName + ";");
-		TypeId<?> subType = TypeId.get("L" + subClsName + ";");
-		TypeId<?> interfaceTypeId = TypeId.get(EnhancerInterface.class);
-		List<TypeId<?>> interfaceList = new ArrayList<>();
-		interfaceList.add(interfaceTypeId);
-		for (int i = 0; i< interfaces.length;i++){
-			String interfaceName = interfaces[i].getName().replace(".", "/");
-			System.out.println(interfaceName);
-			TypeId<?> interfaceType = TypeId.get("L" + interfaceName + ";");
-//			System.out.println(interfaceName+"::"+interfaceType!=null);
-			interfaceList.add(interfaceType);
-		}
-		TypeId<?>[] interfaceTypeIds = interfaceList.toArray(new TypeId<?>[interfaces.length+1]);
-		System.out.println("lenth :"+interfaceTypeIds.length);
-		String cacheDir = context.getDir("dexfiles", Context.MODE_PRIVATE).getAbsolutePath();
-		System.out.println("[Enhancer::create()] Create class extends from \"" + superclass.getName() + "\" stored in " + cacheDir);
-
-		DexMaker dexMaker = new DexMaker();
-		dexMaker.declare(subType, superClsName + ".proxy", Modifier.PUBLIC, superType,interfaceTypeIds );
-		generateFieldsAndMethods(dexMaker, superType, subType);
 		try {
-			ClassLoader loader = dexMaker.generateAndLoad(Enhancer.class.getClassLoader(), new File(cacheDir));
-			Class<?> subCls = loader.loadClass(superclass.getName() + Const.SUBCLASS_SUFFIX);
+			Class<?> subCls = createClass();
 			Object obj = subCls.newInstance();
-			MethodInterceptor[] methodInterceptor = new MethodInterceptor[callbacks.length];
-			for (int i = 0 ; i < callbacks.length;i++){
-				methodInterceptor[i] = (MethodInterceptor) callbacks[i];
-
-			}
-			((EnhancerInterface) obj).setMethodInterceptor$Enhancer$(methodInterceptor);
+			((EnhancerInterface) obj).setCallbacks$Enhancer$(callbacks);
 			return obj;
 		} catch (IOException e) {
 			e.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
 		} catch (InstantiationException e) {
 			e.printStackTrace();
 		} catch (IllegalAccessException e) {
@@ -97,22 +155,481 @@ public class Enhancer {
 		
 		return null;
 	}
+
+	/**
+	 * Returns the enhanced subclass for the current superclass, interfaces and callback
+	 * types, generating it only if neither this process nor a previous one has done so.
+	 * <p>
+	 * Classes are first looked up in memory. On a miss the dex file is looked up in the
+	 * {@code dexfiles} directory under a name derived from a digest of the generated
+	 * method set, so later process starts load the existing dex instead of running dx.
+	 * A dex file written ahead of time by {@link #generateJar} and shipped in the
+	 * application's assets under the same path is picked up the same way.
+	 * <p>
+	 * Callbacks are not needed to create the class, only their types; see
+	 * {@link #setCallbackTypes}.
+	 */
+	public Class<?> createClass() throws IOException {
+		Class<?>[] callbackTypes = getCallbackTypes();
+		EnhancedClass cacheKey = new EnhancedClass(superclass, interfaces, callbackTypes, filter);
+		Class<?> subCls = generatedClasses.get(cacheKey);
+		if (subCls != null) {
+			memoryCacheHits.incrementAndGet();
+			return subCls;
+		}
+
+		Generation generation = new Generation();
+		Generation existing = generations.putIfAbsent(cacheKey, generation);
+		if (existing != null) {
+			return existing.await();
+		}
+		try {
+			subCls = generatedClasses.get(cacheKey);
+			if (subCls != null) {
+				memoryCacheHits.incrementAndGet();
+			} else {
+				long start = System.nanoTime();
+				ClassLayout layout = new ClassLayout(cacheKey);
+				ClassLoader loader = loadOrGenerate(context, Collections.singletonList(layout), layout.fileName);
+				subCls = loadEnhancedClass(loader, layout);
+				generationTimeNanos.addAndGet(System.nanoTime() - start);
+			}
+			generation.complete(subCls);
+			return subCls;
+		} catch (IOException | RuntimeException | Error e) {
+			generation.fail(e);
+			throw e;
+		} finally {
+			generations.remove(cacheKey, generation);
+		}
+	}
+
+	/**
+	 * Creates the classes of all given enhancers at once. Classes that are not cached in
+	 * memory yet are emitted into a single dex file and loaded by a single class loader,
+	 * rather than one jar, one dexopt run and one class loader per class.
+	 * <p>
+	 * The batch is cached on disk like a single class, under a digest of all its
+	 * classes; a batch is reused on the next start only if the same set of classes is
+	 * requested again, so callers should pass a stable set, e.g. all proxies of an
+	 * application context.
+	 *
+	 * @return the enhanced classes, in the same order as {@code enhancers}
+	 */
+	public static Class<?>[] createClasses(Enhancer... enhancers) throws IOException {
+		Class<?>[] classes = new Class<?>[enhancers.length];
+		EnhancedClass[] cacheKeys = new EnhancedClass[enhancers.length];
+		// Keys that are not equal, e.g. because of equivalent callback filter instances,
+		// may still lay out the same class under the same name, which a dex file can
+		// hold only once: all such keys share the one class.
+		Map<EnhancedClass, ClassLayout> layouts = new LinkedHashMap<>();
+		Map<String, ClassLayout> layoutsByName = new LinkedHashMap<>();
+		Map<EnhancedClass, Generation> ownGenerations = new LinkedHashMap<>();
+		Map<EnhancedClass, Generation> otherGenerations = new LinkedHashMap<>();
+		Context context = null;
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < enhancers.length; i++) {
+				Enhancer enhancer = enhancers[i];
+				EnhancedClass cacheKey = new EnhancedClass(enhancer.superclass, enhancer.interfaces,
+						enhancer.getCallbackTypes(), enhancer.filter);
+				cacheKeys[i] = cacheKey;
+				classes[i] = generatedClasses.get(cacheKey);
+				if (classes[i] != null) {
+					memoryCacheHits.incrementAndGet();
+				} else if (!ownGenerations.containsKey(cacheKey) && !otherGenerations.containsKey(cacheKey)) {
+					Generation generation = new Generation();
+					Generation existing = generations.putIfAbsent(cacheKey, generation);
+					if (existing != null) {
+						// generated by another thread, waited for once the own classes are done
+						otherGenerations.put(cacheKey, existing);
+						continue;
+					}
+					ownGenerations.put(cacheKey, generation);
+					ClassLayout layout = enhancer.new ClassLayout(cacheKey);
+					ClassLayout sameName = layoutsByName.get(layout.className);
+					if (sameName != null) {
+						layout = sameName;
+					} else {
+						layoutsByName.put(layout.className, layout);
+					}
+					layouts.put(cacheKey, layout);
+					context = enhancer.context;
+				}
+			}
+
+			if (!layouts.isEmpty()) {
+				List<ClassLayout> batch = new ArrayList<>(layoutsByName.values());
+				StringBuilder digests = new StringBuilder();
+				for (ClassLayout layout : batch) {
+					digests.append(layout.fileName).append(';');
+				}
+				ClassLoader loader = loadOrGenerate(context, batch, "Enhancer_batch_" + sha1(digests.toString()) + ".jar");
+				for (ClassLayout layout : batch) {
+					loadEnhancedClass(loader, layout);
+				}
+				for (Map.Entry<EnhancedClass, ClassLayout> entry : layouts.entrySet()) {
+					Class<?> subCls = generatedClasses.get(entry.getValue().key);
+					if (entry.getKey() != entry.getValue().key) {
+						generatedClasses.put(entry.getKey(), subCls);
+					}
+					ownGenerations.get(entry.getKey()).complete(subCls);
+				}
+				generationTimeNanos.addAndGet(System.nanoTime() - start);
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			for (Generation generation : ownGenerations.values()) {
+				generation.fail(e);
+			}
+			throw e;
+		} finally {
+			for (Map.Entry<EnhancedClass, Generation> entry : ownGenerations.entrySet()) {
+				generations.remove(entry.getKey(), entry.getValue());
+			}
+		}
+
+		for (Generation generation : otherGenerations.values()) {
+			generation.await();
+		}
+		for (int i = 0; i < enhancers.length; i++) {
+			if (classes[i] == null) {
+				classes[i] = generatedClasses.get(cacheKeys[i]);
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Returns a class loader for the dex file {@code fileName} holding the classes of
+	 * {@code layouts}: cached from a previous start, shipped in the assets, or generated.
+	 */
+	private static ClassLoader loadOrGenerate(Context context, List<ClassLayout> layouts, String fileName)
+			throws IOException {
+		File cacheDir = new File(context.getDir(DEX_DIRECTORY, Context.MODE_PRIVATE), "v" + VERSION);
+		cacheDir.mkdir();
+
+		Object fileLock = new Object();
+		Object existingFileLock = fileLocks.putIfAbsent(fileName, fileLock);
+		synchronized (existingFileLock != null ? existingFileLock : fileLock) {
+			DexMaker dexMaker = new DexMaker();
+			ClassLoader loader = dexMaker.loadCached(Enhancer.class.getClassLoader(), cacheDir, fileName);
+			if (loader == null && copyPrebuiltJar(context, fileName, cacheDir)) {
+				loader = dexMaker.loadCached(Enhancer.class.getClassLoader(), cacheDir, fileName);
+			}
+			if (loader != null) {
+				diskCacheHits.addAndGet(layouts.size());
+			} else {
+				cacheMisses.addAndGet(layouts.size());
+				for (ClassLayout layout : layouts) {
+					layout.declare(dexMaker);
+				}
+				loader = dexMaker.generateAndLoad(Enhancer.class.getClassLoader(), cacheDir, fileName);
+			}
+			return loader;
+		}
+	}
+
+	private static Class<?> loadEnhancedClass(ClassLoader loader, ClassLayout layout) {
+		Class<?> subCls;
+		try {
+			subCls = loader.loadClass(layout.className);
+		} catch (ClassNotFoundException e) {
+			// Should not be thrown, the dex file was generated with this class.
+			throw new AssertionError(e);
+		}
+		setMethodTables(subCls, layout.methods);
+		generatedClasses.put(layout.key, subCls);
+		return subCls;
+	}
+
+	/**
+	 * Creates the classes of the given enhancers on {@code executor}, typically while
+	 * the rest of the application context starts. A later {@link #create()} for the
+	 * same class waits for a generation in progress and then hits the in-memory cache.
+	 *
+	 * @return one future per enhancer, in the same order
+	 */
+	public static List<Future<Class<?>>> createClasses(Executor executor, Enhancer... enhancers) {
+		List<Future<Class<?>>> futures = new ArrayList<>(enhancers.length);
+		for (final Enhancer enhancer : enhancers) {
+			FutureTask<Class<?>> task = new FutureTask<>(new Callable<Class<?>>() {
+				@Override
+				public Class<?> call() throws Exception {
+					return enhancer.createClass();
+				}
+			});
+			futures.add(task);
+			executor.execute(task);
+		}
+		return futures;
+	}
+
+	/**
+	 * Generates the dex file of the enhanced class ahead of time, for example in a
+	 * build step running on the host, and writes it into {@code assetsDirectory}.
+	 * The file is written to {@code dexfiles/v<VERSION>/} below that directory, which
+	 * is where {@link #createClass()} looks it up in the application's assets, so
+	 * devices load it without running dx. No {@link Context} is needed for this.
+	 *
+	 * @return the written file
+	 */
+	public File generateJar(File assetsDirectory) throws IOException {
+		ClassLayout layout = new ClassLayout(new EnhancedClass(superclass, interfaces, getCallbackTypes(), filter));
+		File directory = new File(assetsDirectory, DEX_DIRECTORY + File.separator + "v" + VERSION);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create " + directory);
+		}
+		File result = new File(directory, layout.fileName);
+		if (!result.exists()) {
+			DexMaker dexMaker = new DexMaker();
+			layout.declare(dexMaker);
+			dexMaker.generateJar(result);
+		}
+		return result;
+	}
+
+	private static boolean copyPrebuiltJar(Context context, String fileName, File cacheDir) {
+		InputStream in;
+		try {
+			in = context.getAssets().open(DEX_DIRECTORY + "/v" + VERSION + "/" + fileName);
+		} catch (IOException e) {
+			// no dex file was generated ahead of time for this class
+			return false;
+		}
+		try {
+			DexMaker.copyJar(in, new File(cacheDir, fileName));
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			try {
+				in.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	private void declare(DexMaker dexMaker, ClassLayout layout) {
+		String superClsName = superclass.getName().replace(".", "/");
+
+		TypeId<?> superType = TypeId.get("L" + superClsName + ";");
+		TypeId<?> subType = TypeId.get("L" + layout.className.replace(".", "/") + ";");
+		TypeId<?>[] interfaceTypeIds = new TypeId<?>[interfaces.length + 1];
+		interfaceTypeIds[0] = TypeId.get(EnhancerInterface.class);
+		for (int i = 0; i < interfaces.length; i++) {
+			Class<?> ifc = interfaces[i];
+			interfaceTypeIds[i + 1] = TypeId.get(ifc);
+		}
+
+		dexMaker.declare(subType, superClsName + ".proxy", Modifier.PUBLIC, superType, interfaceTypeIds);
+		generateFieldsAndMethods(dexMaker, superType, subType, layout.methods, layout.key.callbackTypes, layout.callbackIndexes);
+	}
+
+	private Class<?>[] getCallbackTypes() {
+		Class<?>[] callbackTypes;
+		if (callbacks != null) {
+			callbackTypes = new Class<?>[callbacks.length];
+			for (int i = 0; i < callbacks.length; i++) {
+				callbackTypes[i] = getCallbackType(callbacks[i] != null ? callbacks[i].getClass() : null);
+			}
+		} else if (this.callbackTypes != null) {
+			callbackTypes = new Class<?>[this.callbackTypes.length];
+			for (int i = 0; i < callbackTypes.length; i++) {
+				callbackTypes[i] = getCallbackType(this.callbackTypes[i]);
+			}
+		} else {
+			throw new IllegalStateException("Callbacks are required");
+		}
+		if (callbackTypes.length > 1 && filter == null) {
+			throw new IllegalStateException("Multiple callback types possible but no filter specified");
+		}
+		return callbackTypes;
+	}
+
+	private static Class<?> getCallbackType(Class<?> type) {
+		for (Class<?> callbackType : CALLBACK_TYPES) {
+			if (type != null && callbackType.isAssignableFrom(type)) {
+				return callbackType;
+			}
+		}
+		throw new IllegalStateException("Unknown callback type " + type);
+	}
+
+	/**
+	 * Resolves the callback of every method once, at generation time. The result
+	 * is baked into the generated subclass.
+	 */
+	private int[] getCallbackIndexes(Method[] methods, int callbackCount) {
+		int[] callbackIndexes = new int[methods.length];
+		if (filter == null) {
+			return callbackIndexes;
+		}
+		for (int i = 0; i < methods.length; i++) {
+			int index = filter.accept(methods[i]);
+			if (index < 0 || index >= callbackCount) {
+				throw new IllegalArgumentException("Callback filter returned an index that is too large: " + index);
+			}
+			callbackIndexes[i] = index;
+		}
+		return callbackIndexes;
+	}
+
+	/**
+	 * Collects the methods to override, sorted so that the generated method set,
+	 * and therefore its digest, is the same in every process.
+	 */
+	private Method[] getMethodsToProxy() {
+		Map<MethodSetEntry, Method> map = new LinkedHashMap<>();
+		addMethodsToProxy(map, superclass, superclass);
+		for (int i = 0; i < interfaces.length; i++) {
+			addMethodsToProxy(map, interfaces[i], superclass);
+		}
+		Method[] methods = map.values().toArray(new Method[map.size()]);
+		Arrays.sort(methods, new Comparator<Method>() {
+			@Override
+			public int compare(Method method1, Method method2) {
+				return signature(method1).compareTo(signature(method2));
+			}
+		});
+		return methods;
+	}
+
+	private static void addMethodsToProxy(Map<MethodSetEntry, Method> sink, Class<?> c, Class<?> superclass) {
+		for (Method method : c.getDeclaredMethods()) {
+			if ((method.getModifiers() & (Modifier.STATIC | Modifier.PRIVATE | Modifier.FINAL)) != 0) {
+				// static, private and final methods cannot be overridden
+				continue;
+			}
+			if (method.getName().contains("$")) {
+				// Android studio will generate access$super method for every class
+				continue;
+			}
+			MethodSetEntry entry = new MethodSetEntry(method);
+			if (!sink.containsKey(entry)) {
+				if (Modifier.isAbstract(method.getModifiers())) {
+					// an interface method may be implemented by a class the superclass inherits from
+					Method implementation = findImplementation(superclass, method);
+					if (implementation != null) {
+						if (Modifier.isFinal(implementation.getModifiers())) {
+							continue;
+						}
+						method = implementation;
+					}
+				}
+				// each override gets a single slot in the method table, the superclass wins
+				sink.put(entry, method);
+			}
+		}
+	}
+
+	/**
+	 * Finds the implementation of {@code method} that {@code superclass} declares or
+	 * inherits, or returns null if there is none or the closest declaration is abstract.
+	 */
+	private static Method findImplementation(Class<?> superclass, Method method) {
+		for (Class<?> c = superclass; c != null; c = c.getSuperclass()) {
+			Method candidate;
+			try {
+				candidate = c.getDeclaredMethod(method.getName(), method.getParameterTypes());
+			} catch (NoSuchMethodException e) {
+				continue;
+			}
+			int modifiers = candidate.getModifiers();
+			if ((modifiers & (Modifier.STATIC | Modifier.PRIVATE)) != 0) {
+				continue;
+			}
+			return (Modifier.isAbstract(modifiers) ? null : candidate);
+		}
+		return null;
+	}
+
+	private static String signature(Method method) {
+		return method.getDeclaringClass().getName() + "." + method.getName()
+				+ Arrays.toString(method.getParameterTypes()) + method.getReturnType().getName();
+	}
+
+	/**
+	 * Computes a stable hex digest of everything that affects the generated code: the
+	 * layout version, the type hierarchy, the callback types and the method set along
+	 * with the callback chosen for each method.
+	 */
+	private static String digest(EnhancedClass key, Method[] methods, int[] callbackIndexes) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(VERSION).append(';').append(key.superclass.getName());
+		for (Class<?> c : key.interfaces) {
+			sb.append(';').append(c.getName());
+		}
+		for (Class<?> c : key.callbackTypes) {
+			sb.append(';').append(c.getName());
+		}
+		for (int i = 0; i < methods.length; i++) {
+			sb.append(';').append(methods[i].getModifiers()).append(' ').append(signature(methods[i]))
+					.append('=').append(callbackIndexes[i]);
+		}
+		return sha1(sb.toString());
+	}
+
+	private static String sha1(String s) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest(s.getBytes("UTF-8"));
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Returns the number of enhanced classes served from the in-memory cache.
+	 */
+	public static long getMemoryCacheHits() {
+		return memoryCacheHits.get();
+	}
+
+	/**
+	 * Returns the number of enhanced classes loaded from a dex file generated by an
+	 * earlier process.
+	 */
+	public static long getDiskCacheHits() {
+		return diskCacheHits.get();
+	}
+
+	/**
+	 * Returns the number of enhanced classes that had to be generated with dx.
+	 */
+	public static long getCacheMisses() {
+		return cacheMisses.get();
+	}
+
+	/**
+	 * Returns the total time in milliseconds spent generating or loading enhanced
+	 * classes, excluding in-memory cache hits.
+	 */
+	public static long getGenerationTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(generationTimeNanos.get());
+	}
 	
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private <S> void generateFieldsAndMethods(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType) {
-//		TypeId<MethodInterceptor> methodInterceptorType = TypeId.get(MethodInterceptor.class);
-		TypeId<MethodInterceptor[]> methodInterceptorTypelist = TypeId.get(MethodInterceptor[].class);
-		TypeId<MethodProxyExecuter> methodProxyExecuterType = TypeId.get(MethodProxyExecuter.class);
-		TypeId<Class> classType = TypeId.get(Class.class);
-		TypeId<Class[]> classesType = TypeId.get(Class[].class);
-		TypeId<String> stringType = TypeId.get(String.class);
-		TypeId<Object> objectType = TypeId.get(Object.class);
-		TypeId<Object[]> objectsType = TypeId.get(Object[].class);
+	private <S> void generateFieldsAndMethods(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType, Method[] methods,
+			List<Class<?>> callbackTypes, int[] callbackIndexes) {
+		TypeId<Callback[]> callbacksType = TypeId.get(Callback[].class);
 
-		
 		// generate fields
-		FieldId<S, MethodInterceptor[]> fieldId = subType.getField(methodInterceptorTypelist, "methodInterceptor");
-		dexMaker.declare(fieldId, Modifier.PRIVATE, null);
+		FieldId[] callbackFields = new FieldId[callbackTypes.size()];
+		for (int i = 0; i < callbackFields.length; i++) {
+			callbackFields[i] = subType.getField(TypeId.get(callbackTypes.get(i)), FIELD_NAME_CALLBACK + i);
+			dexMaker.declare(callbackFields[i], Modifier.PRIVATE, null);
+		}
+		FieldId<S, Method[]> methodsField = subType.getField(TypeId.get(Method[].class), FIELD_NAME_METHODS);
+		dexMaker.declare(methodsField, Modifier.PRIVATE | Modifier.STATIC, null);
+		FieldId<S, MethodProxy[]> methodProxiesField = subType.getField(TypeId.get(MethodProxy[].class), FIELD_NAME_METHOD_PROXIES);
+		dexMaker.declare(methodProxiesField, Modifier.PRIVATE | Modifier.STATIC, null);
 		
 		// generate methods
 		// constructor
@@ -121,172 +638,647 @@ public class Enhancer {
 		code.invokeDirect(superType.getConstructor(), null, thisRef);
 		code.returnVoid();
 		
-		// setMethodInterceptor$Enhancer$
-		MethodId<?, Void> setMethodInterceptorMethodId = subType.getMethod(TypeId.VOID, "setMethodInterceptor$Enhancer$", methodInterceptorTypelist);
-		code = dexMaker.declare(setMethodInterceptorMethodId, Modifier.PUBLIC);
-		code.iput(fieldId, code.getThis(subType), code.getParameter(0, methodInterceptorTypelist));
+		// setCallbacks$Enhancer$, storing each callback in a field of its own type
+		MethodId<?, Void> setCallbacksMethodId = subType.getMethod(TypeId.VOID, "setCallbacks$Enhancer$", callbacksType);
+		code = dexMaker.declare(setCallbacksMethodId, Modifier.PUBLIC);
+		Local<Integer> intLocal = code.newLocal(TypeId.INT);
+		Local<Callback> callbackLocal = code.newLocal(TypeId.get(Callback.class));
+		Local[] typedCallbackLocals = new Local[callbackFields.length];
+		for (int i = 0; i < callbackFields.length; i++) {
+			typedCallbackLocals[i] = code.newLocal(TypeId.get(callbackTypes.get(i)));
+		}
+		for (int i = 0; i < callbackFields.length; i++) {
+			code.loadConstant(intLocal, i);
+			code.aget(callbackLocal, code.getParameter(0, callbacksType), intLocal);
+			code.cast(typedCallbackLocals[i], callbackLocal);
+			code.iput(callbackFields[i], code.getThis(subType), typedCallbackLocals[i]);
+		}
 		code.returnVoid();
 		
-		// executeSuperMethod$Enhancer$
-		MethodId<?, Object> executeSuperMethodMethodId = subType.getMethod(TypeId.OBJECT, "executeSuperMethod$Enhancer$", stringType, classesType, objectsType);
-		code = dexMaker.declare(executeSuperMethodMethodId, Modifier.PUBLIC);
-		Local<Object> retObjLocal = code.newLocal(objectType);
-		Local<Class> subClassLocal = code.newLocal(classType);
-		Local thisLocal = code.getThis(subType);
-		code.invokeVirtual(subType.getMethod(classType, "getClass"), subClassLocal, thisLocal);
-		MethodId methodId = methodProxyExecuterType.getMethod(TypeId.OBJECT, "executeMethod", classType, stringType, classesType, objectsType, objectType);
-		code.invokeStatic(methodId, retObjLocal, subClassLocal, code.getParameter(0, stringType), code.getParameter(1, classesType), code.getParameter(2, objectsType), thisLocal);
-		code.returnValue(retObjLocal);
+		// invokeSuper$Enhancer$
+		generateInvokeSuper(dexMaker, superType, subType, methods);
+
+		// override super's methods
+		for (int m = 0; m < methods.length; m++) {
+			Class<?> callbackType = callbackTypes.get(callbackIndexes[m]);
+			FieldId callbackField = callbackFields[callbackIndexes[m]];
+			if (callbackType == MethodInterceptor.class) {
+				generateInterceptedMethod(dexMaker, superType, subType, methods[m], m, callbackField, methodsField, methodProxiesField);
+			} else if (callbackType == Dispatcher.class) {
+				generateDispatchedMethod(dexMaker, superType, subType, methods[m], callbackField);
+			} else if (callbackType == FixedValue.class) {
+				generateFixedValueMethod(dexMaker, superType, subType, methods[m], callbackField);
+			} else if (!hasSuperMethod(methods[m])) {
+				// NoOp on a method without super implementation, nothing to delegate to
+				generateAbstractMethod(dexMaker, subType, methods[m]);
+			}
+			// NoOp methods are simply not overridden, calls go straight to super
+			if (hasSuperMethod(methods[m])) {
+				generateSuperMethod(dexMaker, superType, subType, methods[m]);
+			}
+		}
+	}
 
+	/**
+	 * Overrides {@code method}, the 5th method in the table, with code equivalent to:
+	 * <pre>
+	 *     public int doSomething(Bar param0, int param1) {
+	 *         MethodInterceptor interceptor = this.callback$Enhancer$0;
+	 *         if (interceptor == null) {
+	 *             return super.doSomething(param0, param1);
+	 *         }
+	 *         Object result = interceptor.intercept(this, methods$Enhancer$[4],
+	 *                 new Object[] { param0, Integer.valueOf(param1) }, methodProxies$Enhancer$[4]);
+	 *         return result == null ? 0 : ((Integer) result).intValue();
+	 *     }
+	 * </pre>
+	 * The callbacks are not set yet while the super constructor runs, so a superclass
+	 * that leaks {@code this} from its constructor gets its original behaviour.
+	 * <p>
+	 * Methods without arguments pass a shared empty array. If the method has no or a
+	 * single integral argument, or returns an integral value, the interceptor is first
+	 * checked for {@link PrimitiveMethodInterceptor}, whose variants take and return
+	 * such values without arrays or boxing:
+	 * <pre>
+	 *     public int size(int param0) {
+	 *         ...
+	 *         if (interceptor instanceof PrimitiveMethodInterceptor) {
+	 *             return (int) ((PrimitiveMethodInterceptor) interceptor).interceptLong(this,
+	 *                     methods$Enhancer$[4], (long) param0, methodProxies$Enhancer$[4]);
+	 *         }
+	 *         ...
+	 *     }
+	 * </pre>
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <S> void generateInterceptedMethod(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType,
+			Method method, int index, FieldId<S, MethodInterceptor> interceptorField,
+			FieldId<S, Method[]> methodsField, FieldId<S, MethodProxy[]> methodProxiesField) {
+		Class<?> retClass = method.getReturnType();
+		boolean isVoid = retClass == void.class;
+		TypeId<?> methodReturnType = TypeId.get(retClass);
+		Class<?>[] argsClass = method.getParameterTypes();
+		TypeId<?>[] argsTypeId = toTypeIds(argsClass);
+		boolean hasSuper = hasSuperMethod(method);
 
+		MethodId<?, ?> subMethodId = subType.getMethod(methodReturnType, method.getName(), argsTypeId);
+		Code code = dexMaker.declare(subMethodId, method.getModifiers() & ACCESS_MODIFIERS);
 
-		// override super's methods
-		Method[] methods = superclass.getDeclaredMethods();
-		List<Method[]> list = new ArrayList<>();
-		list.add(methods);
-		int methodSum = methods.length;
-		for (int i = 0; i < interfaces.length;i++){
-			Method[] declaredMethods = interfaces[i].getDeclaredMethods();
-			list.add(declaredMethods);
-			methodSum+=declaredMethods.length;
-		}
-		methods = new Method[methodSum];
-		int index = 0;
-		for (int i = 0 ; i<list.size();i++){
-			Method[] methods1 = list.get(i);
-			for (int j = 0 ; j<methods1.length;j++){
-				methods[index] =methods1[j];
-				index++;
-			}
-		}
-
-		MethodId<?, ?> superMethodId = null;
-		MethodId<?, ?> subMethodId = null;
-		TypeId<?>[] argsTypeId = null;
-		TypeId<?> methodReturnType = null;
-		String methodName = null;
-		boolean isVoid = false;
-		boolean hasParams = false;
-		Class retClass = null;
-		for (Method method : methods) {
-			methodName = method.getName();
-			if (methodName.contains("$")) {  // Android studio will generate access$super method for every class
-				continue ;
-			}
-			retClass = method.getReturnType();
-			isVoid = retClass.getSimpleName().equals("void");
-			methodReturnType = TypeId.get(retClass);
-			Class<?>[] argsClass = method.getParameterTypes();
-			hasParams = (argsClass != null && argsClass.length > 0) ? true : false;
-			if (hasParams) {
-				argsTypeId = new TypeId[argsClass.length];
-				for (int i=0; i<argsClass.length; i++) {
-					argsTypeId[i] = TypeId.get(argsClass[i]);
-				}
-				subMethodId = subType.getMethod(methodReturnType, methodName, argsTypeId);
-			} else {
-				subMethodId = subType.getMethod(methodReturnType, methodName);
-			}
-			code = dexMaker.declare(subMethodId, method.getModifiers()& ~Modifier.ABSTRACT);
-			
-			Local retLocal = code.newLocal(methodReturnType);
-			Local retPackLocal = null;
-			if (retClass.isPrimitive()) {
-				retPackLocal = code.newLocal(TypeId.get(Const.getPackedType(retClass)));
-			}
-			
-			Local<Integer> intLocal = code.newLocal(TypeId.INT);
-			Local<MethodInterceptor[]> methodInterceptorLocal = code.newLocal(methodInterceptorTypelist);
-			Local<String> methodNameLocal = code.newLocal(TypeId.get(String.class));
-			Local<Class> tmpClassLocal = code.newLocal(classType);
-			subClassLocal = code.newLocal(classType);
-			Local<Class[]> argsTypeLocal = code.newLocal(classesType);
-			Local<Object[]> argsValueLocal = code.newLocal(objectsType);
-			Local tmpNumberLocal = code.newLocal(objectType);
-			retObjLocal = code.newLocal(TypeId.OBJECT);
-			
-			thisLocal = code.getThis(subType);
-			code.iget(fieldId, methodInterceptorLocal, thisLocal);
-			code.loadConstant(methodNameLocal, methodName);
-			code.invokeVirtual(subType.getMethod(classType, "getClass"), subClassLocal, thisLocal);
-			
-			if (hasParams) {
-				code.loadConstant(intLocal, argsClass.length);
-				code.newArray(argsTypeLocal, intLocal);
-				code.newArray(argsValueLocal, intLocal);
-				
-				for (int i=0; i<argsClass.length; i++) {
-					code.loadConstant(intLocal, i);
-					code.loadConstant(tmpClassLocal, argsClass[i]);
-					code.aput(argsTypeLocal, intLocal, tmpClassLocal);
-					
-					if (argsClass[i].isPrimitive()) {
-						TypeId packedClassType = TypeId.get(Const.getPackedType(argsClass[i]));
-						methodId = packedClassType.getMethod(packedClassType, "valueOf", argsTypeId[i]);
-						code.invokeStatic(methodId, tmpNumberLocal, code.getParameter(i, argsTypeId[i]));
-						code.aput(argsValueLocal, intLocal, tmpNumberLocal);
-					} else {
-						code.aput(argsValueLocal, intLocal, code.getParameter(i, argsTypeId[i]));
+		Local thisLocal = code.getThis(subType);
+		Local<MethodInterceptor> interceptorLocal = code.newLocal(TypeId.get(MethodInterceptor.class));
+		Local<Method[]> methodsLocal = code.newLocal(TypeId.get(Method[].class));
+		Local<Method> methodLocal = code.newLocal(TypeId.get(Method.class));
+		Local<MethodProxy[]> methodProxiesLocal = code.newLocal(TypeId.get(MethodProxy[].class));
+		Local<MethodProxy> methodProxyLocal = code.newLocal(TypeId.get(MethodProxy.class));
+		Local<Integer> intLocal = code.newLocal(TypeId.INT);
+		Local<Object[]> argsValueLocal = code.newLocal(TypeId.get(Object[].class));
+		Local<Object> tmpObjLocal = code.newLocal(TypeId.OBJECT);
+		Local<Object> retObjLocal = code.newLocal(TypeId.OBJECT);
+		Local retLocal = isVoid ? null : code.newLocal(methodReturnType);
+		Local retPackLocal = null;
+		if (retClass.isPrimitive() && !isVoid) {
+			retPackLocal = code.newLocal(TypeId.get(Const.getPackedType(retClass)));
+		}
+		boolean primitiveArgs = argsClass.length == 0 || (argsClass.length == 1 && isIntegral(argsClass[0]));
+		boolean primitiveReturn = isIntegral(retClass);
+		Local<Boolean> isPrimitiveLocal = null;
+		Local<PrimitiveMethodInterceptor> primitiveInterceptorLocal = null;
+		Local<Long> argLongLocal = null;
+		Local<Long> retLongLocal = null;
+		Local<Long> zeroLongLocal = null;
+		if (primitiveArgs || primitiveReturn) {
+			isPrimitiveLocal = code.newLocal(TypeId.BOOLEAN);
+			primitiveInterceptorLocal = code.newLocal(PRIMITIVE_INTERCEPTOR);
+			if (argsClass.length == 1 && argsClass[0] != long.class) {
+				argLongLocal = code.newLocal(TypeId.LONG);
+			}
+			if (primitiveReturn) {
+				retLongLocal = code.newLocal(TypeId.LONG);
+			}
+			if (retClass == boolean.class) {
+				zeroLongLocal = code.newLocal(TypeId.LONG);
+			}
+		}
+		Local<String> messageLocal = null;
+		Local<ProxyException> exceptionLocal = null;
+		if (!hasSuper) {
+			messageLocal = code.newLocal(TypeId.STRING);
+			exceptionLocal = code.newLocal(TypeId.get(ProxyException.class));
+		}
+
+		Label nullCallback = new Label();
+		code.iget(interceptorField, interceptorLocal, thisLocal);
+		code.compareZ(Comparison.EQ, nullCallback, interceptorLocal);
+
+		code.loadConstant(intLocal, index);
+		code.sget(methodsField, methodsLocal);
+		code.aget(methodLocal, methodsLocal, intLocal);
+		code.sget(methodProxiesField, methodProxiesLocal);
+		code.aget(methodProxyLocal, methodProxiesLocal, intLocal);
+		if (primitiveArgs || primitiveReturn) {
+			Label general = new Label();
+			code.instanceOfType(isPrimitiveLocal, interceptorLocal, PRIMITIVE_INTERCEPTOR);
+			code.compareZ(Comparison.EQ, general, isPrimitiveLocal);
+			code.cast(primitiveInterceptorLocal, interceptorLocal);
+			Local resultLocal = primitiveReturn ? retLongLocal : retObjLocal;
+			if (primitiveArgs) {
+				if (argsClass.length == 0) {
+					MethodId interceptId = primitiveReturn ? INTERCEPT_LONG_NO_ARGS : INTERCEPT_NO_ARGS;
+					code.invokeInterface(interceptId, resultLocal,
+							primitiveInterceptorLocal, thisLocal, methodLocal, methodProxyLocal);
+				} else {
+					Local argLocal = code.getParameter(0, argsTypeId[0]);
+					if (argLongLocal != null) {
+						code.cast(argLongLocal, argLocal);
+						argLocal = argLongLocal;
 					}
+					MethodId interceptId = primitiveReturn ? INTERCEPT_LONG_LONG_ARG : INTERCEPT_LONG_ARG;
+					code.invokeInterface(interceptId, resultLocal,
+							primitiveInterceptorLocal, thisLocal, methodLocal, argLocal, methodProxyLocal);
 				}
 			} else {
-				// must add below code, or "bad method" error will occurs.
-				code.loadConstant(argsTypeLocal, null);
-				code.loadConstant(argsValueLocal, null);
-			}
-			
-			methodId = methodProxyExecuterType.getMethod(TypeId.OBJECT, "executeInterceptor", methodInterceptorTypelist, classType, stringType, classesType, objectsType, objectType);
-			code.invokeStatic(methodId, isVoid ? null : retObjLocal, methodInterceptorLocal, subClassLocal, methodNameLocal, argsTypeLocal, argsValueLocal, thisLocal);
-			
-			if (isVoid) {
-				code.returnVoid();
+				loadArgs(code, argsClass, argsTypeId, argsValueLocal, intLocal, tmpObjLocal);
+				code.invokeInterface(INTERCEPT_LONG, retLongLocal,
+						primitiveInterceptorLocal, thisLocal, methodLocal, argsValueLocal, methodProxyLocal);
+			}
+			if (primitiveReturn) {
+				returnNarrowed(code, retClass, retLongLocal, retLocal, intLocal, zeroLongLocal);
 			} else {
-				if (retClass.isPrimitive()) {
-					// here use one label, if use two, need jump once and mark twice
-			        Label ifBody = new Label();
-			        code.loadConstant(retPackLocal, null);
-			        code.compare(Comparison.EQ, ifBody, retObjLocal, retPackLocal);
-			        
-					code.cast(retPackLocal, retObjLocal);
-					methodId = TypeId.get(Const.getPackedType(retClass)).getMethod(methodReturnType, Const.getPrimitiveValueMethodName(retClass));
-					code.invokeVirtual(methodId, retLocal, retPackLocal);
-					code.returnValue(retLocal);
-					
-					code.mark(ifBody);
-					code.loadConstant(retLocal, 0);
-					code.returnValue(retLocal);
+				returnUnboxed(code, retClass, retObjLocal, retLocal, retPackLocal);
+			}
+			code.mark(general);
+		}
+		loadArgs(code, argsClass, argsTypeId, argsValueLocal, intLocal, tmpObjLocal);
+		code.invokeInterface(INTERCEPT, retObjLocal, interceptorLocal, thisLocal, methodLocal, argsValueLocal, methodProxyLocal);
+		returnUnboxed(code, retClass, retObjLocal, retLocal, retPackLocal);
+
+		code.mark(nullCallback);
+		invokeSuperOrThrow(code, superType, method, hasSuper, thisLocal, argsTypeId, retLocal, messageLocal, exceptionLocal);
+	}
+
+	/**
+	 * Overrides a method mapped to a {@link Dispatcher} with code equivalent to:
+	 * <pre>
+	 *     public int doSomething(Bar param0, int param1) {
+	 *         Dispatcher dispatcher = this.callback$Enhancer$1;
+	 *         if (dispatcher == null) {
+	 *             return super.doSomething(param0, param1);
+	 *         }
+	 *         return ((Example) dispatcher.loadObject()).doSomething(param0, param1);
+	 *     }
+	 * </pre>
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <S> void generateDispatchedMethod(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType,
+			Method method, FieldId<S, Dispatcher> dispatcherField) {
+		Class<?> retClass = method.getReturnType();
+		TypeId<?> methodReturnType = TypeId.get(retClass);
+		TypeId<?>[] argsTypeId = toTypeIds(method.getParameterTypes());
+		Class<?> declaringClass = method.getDeclaringClass();
+		TypeId<?> declaringType = TypeId.get(declaringClass);
+		boolean hasSuper = hasSuperMethod(method);
+
+		MethodId<?, ?> subMethodId = subType.getMethod(methodReturnType, method.getName(), argsTypeId);
+		Code code = dexMaker.declare(subMethodId, method.getModifiers() & ACCESS_MODIFIERS);
+
+		Local thisLocal = code.getThis(subType);
+		Local<Dispatcher> dispatcherLocal = code.newLocal(TypeId.get(Dispatcher.class));
+		Local<Object> targetObjLocal = code.newLocal(TypeId.OBJECT);
+		Local targetLocal = code.newLocal(declaringType);
+		Local retLocal = retClass == void.class ? null : code.newLocal(methodReturnType);
+		Local<String> messageLocal = null;
+		Local<ProxyException> exceptionLocal = null;
+		if (!hasSuper) {
+			messageLocal = code.newLocal(TypeId.STRING);
+			exceptionLocal = code.newLocal(TypeId.get(ProxyException.class));
+		}
+
+		Label nullCallback = new Label();
+		code.iget(dispatcherField, dispatcherLocal, thisLocal);
+		code.compareZ(Comparison.EQ, nullCallback, dispatcherLocal);
+
+		code.invokeInterface(LOAD_OBJECT, targetObjLocal, dispatcherLocal);
+		code.cast(targetLocal, targetObjLocal);
+		Local[] argsValueLocal = new Local[argsTypeId.length];
+		for (int i = 0; i < argsTypeId.length; i++) {
+			argsValueLocal[i] = code.getParameter(i, argsTypeId[i]);
+		}
+		MethodId targetMethodId = declaringType.getMethod(methodReturnType, method.getName(), argsTypeId);
+		if (declaringClass.isInterface()) {
+			code.invokeInterface(targetMethodId, retLocal, targetLocal, argsValueLocal);
+		} else {
+			code.invokeVirtual(targetMethodId, retLocal, targetLocal, argsValueLocal);
+		}
+		if (retLocal == null) {
+			code.returnVoid();
+		} else {
+			code.returnValue(retLocal);
+		}
+
+		code.mark(nullCallback);
+		invokeSuperOrThrow(code, superType, method, hasSuper, thisLocal, argsTypeId, retLocal, messageLocal, exceptionLocal);
+	}
+
+	/**
+	 * Overrides a method mapped to a {@link FixedValue} with code equivalent to:
+	 * <pre>
+	 *     public int doSomething(Bar param0, int param1) {
+	 *         FixedValue fixedValue = this.callback$Enhancer$2;
+	 *         if (fixedValue == null) {
+	 *             return super.doSomething(param0, param1);
+	 *         }
+	 *         Object result = fixedValue.loadValue();
+	 *         return result == null ? 0 : ((Integer) result).intValue();
+	 *     }
+	 * </pre>
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <S> void generateFixedValueMethod(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType,
+			Method method, FieldId<S, FixedValue> fixedValueField) {
+		Class<?> retClass = method.getReturnType();
+		TypeId<?> methodReturnType = TypeId.get(retClass);
+		TypeId<?>[] argsTypeId = toTypeIds(method.getParameterTypes());
+		boolean hasSuper = hasSuperMethod(method);
+
+		MethodId<?, ?> subMethodId = subType.getMethod(methodReturnType, method.getName(), argsTypeId);
+		Code code = dexMaker.declare(subMethodId, method.getModifiers() & ACCESS_MODIFIERS);
+
+		Local thisLocal = code.getThis(subType);
+		Local<FixedValue> fixedValueLocal = code.newLocal(TypeId.get(FixedValue.class));
+		Local<Object> retObjLocal = code.newLocal(TypeId.OBJECT);
+		Local retLocal = retClass == void.class ? null : code.newLocal(methodReturnType);
+		Local retPackLocal = null;
+		if (retClass.isPrimitive() && retClass != void.class) {
+			retPackLocal = code.newLocal(TypeId.get(Const.getPackedType(retClass)));
+		}
+		Local<String> messageLocal = null;
+		Local<ProxyException> exceptionLocal = null;
+		if (!hasSuper) {
+			messageLocal = code.newLocal(TypeId.STRING);
+			exceptionLocal = code.newLocal(TypeId.get(ProxyException.class));
+		}
+
+		Label nullCallback = new Label();
+		code.iget(fixedValueField, fixedValueLocal, thisLocal);
+		code.compareZ(Comparison.EQ, nullCallback, fixedValueLocal);
+
+		code.invokeInterface(LOAD_VALUE, retObjLocal, fixedValueLocal);
+		returnUnboxed(code, retClass, retObjLocal, retLocal, retPackLocal);
+
+		code.mark(nullCallback);
+		invokeSuperOrThrow(code, superType, method, hasSuper, thisLocal, argsTypeId, retLocal, messageLocal, exceptionLocal);
+	}
+
+	/**
+	 * Implements a method without super implementation that is mapped to {@link NoOp}
+	 * by throwing, as there is nothing to delegate to.
+	 */
+	private <S> void generateAbstractMethod(DexMaker dexMaker, TypeId<S> subType, Method method) {
+		TypeId<?> methodReturnType = TypeId.get(method.getReturnType());
+		TypeId<?>[] argsTypeId = toTypeIds(method.getParameterTypes());
+		MethodId<?, ?> subMethodId = subType.getMethod(methodReturnType, method.getName(), argsTypeId);
+		Code code = dexMaker.declare(subMethodId, method.getModifiers() & ACCESS_MODIFIERS);
+		Local<String> messageLocal = code.newLocal(TypeId.STRING);
+		Local<AbstractMethodError> errorLocal = code.newLocal(TypeId.get(AbstractMethodError.class));
+		code.loadConstant(messageLocal, "'" + method + "' cannot be called");
+		code.newInstance(errorLocal, TypeId.get(AbstractMethodError.class).getConstructor(TypeId.STRING), messageLocal);
+		code.throwValue(errorLocal);
+	}
+
+	/**
+	 * Generates the fallback used while no callback is set: call super if there is
+	 * one, or throw.
+	 */
+	@SuppressWarnings({ "rawtypes" })
+	private static void invokeSuperOrThrow(Code code, TypeId<?> superType, Method method, boolean hasSuper, Local thisLocal,
+			TypeId<?>[] argsTypeId, Local retLocal, Local<String> messageLocal, Local<ProxyException> exceptionLocal) {
+		if (hasSuper) {
+			invokeSuperAndReturn(code, superType, method, thisLocal, argsTypeId, retLocal);
+		} else {
+			code.loadConstant(messageLocal, "Did not set method interceptor !");
+			code.newInstance(exceptionLocal, TypeId.get(ProxyException.class).getConstructor(TypeId.STRING), messageLocal);
+			code.throwValue(exceptionLocal);
+		}
+	}
+
+	/**
+	 * Generates method {methodName}$Super$ to invoke super's.
+	 */
+	@SuppressWarnings({ "rawtypes" })
+	private <S> void generateSuperMethod(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType, Method method) {
+		TypeId<?> methodReturnType = TypeId.get(method.getReturnType());
+		TypeId<?>[] argsTypeId = toTypeIds(method.getParameterTypes());
+		MethodId<?, ?> subMethodId = subType.getMethod(methodReturnType, method.getName() + Const.SUBCLASS_INVOKE_SUPER_SUFFIX, argsTypeId);
+		Code code = dexMaker.declare(subMethodId, method.getModifiers() & ACCESS_MODIFIERS);
+		Local retLocal = method.getReturnType() == void.class ? null : code.newLocal(methodReturnType);
+		invokeSuperAndReturn(code, superType, method, code.getThis(subType), argsTypeId, retLocal);
+	}
+
+	/**
+	 * Generates the invoker behind {@link MethodProxy#invokeSuper}, equivalent to:
+	 * <pre>
+	 *     public Object invokeSuper$Enhancer$(int index, Object[] args) {
+	 *         switch (index) {
+	 *             case 4:
+	 *                 return Integer.valueOf(super.doSomething((Bar) args[0], ((Integer) args[1]).intValue()));
+	 *             ...
+	 *             default:
+	 *                 throw new ProxyException("No super method for index " + index);
+	 *         }
+	 *     }
+	 * </pre>
+	 * There is no switch instruction in {@link Code}, so the cases are reached through a
+	 * balanced tree of comparisons on the index instead.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <S> void generateInvokeSuper(DexMaker dexMaker, TypeId<?> superType, TypeId<S> subType, Method[] methods) {
+		TypeId<Object[]> objectsType = TypeId.get(Object[].class);
+		MethodId<?, Object> invokeSuperMethodId = subType.getMethod(TypeId.OBJECT, "invokeSuper$Enhancer$", TypeId.INT, objectsType);
+		Code code = dexMaker.declare(invokeSuperMethodId, Modifier.PUBLIC);
+
+		List<Integer> cases = new ArrayList<>();
+		for (int m = 0; m < methods.length; m++) {
+			if (hasSuperMethod(methods[m])) {
+				cases.add(m);
+			}
+		}
+
+		// Locals can't be allocated once instructions are emitted, so reserve as many
+		// locals of each type as the most demanding case needs up front.
+		Map<TypeId<?>, List<Local<?>>> argLocals = new HashMap<>();
+		Map<TypeId<?>, Local<?>> retLocals = new HashMap<>();
+		Map<TypeId<?>, Local<?>> packLocals = new HashMap<>();
+		for (int m : cases) {
+			Method method = methods[m];
+			Map<TypeId<?>, Integer> counts = new HashMap<>();
+			for (Class<?> argClass : method.getParameterTypes()) {
+				TypeId<?> argType = TypeId.get(argClass);
+				Integer count = counts.get(argType);
+				counts.put(argType, count == null ? 1 : count + 1);
+				if (argClass.isPrimitive()) {
+					reserveLocal(code, packLocals, TypeId.get(Const.getPackedType(argClass)));
+				}
+			}
+			for (Map.Entry<TypeId<?>, Integer> entry : counts.entrySet()) {
+				List<Local<?>> locals = argLocals.get(entry.getKey());
+				if (locals == null) {
+					locals = new ArrayList<>();
+					argLocals.put(entry.getKey(), locals);
+				}
+				while (locals.size() < entry.getValue()) {
+					locals.add(code.newLocal(entry.getKey()));
+				}
+			}
+			Class<?> retClass = method.getReturnType();
+			if (retClass != void.class) {
+				reserveLocal(code, retLocals, TypeId.get(retClass));
+			}
+		}
+		Local thisLocal = code.getThis(subType);
+		Local<Integer> indexLocal = code.getParameter(0, TypeId.INT);
+		Local<Object[]> argsValueLocal = code.getParameter(1, objectsType);
+		Local<Integer> intLocal = code.newLocal(TypeId.INT);
+		Local<Object> tmpObjLocal = code.newLocal(TypeId.OBJECT);
+		Local<Object> retObjLocal = code.newLocal(TypeId.OBJECT);
+		Local<String> messageLocal = code.newLocal(TypeId.STRING);
+		Local<ProxyException> exceptionLocal = code.newLocal(TypeId.get(ProxyException.class));
+
+		Label[] caseLabels = new Label[cases.size()];
+		for (int i = 0; i < caseLabels.length; i++) {
+			caseLabels[i] = new Label();
+		}
+		Label defaultLabel = new Label();
+		generateDispatch(code, indexLocal, intLocal, cases, 0, cases.size(), caseLabels, defaultLabel);
+
+		for (int i = 0; i < caseLabels.length; i++) {
+			code.mark(caseLabels[i]);
+			Method method = methods[cases.get(i)];
+			Class<?>[] argsClass = method.getParameterTypes();
+			TypeId<?>[] argsTypeId = toTypeIds(argsClass);
+			Local[] superArgsValueLocal = new Local[argsClass.length];
+			Map<TypeId<?>, Integer> used = new HashMap<>();
+			for (int p = 0; p < argsClass.length; p++) {
+				Integer count = used.get(argsTypeId[p]);
+				int n = count == null ? 0 : count;
+				used.put(argsTypeId[p], n + 1);
+				Local argLocal = argLocals.get(argsTypeId[p]).get(n);
+				code.loadConstant(intLocal, p);
+				code.aget(tmpObjLocal, argsValueLocal, intLocal);
+				if (argsClass[p].isPrimitive()) {
+					Local packLocal = packLocals.get(TypeId.get(Const.getPackedType(argsClass[p])));
+					code.cast(packLocal, tmpObjLocal);
+					MethodId valueMethodId = packLocal.getType().getMethod(argsTypeId[p], Const.getPrimitiveValueMethodName(argsClass[p]));
+					code.invokeVirtual(valueMethodId, argLocal, packLocal);
 				} else {
-					code.cast(retLocal, retObjLocal);
-					code.returnValue(retLocal);
+					code.cast(argLocal, tmpObjLocal);
 				}
+				superArgsValueLocal[p] = argLocal;
 			}
-			
-			// generate method {methodName}$Super$ to invoke super's
-			if (hasParams) {
-				subMethodId = subType.getMethod(methodReturnType, methodName + Const.SUBCLASS_INVOKE_SUPER_SUFFIX, argsTypeId);
-				superMethodId = superType.getMethod(methodReturnType, methodName, argsTypeId);
+			Class<?> retClass = method.getReturnType();
+			TypeId<?> methodReturnType = TypeId.get(retClass);
+			MethodId superMethodId = superType.getMethod(methodReturnType, method.getName(), argsTypeId);
+			if (retClass == void.class) {
+				code.invokeSuper(superMethodId, null, thisLocal, superArgsValueLocal);
+				code.loadConstant(retObjLocal, null);
+				code.returnValue(retObjLocal);
 			} else {
-				subMethodId = subType.getMethod(methodReturnType, methodName + Const.SUBCLASS_INVOKE_SUPER_SUFFIX);
-				superMethodId = superType.getMethod(methodReturnType, methodName);
-			}
-			code = dexMaker.declare(subMethodId, method.getModifiers()& ~Modifier.ABSTRACT);
-			retLocal = code.newLocal(methodReturnType);
-			Local[] superArgsValueLocal = null;
-			thisLocal = code.getThis(subType);
-			if (hasParams) {
-				superArgsValueLocal = new Local[argsClass.length];
-				for (int i=0; i<argsClass.length; i++) {
-					superArgsValueLocal[i] = code.getParameter(i, argsTypeId[i]);
+				Local retLocal = retLocals.get(methodReturnType);
+				code.invokeSuper(superMethodId, retLocal, thisLocal, superArgsValueLocal);
+				if (retClass.isPrimitive()) {
+					box(code, retLocal, retClass, retObjLocal);
+				} else {
+					code.move(retObjLocal, retLocal);
 				}
-				code.invokeSuper(superMethodId, isVoid ? null : retLocal, thisLocal, superArgsValueLocal);
-			} else {
-				code.invokeSuper(superMethodId, isVoid ? null : retLocal, thisLocal);
+				code.returnValue(retObjLocal);
 			}
-			if (isVoid) {
-				code.returnVoid();
-			} else {
-				code.returnValue(retLocal);
+		}
+
+		code.mark(defaultLabel);
+		code.loadConstant(messageLocal, "No super method for index");
+		code.newInstance(exceptionLocal, TypeId.get(ProxyException.class).getConstructor(TypeId.STRING), messageLocal);
+		code.throwValue(exceptionLocal);
+	}
+
+	/**
+	 * Jumps to the label of the case matching {@code indexLocal} among
+	 * {@code cases[from, to)}, or to {@code defaultLabel} if there is none.
+	 */
+	private static void generateDispatch(Code code, Local<Integer> indexLocal, Local<Integer> intLocal,
+			List<Integer> cases, int from, int to, Label[] caseLabels, Label defaultLabel) {
+		if (to - from <= 4) {
+			for (int i = from; i < to; i++) {
+				code.loadConstant(intLocal, cases.get(i));
+				code.compare(Comparison.EQ, caseLabels[i], indexLocal, intLocal);
+			}
+			code.jump(defaultLabel);
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		Label upper = new Label();
+		code.loadConstant(intLocal, cases.get(mid));
+		code.compare(Comparison.GE, upper, indexLocal, intLocal);
+		generateDispatch(code, indexLocal, intLocal, cases, from, mid, caseLabels, defaultLabel);
+		code.mark(upper);
+		generateDispatch(code, indexLocal, intLocal, cases, mid, to, caseLabels, defaultLabel);
+	}
+
+	private static void reserveLocal(Code code, Map<TypeId<?>, Local<?>> locals, TypeId<?> type) {
+		if (!locals.containsKey(type)) {
+			locals.put(type, code.newLocal(type));
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void invokeSuperAndReturn(Code code, TypeId<?> superType, Method method, Local thisLocal,
+			TypeId<?>[] argsTypeId, Local retLocal) {
+		MethodId superMethodId = superType.getMethod(TypeId.get(method.getReturnType()), method.getName(), argsTypeId);
+		Local[] superArgsValueLocal = new Local[argsTypeId.length];
+		for (int i = 0; i < argsTypeId.length; i++) {
+			superArgsValueLocal[i] = code.getParameter(i, argsTypeId[i]);
+		}
+		code.invokeSuper(superMethodId, retLocal, thisLocal, superArgsValueLocal);
+		if (retLocal == null) {
+			code.returnVoid();
+		} else {
+			code.returnValue(retLocal);
+		}
+	}
+
+	/**
+	 * Boxes {@code value} into {@code tmpObjLocal} if it is primitive.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Local box(Code code, Local value, Class<?> type, Local<Object> tmpObjLocal) {
+		if (!type.isPrimitive()) {
+			return value;
+		}
+		TypeId packedClassType = TypeId.get(Const.getPackedType(type));
+		MethodId methodId = packedClassType.getMethod(packedClassType, "valueOf", TypeId.get(type));
+		code.invokeStatic(methodId, tmpObjLocal, value);
+		return tmpObjLocal;
+	}
+
+	/**
+	 * Loads the boxed arguments of the current method into {@code argsValueLocal}, or
+	 * the shared empty array for methods without arguments.
+	 */
+	private static void loadArgs(Code code, Class<?>[] argsClass, TypeId<?>[] argsTypeId,
+			Local<Object[]> argsValueLocal, Local<Integer> intLocal, Local<Object> tmpObjLocal) {
+		if (argsClass.length > 0) {
+			code.loadConstant(intLocal, argsClass.length);
+			code.newArray(argsValueLocal, intLocal);
+			for (int i = 0; i < argsClass.length; i++) {
+				code.loadConstant(intLocal, i);
+				code.aput(argsValueLocal, intLocal, box(code, code.getParameter(i, argsTypeId[i]), argsClass[i], tmpObjLocal));
 			}
+		} else {
+			code.sget(EMPTY_ARGS, argsValueLocal);
+		}
+	}
+
+	/**
+	 * Returns a value widened to {@code long} by a {@link PrimitiveMethodInterceptor} as
+	 * {@code retClass}: truncated for integral types, and non-zero as {@code true}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void returnNarrowed(Code code, Class<?> retClass, Local<Long> retLongLocal, Local retLocal,
+			Local<Integer> intLocal, Local<Long> zeroLongLocal) {
+		if (retClass == long.class) {
+			code.returnValue(retLongLocal);
+		} else if (retClass == int.class) {
+			code.cast(retLocal, retLongLocal);
+			code.returnValue(retLocal);
+		} else if (retClass == boolean.class) {
+			Label isFalse = new Label();
+			code.loadConstant(zeroLongLocal, 0L);
+			code.compareLongs(intLocal, retLongLocal, zeroLongLocal);
+			code.compareZ(Comparison.EQ, isFalse, intLocal);
+			code.loadConstant(retLocal, true);
+			code.returnValue(retLocal);
+			code.mark(isFalse);
+			code.loadConstant(retLocal, false);
+			code.returnValue(retLocal);
+		} else {
+			// byte, char and short
+			code.cast(intLocal, retLongLocal);
+			code.cast(retLocal, intLocal);
+			code.returnValue(retLocal);
+		}
+	}
+
+	private static boolean isIntegral(Class<?> type) {
+		return type == boolean.class || type == byte.class || type == char.class
+				|| type == short.class || type == int.class || type == long.class;
+	}
+
+	/**
+	 * Returns the interceptor's result, unboxing it for primitive return types.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void returnUnboxed(Code code, Class<?> retClass, Local<Object> retObjLocal, Local retLocal, Local retPackLocal) {
+		if (retClass == void.class) {
+			code.returnVoid();
+		} else if (retClass.isPrimitive()) {
+			// here use one label, if use two, need jump once and mark twice
+			Label ifBody = new Label();
+			code.compareZ(Comparison.EQ, ifBody, retObjLocal);
+
+			code.cast(retPackLocal, retObjLocal);
+			MethodId methodId = TypeId.get(Const.getPackedType(retClass)).getMethod(TypeId.get(retClass), Const.getPrimitiveValueMethodName(retClass));
+			code.invokeVirtual(methodId, retLocal, retPackLocal);
+			code.returnValue(retLocal);
+
+			code.mark(ifBody);
+			code.loadConstant(retLocal, Const.getDefaultValue(retClass));
+			code.returnValue(retLocal);
+		} else {
+			code.cast(retLocal, retObjLocal);
+			code.returnValue(retLocal);
+		}
+	}
+
+	private static TypeId<?>[] toTypeIds(Class<?>[] classes) {
+		TypeId<?>[] typeIds = new TypeId<?>[classes.length];
+		for (int i = 0; i < classes.length; i++) {
+			typeIds[i] = TypeId.get(classes[i]);
+		}
+		return typeIds;
+	}
+
+	/**
+	 * Whether the generated class can call {@code method} on its superclass, as
+	 * opposed to abstract methods and methods of interfaces added by this enhancer.
+	 */
+	private boolean hasSuperMethod(Method method) {
+		return !Modifier.isAbstract(method.getModifiers())
+				&& method.getDeclaringClass().isAssignableFrom(superclass);
+	}
+
+	/**
+	 * Fills the method and method proxy tables of a freshly loaded enhanced class.
+	 * This happens once per class, before any instance exists, so intercepted calls
+	 * only index into the tables instead of looking methods up.
+	 */
+	private static void setMethodTables(Class<?> subCls, Method[] methods) {
+		MethodProxy[] methodProxies = new MethodProxy[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			methodProxies[i] = new MethodProxy(subCls, methods[i], i);
+		}
+		setStaticField(subCls, FIELD_NAME_METHODS, methods);
+		setStaticField(subCls, FIELD_NAME_METHOD_PROXIES, methodProxies);
+	}
+
+	private static void setStaticField(Class<?> subCls, String name, Object value) {
+		try {
+			Field field = subCls.getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(null, value);
+		} catch (NoSuchFieldException e) {
+			// Should not be thrown, generated class has been generated with this field.
+			throw new AssertionError(e);
+		} catch (IllegalAccessException e) {
+			// Should not be thrown, we just set the field to accessible.
+			throw new AssertionError(e);
 		}
 	}
 
@@ -294,6 +1286,15 @@ public class Enhancer {
 		this.setCallbacks(new Callback[]{callback});
 	}
 
+	/**
+	 * Set the {@link CallbackFilter} used to map the generated class' methods
+	 * to a particular callback index. The filter is consulted once per method when
+	 * the class is generated, so it must always map a method to the same index.
+	 */
+	public void setCallbackFilter(CallbackFilter filter) {
+		this.filter = filter;
+	}
+
 	public void setCallbacks(Callback[] callbacks) {
 		if (callbacks != null && callbacks.length == 0) {
 			throw new IllegalArgumentException("Array cannot be empty");
@@ -301,4 +1302,144 @@ public class Enhancer {
 			this.callbacks = callbacks;
 		}
 	}
+
+	/**
+	 * Set the single type of {@link Callback} to use, for {@link #createClass()} and
+	 * {@link #generateJar} when no callback instances are available yet.
+	 */
+	public void setCallbackType(Class callbackType) {
+		this.setCallbackTypes(new Class[]{callbackType});
+	}
+
+	/**
+	 * Set the array of callback types to use, for {@link #createClass()} and
+	 * {@link #generateJar} when no callback instances are available yet.
+	 * Callbacks set with {@link #setCallbacks} take precedence.
+	 */
+	public void setCallbackTypes(Class[] callbackTypes) {
+		if (callbackTypes != null && callbackTypes.length == 0) {
+			throw new IllegalArgumentException("Array cannot be empty");
+		} else {
+			this.callbackTypes = callbackTypes;
+		}
+	}
+
+	/**
+	 * A generation of an enhanced class in progress, completed by the thread that
+	 * registered it in {@link #generations}.
+	 */
+	private static class Generation extends FutureTask<Class<?>> {
+		private static final Callable<Class<?>> NOT_RUN = new Callable<Class<?>>() {
+			@Override
+			public Class<?> call() {
+				throw new IllegalStateException("Generations are completed explicitly");
+			}
+		};
+
+		Generation() {
+			super(NOT_RUN);
+		}
+
+		void complete(Class<?> subCls) {
+			set(subCls);
+		}
+
+		void fail(Throwable cause) {
+			setException(cause);
+		}
+
+		/**
+		 * Waits for the generating thread and rethrows its failure, if any.
+		 */
+		Class<?> await() throws IOException {
+			try {
+				return get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for an enhanced class");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	/**
+	 * The method table, the callback of every method and the resulting names of an
+	 * enhanced class, computed before anything is generated or loaded.
+	 */
+	private class ClassLayout {
+		final EnhancedClass key;
+
+		final Method[] methods;
+
+		final int[] callbackIndexes;
+
+		final String className;
+
+		final String fileName;
+
+		ClassLayout(EnhancedClass key) {
+			this.key = key;
+			this.methods = getMethodsToProxy();
+			this.callbackIndexes = getCallbackIndexes(methods, key.callbackTypes.size());
+			String digest = digest(key, methods, callbackIndexes);
+			this.className = superclass.getName() + Const.SUBCLASS_SUFFIX + digest.substring(0, 8);
+			this.fileName = "Enhancer_" + digest + ".jar";
+		}
+
+		void declare(DexMaker dexMaker) {
+			Enhancer.this.declare(dexMaker, this);
+		}
+	}
+
+	/**
+	 * An enhanced class that was already generated.
+	 */
+	private static class EnhancedClass {
+		final Class<?> superclass;
+
+		final List<Class<?>> interfaces;
+
+		final List<Class<?>> callbackTypes;
+
+		final CallbackFilter filter;
+
+		EnhancedClass(Class<?> superclass, Class<?>[] interfaces, Class<?>[] callbackTypes, CallbackFilter filter) {
+			this.superclass = superclass;
+			this.interfaces = Arrays.asList(interfaces.clone());
+			this.callbackTypes = Arrays.asList(callbackTypes);
+			this.filter = filter;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (other == null || getClass() != other.getClass()) {
+				return false;
+			}
+			EnhancedClass that = (EnhancedClass) other;
+			return superclass == that.superclass
+					&& interfaces.equals(that.interfaces)
+					&& callbackTypes.equals(that.callbackTypes)
+					&& (filter == null ? that.filter == null : filter.equals(that.filter));
+		}
+
+		@Override
+		public int hashCode() {
+			return superclass.hashCode() + 31 * interfaces.hashCode() + callbackTypes.hashCode()
+					+ (filter != null ? filter.hashCode() : 0);
+		}
+	}
 }
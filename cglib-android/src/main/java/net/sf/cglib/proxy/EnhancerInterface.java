@@ -2,9 +2,8 @@ package net.sf.cglib.proxy;
 
 public interface EnhancerInterface {
 	
-	public void setMethodInterceptor$Enhancer$(MethodInterceptor[] methodInterceptor);
+	public void setCallbacks$Enhancer$(Callback[] callbacks);
 	
-	@SuppressWarnings("rawtypes")
-	public Object executeSuperMethod$Enhancer$(String methodName, Class[] argsType, Object[] argsValue);
+	public Object invokeSuper$Enhancer$(int index, Object[] argsValue);
 
 }
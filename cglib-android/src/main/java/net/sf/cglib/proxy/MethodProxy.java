@@ -6,44 +6,49 @@ import java.lang.reflect.Method;
 public class MethodProxy {
 	
 	private Class subClass;
-	private String methodName;
-	private Class[] argsType;
+	private Method method;
+	private int index;
 	
 	@SuppressWarnings("rawtypes")
-	public MethodProxy(Class subClass, String methodName, Class[] argsType) {
+	MethodProxy(Class subClass, Method method, int index) {
 		this.subClass = subClass;
-		this.methodName = methodName;
-		this.argsType = argsType;
+		this.method = method;
+		this.index = index;
 	}
 	
 	public String getMethodName() {
-		return methodName;
+		return method.getName();
+	}
+
+	/**
+	 * Returns the index of the intercepted method in the method table of the
+	 * enhanced class, which is also the case used by {@link #invokeSuper}.
+	 */
+	public int getSuperIndex() {
+		return index;
 	}
 	
-	@SuppressWarnings("unchecked")
 	public Method getOriginalMethod() {
-		try {
-			return subClass.getDeclaredMethod(methodName, argsType);
-		} catch (NoSuchMethodException e) {
-			throw new ProxyException(e.getMessage());
-		}
+		return method;
 	}
 
 	@SuppressWarnings("unchecked")
 	public Method getProxyMethod() {
 		try {
-			return subClass.getDeclaredMethod(methodName + Const.SUBCLASS_INVOKE_SUPER_SUFFIX, argsType);
+			return subClass.getDeclaredMethod(method.getName() + Const.SUBCLASS_INVOKE_SUPER_SUFFIX, method.getParameterTypes());
 		} catch (NoSuchMethodException e) {
 			throw new ProxyException(e.getMessage());
 		}
 	}
 	
 	public Object invokeSuper(Object object, Object[] argsValue) {
-		return ((EnhancerInterface) object).executeSuperMethod$Enhancer$(methodName, argsType, argsValue);
+		return ((EnhancerInterface) object).invokeSuper$Enhancer$(index, argsValue);
 	}
 
 	public Object invoke(Object target, Object[] args) throws InvocationTargetException, IllegalAccessException {
-		Method proxyMethod = getProxyMethod();
-		return  proxyMethod.invoke(target, args);
+		if (subClass.isInstance(target)) {
+			return invokeSuper(target, args);
+		}
+		return method.invoke(target, args);
 	}
 }
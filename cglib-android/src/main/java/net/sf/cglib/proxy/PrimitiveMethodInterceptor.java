@@ -0,0 +1,83 @@
+/*
+ * Copyright 2003 The Apache Software Foundation
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.cglib.proxy;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link MethodInterceptor} with array-free variants of {@code intercept} for
+ * common signatures. For methods without arguments, or with a single argument
+ * of type {@code boolean}, {@code byte}, {@code char}, {@code short}, {@code int}
+ * or {@code long}, the enhanced class passes the argument directly instead of
+ * allocating an argument array. For methods returning one of these types, the
+ * {@code interceptLong} variants are called so the return value is not boxed.
+ * <p>
+ * Arguments and return values of these types are widened to {@code long};
+ * {@code boolean} is passed as 1 or 0 and any non-zero return value is
+ * {@code true}. Return values are narrowed to the return type of the method.
+ * <p>
+ * Every variant defaults to the general
+ * {@link #intercept(Object, Method, Object[], MethodProxy)}, so implementations
+ * only override the shapes that are actually hot.
+ */
+public interface PrimitiveMethodInterceptor extends MethodInterceptor {
+	/**
+	 * Called for methods without arguments that return an object or {@code void}.
+	 * @see #intercept(Object, Method, Object[], MethodProxy)
+	 */
+	default Object intercept(Object obj, Method method, MethodProxy proxy) throws Throwable {
+		return intercept(obj, method, Const.EMPTY_ARGS, proxy);
+	}
+
+	/**
+	 * Called for methods with a single integral or {@code boolean} argument that
+	 * return an object or {@code void}.
+	 * @param arg the argument, widened to {@code long}
+	 * @see #intercept(Object, Method, Object[], MethodProxy)
+	 */
+	default Object intercept(Object obj, Method method, long arg, MethodProxy proxy) throws Throwable {
+		return intercept(obj, method, new Object[]{Const.box(method.getParameterTypes()[0], arg)}, proxy);
+	}
+
+	/**
+	 * Called for methods without arguments that return an integral or {@code boolean} value.
+	 * @return the return value, widened to {@code long}
+	 * @see #intercept(Object, Method, Object[], MethodProxy)
+	 */
+	default long interceptLong(Object obj, Method method, MethodProxy proxy) throws Throwable {
+		return Const.toLong(intercept(obj, method, proxy));
+	}
+
+	/**
+	 * Called for methods with a single integral or {@code boolean} argument that
+	 * return an integral or {@code boolean} value.
+	 * @param arg the argument, widened to {@code long}
+	 * @return the return value, widened to {@code long}
+	 * @see #intercept(Object, Method, Object[], MethodProxy)
+	 */
+	default long interceptLong(Object obj, Method method, long arg, MethodProxy proxy) throws Throwable {
+		return Const.toLong(intercept(obj, method, arg, proxy));
+	}
+
+	/**
+	 * Called for all other methods that return an integral or {@code boolean} value.
+	 * @return the return value, widened to {@code long}
+	 * @see #intercept(Object, Method, Object[], MethodProxy)
+	 */
+	default long interceptLong(Object obj, Method method, Object[] args, MethodProxy proxy) throws Throwable {
+		return Const.toLong(intercept(obj, method, args, proxy));
+	}
+}
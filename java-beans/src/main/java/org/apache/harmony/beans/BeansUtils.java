@@ -106,6 +106,26 @@ public class BeansUtils {
         return false;
     }
 
+    /**
+     * Returns whether <code>clazz</code> is loaded by the class loader of this
+     * class or one of its parents, so that caching it in a static field can
+     * never keep another class loader alive.
+     */
+    public static boolean isCacheSafe(Class<?> clazz) {
+        ClassLoader target = clazz.getClassLoader();
+        if (target == null) {
+            return true;
+        }
+        ClassLoader current = BeansUtils.class.getClassLoader();
+        while (current != null) {
+            if (current == target) {
+                return true;
+            }
+            current = current.getParent();
+        }
+        return false;
+    }
+
     public static String idOfClass(Class<?> clazz) {
         Class<?> theClass = clazz;
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,228 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.java.beans;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.harmony.beans.BeansUtils;
+
+/**
+ * The cache of <code>BeanInfo</code> objects used by the
+ * <code>Introspector</code>.
+ * <p>
+ * Reads never block. A <code>BeanInfo</code> missing from the cache is
+ * computed once: concurrent requests for the same class wait for the thread
+ * computing it instead of introspecting the class again.
+ * </p>
+ * <p>
+ * Classes loaded by the class loader of this class or one of its parents
+ * are held strongly, as they can never be unloaded before this cache. Classes
+ * of other class loaders are held by weak keys and soft values, since the
+ * <code>BeanInfo</code> refers to the class through its descriptors and
+ * would otherwise keep the class loader alive.
+ * </p>
+ */
+class BeanInfoCache {
+
+    private final ConcurrentMap<Class<?>, Future<BeanInfo>> strongCache;
+
+    private final ConcurrentMap<ClassKey, SoftReference<Future<BeanInfo>>> softCache;
+
+    private final ReferenceQueue<Class<?>> queue = new ReferenceQueue<Class<?>>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    BeanInfoCache(int initialCapacity) {
+        strongCache = new ConcurrentHashMap<Class<?>, Future<BeanInfo>>(initialCapacity);
+        softCache = new ConcurrentHashMap<ClassKey, SoftReference<Future<BeanInfo>>>();
+    }
+
+    /**
+     * Returns the cached <code>BeanInfo</code> of <code>beanClass</code>,
+     * computing it with <code>loader</code> if it is not cached yet.
+     */
+    BeanInfo get(Class<?> beanClass, Callable<BeanInfo> loader)
+            throws IntrospectionException {
+        expungeStaleEntries();
+        boolean strong = BeansUtils.isCacheSafe(beanClass);
+        Future<BeanInfo> future = strong ? strongCache.get(beanClass) : getSoft(beanClass);
+        if (future == null) {
+            FutureTask<BeanInfo> task = new FutureTask<BeanInfo>(loader);
+            future = strong ? strongCache.putIfAbsent(beanClass, task) : putSoftIfAbsent(beanClass, task);
+            if (future == null) {
+                misses.incrementAndGet();
+                future = task;
+                task.run();
+            } else {
+                hits.incrementAndGet();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        try {
+            return getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            // do not cache failures, the next request introspects the class again
+            remove(beanClass, future);
+            Throwable cause = e.getCause();
+            if (cause instanceof IntrospectionException) {
+                throw (IntrospectionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IntrospectionException(String.valueOf(cause));
+        }
+    }
+
+    void remove(Class<?> beanClass) {
+        strongCache.remove(beanClass);
+        softCache.remove(new ClassKey(beanClass, null));
+    }
+
+    void clear() {
+        strongCache.clear();
+        softCache.clear();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    private Future<BeanInfo> getSoft(Class<?> beanClass) {
+        SoftReference<Future<BeanInfo>> ref = softCache.get(new ClassKey(beanClass, null));
+        if (ref == null) {
+            return null;
+        }
+        Future<BeanInfo> future = ref.get();
+        if (future == null && softCache.remove(new ClassKey(beanClass, null), ref)) {
+            evictions.incrementAndGet();
+        }
+        return future;
+    }
+
+    private Future<BeanInfo> putSoftIfAbsent(Class<?> beanClass, Future<BeanInfo> task) {
+        ClassKey key = new ClassKey(beanClass, queue);
+        SoftReference<Future<BeanInfo>> ref = new SoftReference<Future<BeanInfo>>(task);
+        while (true) {
+            SoftReference<Future<BeanInfo>> existing = softCache.putIfAbsent(key, ref);
+            if (existing == null) {
+                return null;
+            }
+            Future<BeanInfo> future = existing.get();
+            if (future != null) {
+                return future;
+            }
+            // cleared by the garbage collector in the meantime
+            if (softCache.replace(key, existing, ref)) {
+                evictions.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    private void remove(Class<?> beanClass, Future<BeanInfo> future) {
+        if (!strongCache.remove(beanClass, future)) {
+            ClassKey key = new ClassKey(beanClass, null);
+            SoftReference<Future<BeanInfo>> ref = softCache.get(key);
+            if (ref != null && ref.get() == future) {
+                softCache.remove(key, ref);
+            }
+        }
+    }
+
+    private void expungeStaleEntries() {
+        ClassKey key;
+        while ((key = (ClassKey) queue.poll()) != null) {
+            if (softCache.remove(key) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static BeanInfo getUninterruptibly(Future<BeanInfo> future)
+            throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * A weak reference to a class, compared by identity of the referent. Keys
+     * created for lookups are not registered with the queue.
+     */
+    private static final class ClassKey extends WeakReference<Class<?>> {
+
+        private final int hash;
+
+        ClassKey(Class<?> beanClass, ReferenceQueue<Class<?>> queue) {
+            super(beanClass, queue);
+            this.hash = System.identityHashCode(beanClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ClassKey)) {
+                return false;
+            }
+            Class<?> beanClass = get();
+            return beanClass != null && beanClass == ((ClassKey) obj).get();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.java.beans;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary snapshot of the <code>PropertyDescriptor</code>s computed
+ * by the <code>Introspector</code> for a set of bean classes.
+ * <p>
+ * Reflective introspection scans all public methods of a bean class and its
+ * super classes and matches accessor names. An index written by
+ * {@link #write(OutputStream, Class[])}, at build time or on the first run of
+ * an application, records the outcome: the properties and the declaring class,
+ * name and parameter types of their accessors. Once installed with
+ * {@link Introspector#setBeanInfoIndex(BeanInfoIndex)}, the properties of an
+ * indexed class are restored by looking up just these methods.
+ * </p>
+ * <p>
+ * Only the class table is read eagerly; the entry of a class is decoded on
+ * its first <code>getBeanInfo</code> call. Method and event set descriptors
+ * are not recorded and are introspected on first access. Classes whose
+ * descriptors carry named attributes are not indexed. An entry whose methods
+ * cannot be found any more is ignored, and the class is introspected as
+ * usual, but an index does not detect accessors added after it was written,
+ * so it must be written again when the indexed classes change.
+ * </p>
+ */
+public final class BeanInfoIndex {
+
+    private static final int MAGIC = 0x4A424949; // "JBII"
+
+    private static final int VERSION = 1;
+
+    private static final int FLAG_INDEXED = 1;
+
+    private static final int FLAG_BOUND = 1 << 1;
+
+    private static final int FLAG_CONSTRAINED = 1 << 2;
+
+    private static final int FLAG_HIDDEN = 1 << 3;
+
+    private static final int FLAG_EXPERT = 1 << 4;
+
+    private static final int FLAG_PREFERRED = 1 << 5;
+
+    private static final int FLAG_EDITOR = 1 << 6;
+
+    private static final int FLAG_DISPLAY_NAME = 1 << 7;
+
+    private static final int FLAG_SHORT_DESCRIPTION = 1 << 8;
+
+    private static final int NO_STRING = 0xFFFF;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        Class<?>[] primitives = { boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class };
+        for (Class<?> primitive : primitives) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private final String[] strings;
+
+    private final Map<String, Integer> offsets;
+
+    private final byte[] entries;
+
+    private BeanInfoIndex(String[] strings, Map<String, Integer> offsets, byte[] entries) {
+        this.strings = strings;
+        this.offsets = offsets;
+        this.entries = entries;
+    }
+
+    /**
+     * Introspects the given classes and writes their property descriptors to
+     * <code>out</code>. The stream is not closed.
+     *
+     * @param out
+     *            the stream to write the index to
+     * @param beanClasses
+     *            the bean classes to index
+     * @throws IntrospectionException
+     *             if a class cannot be introspected
+     */
+    public static void write(OutputStream out, Class<?>... beanClasses)
+            throws IOException, IntrospectionException {
+        Map<String, Integer> pool = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+        List<Integer> classNames = new ArrayList<Integer>();
+        List<Integer> classOffsets = new ArrayList<Integer>();
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+        DataOutputStream entries = new DataOutputStream(entryBytes);
+
+        for (Class<?> beanClass : beanClasses) {
+            BeanInfo info = Introspector.getBeanInfo(beanClass);
+            PropertyDescriptor[] properties = info.getPropertyDescriptors();
+            if (!isIndexable(properties)) {
+                continue;
+            }
+            classNames.add(intern(beanClass.getName(), pool, strings));
+            classOffsets.add(entries.size());
+            entries.writeShort(info.getDefaultPropertyIndex());
+            entries.writeShort(properties.length);
+            for (PropertyDescriptor property : properties) {
+                boolean indexed = property instanceof IndexedPropertyDescriptor;
+                int flags = (indexed ? FLAG_INDEXED : 0)
+                        | (property.isBound() ? FLAG_BOUND : 0)
+                        | (property.isConstrained() ? FLAG_CONSTRAINED : 0)
+                        | (property.isHidden() ? FLAG_HIDDEN : 0)
+                        | (property.isExpert() ? FLAG_EXPERT : 0)
+                        | (property.isPreferred() ? FLAG_PREFERRED : 0)
+                        | (property.getPropertyEditorClass() != null ? FLAG_EDITOR : 0)
+                        | (property.displayName != null ? FLAG_DISPLAY_NAME : 0)
+                        | (property.shortDescription != null ? FLAG_SHORT_DESCRIPTION : 0);
+                entries.writeShort(flags);
+                entries.writeShort(intern(property.getName(), pool, strings));
+                writeMethod(entries, property.getReadMethod(), pool, strings);
+                writeMethod(entries, property.getWriteMethod(), pool, strings);
+                if (indexed) {
+                    IndexedPropertyDescriptor indexedProperty = (IndexedPropertyDescriptor) property;
+                    writeMethod(entries, indexedProperty.getIndexedReadMethod(), pool, strings);
+                    writeMethod(entries, indexedProperty.getIndexedWriteMethod(), pool, strings);
+                }
+                if ((flags & FLAG_EDITOR) != 0) {
+                    entries.writeShort(intern(property.getPropertyEditorClass().getName(), pool, strings));
+                }
+                if ((flags & FLAG_DISPLAY_NAME) != 0) {
+                    entries.writeShort(intern(property.displayName, pool, strings));
+                }
+                if ((flags & FLAG_SHORT_DESCRIPTION) != 0) {
+                    entries.writeShort(intern(property.shortDescription, pool, strings));
+                }
+            }
+        }
+        entries.flush();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(strings.size());
+        for (String string : strings) {
+            data.writeUTF(string);
+        }
+        data.writeInt(classNames.size());
+        for (int i = 0; i < classNames.size(); i++) {
+            data.writeShort(classNames.get(i));
+            data.writeInt(classOffsets.get(i));
+        }
+        data.writeInt(entryBytes.size());
+        entryBytes.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Reads an index written by {@link #write(OutputStream, Class[])}. The
+     * stream is not closed.
+     *
+     * @param in
+     *            the stream to read the index from
+     * @return the index
+     * @throws IOException
+     *             if the stream cannot be read or does not hold an index of
+     *             this version
+     */
+    public static BeanInfoIndex read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readUnsignedShort() != VERSION) {
+            throw new IOException("Not a bean info index of version " + VERSION); //$NON-NLS-1$
+        }
+        String[] strings = new String[data.readUnsignedShort()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = data.readUTF();
+        }
+        int classCount = data.readInt();
+        Map<String, Integer> offsets = new HashMap<String, Integer>(classCount * 4 / 3 + 1);
+        for (int i = 0; i < classCount; i++) {
+            String className = strings[data.readUnsignedShort()];
+            offsets.put(className, data.readInt());
+        }
+        byte[] entries = new byte[data.readInt()];
+        data.readFully(entries);
+        return new BeanInfoIndex(strings, offsets, entries);
+    }
+
+    /**
+     * Returns whether the index holds an entry for the given class name.
+     */
+    public boolean contains(String className) {
+        return offsets.containsKey(className);
+    }
+
+    /**
+     * Restores the <code>BeanInfo</code> of <code>beanClass</code>, or returns
+     * <code>null</code> if the class is not indexed or its entry is stale.
+     */
+    BeanInfo getBeanInfo(Class<?> beanClass) {
+        Integer offset = offsets.get(beanClass.getName());
+        if (offset == null) {
+            return null;
+        }
+        ClassLoader classLoader = beanClass.getClassLoader();
+        try {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(entries,
+                    offset, entries.length - offset));
+            int defaultPropertyIndex = data.readShort();
+            PropertyDescriptor[] properties = new PropertyDescriptor[data.readUnsignedShort()];
+            for (int i = 0; i < properties.length; i++) {
+                int flags = data.readUnsignedShort();
+                String name = strings[data.readUnsignedShort()];
+                Method getter = readMethod(data, classLoader);
+                Method setter = readMethod(data, classLoader);
+                PropertyDescriptor property;
+                if ((flags & FLAG_INDEXED) != 0) {
+                    Method indexedGetter = readMethod(data, classLoader);
+                    Method indexedSetter = readMethod(data, classLoader);
+                    property = new IndexedPropertyDescriptor(name, getter, setter,
+                            indexedGetter, indexedSetter);
+                } else {
+                    property = new PropertyDescriptor(name, getter, setter);
+                }
+                property.setBound((flags & FLAG_BOUND) != 0);
+                property.setConstrained((flags & FLAG_CONSTRAINED) != 0);
+                property.setHidden((flags & FLAG_HIDDEN) != 0);
+                property.setExpert((flags & FLAG_EXPERT) != 0);
+                property.setPreferred((flags & FLAG_PREFERRED) != 0);
+                if ((flags & FLAG_EDITOR) != 0) {
+                    property.setPropertyEditorClass(loadClass(strings[data.readUnsignedShort()],
+                            classLoader));
+                }
+                if ((flags & FLAG_DISPLAY_NAME) != 0) {
+                    property.setDisplayName(strings[data.readUnsignedShort()]);
+                }
+                if ((flags & FLAG_SHORT_DESCRIPTION) != 0) {
+                    property.setShortDescription(strings[data.readUnsignedShort()]);
+                }
+                properties[i] = property;
+            }
+            return new SnapshotBeanInfo(beanClass, properties, defaultPropertyIndex);
+        } catch (IOException e) {
+            // corrupt entry, introspect instead
+            return null;
+        } catch (IntrospectionException e) {
+            // accessors changed, introspect instead
+            return null;
+        } catch (ClassNotFoundException e) {
+            // stale entry, introspect instead
+            return null;
+        } catch (NoSuchMethodException e) {
+            // stale entry, introspect instead
+            return null;
+        }
+    }
+
+    private static boolean isIndexable(PropertyDescriptor[] properties) {
+        if (properties == null) {
+            return false;
+        }
+        for (PropertyDescriptor property : properties) {
+            if (property.attributeNames().hasMoreElements()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeMethod(DataOutputStream out, Method method,
+            Map<String, Integer> pool, List<String> strings) throws IOException {
+        if (method == null) {
+            out.writeShort(NO_STRING);
+            return;
+        }
+        out.writeShort(intern(method.getDeclaringClass().getName(), pool, strings));
+        out.writeShort(intern(method.getName(), pool, strings));
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        out.writeByte(parameterTypes.length);
+        for (Class<?> parameterType : parameterTypes) {
+            out.writeShort(intern(parameterType.getName(), pool, strings));
+        }
+    }
+
+    private Method readMethod(DataInputStream in, ClassLoader classLoader)
+            throws IOException, ClassNotFoundException, NoSuchMethodException {
+        int declaringClass = in.readUnsignedShort();
+        if (declaringClass == NO_STRING) {
+            return null;
+        }
+        String name = strings[in.readUnsignedShort()];
+        Class<?>[] parameterTypes = new Class<?>[in.readUnsignedByte()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = loadClass(strings[in.readUnsignedShort()], classLoader);
+        }
+        return loadClass(strings[declaringClass], classLoader).getDeclaredMethod(name,
+                parameterTypes);
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader classLoader)
+            throws ClassNotFoundException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        return Class.forName(name, false, classLoader);
+    }
+
+    private static int intern(String string, Map<String, Integer> pool, List<String> strings)
+            throws IOException {
+        Integer index = pool.get(string);
+        if (index == null) {
+            if (strings.size() == NO_STRING) {
+                throw new IOException("Too many names for a bean info index"); //$NON-NLS-1$
+            }
+            index = strings.size();
+            pool.put(string, index);
+            strings.add(string);
+        }
+        return index;
+    }
+}
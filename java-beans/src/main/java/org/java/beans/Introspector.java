@@ -17,9 +17,7 @@
 
 package org.java.beans;
 
-import java.util.Collections;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 
 /**
  * The <code>Introspector</code> is a utility for developers to figure out
@@ -83,7 +81,10 @@ public class Introspector extends Object {
     // The cache to store Bean Info objects that have been found or created
     private static final int DEFAULT_CAPACITY = 128;
 
-    private static Map<Class<?>, StandardBeanInfo> theCache = Collections.synchronizedMap(new WeakHashMap<Class<?>, StandardBeanInfo>(DEFAULT_CAPACITY));
+    private static final BeanInfoCache theCache = new BeanInfoCache(DEFAULT_CAPACITY);
+
+    // Precomputed properties consulted before introspecting a class, if any
+    private static volatile BeanInfoIndex beanInfoIndex;
 
     private Introspector() {
         super();
@@ -122,8 +123,6 @@ public class Introspector extends Object {
      *  
      */
     public static void flushCaches() {
-        // Flush the cache by throwing away the cache HashMap and creating a
-        // new empty one
         theCache.clear();
     }
 
@@ -155,14 +154,68 @@ public class Introspector extends Object {
 	 * @return the <code>BeanInfo</code> of the bean class.
 	 * @throws org.java.beans.IntrospectionException
 	 */
-    public static org.java.beans.BeanInfo getBeanInfo(Class<?> beanClass)
+    public static org.java.beans.BeanInfo getBeanInfo(final Class<?> beanClass)
             throws org.java.beans.IntrospectionException {
-        StandardBeanInfo beanInfo = theCache.get(beanClass);
-        if (beanInfo == null) {
-            beanInfo = getBeanInfoImplAndInit(beanClass, null, USE_ALL_BEANINFO);
-            theCache.put(beanClass, beanInfo);
-        }
-        return beanInfo;
+        return theCache.get(beanClass, new Callable<BeanInfo>() {
+            public BeanInfo call() throws IntrospectionException {
+                BeanInfoIndex index = beanInfoIndex;
+                if (index != null) {
+                    BeanInfo beanInfo = index.getBeanInfo(beanClass);
+                    if (beanInfo != null) {
+                        return beanInfo;
+                    }
+                }
+                return introspect(beanClass);
+            }
+        });
+    }
+
+    /**
+     * Sets the index of precomputed properties that
+     * <code>getBeanInfo(Class)</code> consults before introspecting a class.
+     * Classes already in the cache are not affected.
+     * 
+     * @param index
+     *            the index, or <code>null</code> to always introspect
+     * @see BeanInfoIndex
+     */
+    public static void setBeanInfoIndex(BeanInfoIndex index) {
+        beanInfoIndex = index;
+    }
+
+    /**
+     * Gets the index of precomputed properties, if any.
+     * 
+     * @return the index set by <code>setBeanInfoIndex</code>, or
+     *         <code>null</code>
+     */
+    public static BeanInfoIndex getBeanInfoIndex() {
+        return beanInfoIndex;
+    }
+
+    /**
+     * Returns the number of <code>getBeanInfo(Class)</code> calls answered
+     * from the cache, including calls that waited for another thread
+     * introspecting the same class.
+     */
+    public static long getCacheHits() {
+        return theCache.getHits();
+    }
+
+    /**
+     * Returns the number of <code>getBeanInfo(Class)</code> calls that
+     * introspected the bean class.
+     */
+    public static long getCacheMisses() {
+        return theCache.getMisses();
+    }
+
+    /**
+     * Returns the number of cached <code>BeanInfo</code> objects dropped by
+     * the garbage collector, for classes of other class loaders.
+     */
+    public static long getCacheEvictions() {
+        return theCache.getEvictions();
     }
 
     /**
@@ -355,6 +408,10 @@ public class Introspector extends Object {
                 Thread.currentThread().getContextClassLoader()).newInstance();
     }
 
+    static StandardBeanInfo introspect(Class<?> beanClass) throws IntrospectionException {
+        return getBeanInfoImplAndInit(beanClass, null, USE_ALL_BEANINFO);
+    }
+
     private static StandardBeanInfo getBeanInfoImplAndInit(Class<?> beanClass,
             Class<?> stopClass, int flag) throws IntrospectionException {
         StandardBeanInfo standardBeanInfo = getBeanInfoImpl(beanClass,
@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.java.beans;
+
+/**
+ * A <code>BeanInfo</code> restored from a {@link BeanInfoIndex}. Properties
+ * come from the index; method and event set descriptors are introspected on
+ * first access.
+ */
+class SnapshotBeanInfo extends SimpleBeanInfo {
+
+    private final Class<?> beanClass;
+
+    private final PropertyDescriptor[] properties;
+
+    private final int defaultPropertyIndex;
+
+    private volatile StandardBeanInfo introspected;
+
+    SnapshotBeanInfo(Class<?> beanClass, PropertyDescriptor[] properties,
+            int defaultPropertyIndex) {
+        this.beanClass = beanClass;
+        this.properties = properties;
+        this.defaultPropertyIndex = defaultPropertyIndex;
+    }
+
+    @Override
+    public PropertyDescriptor[] getPropertyDescriptors() {
+        return properties;
+    }
+
+    @Override
+    public int getDefaultPropertyIndex() {
+        return defaultPropertyIndex;
+    }
+
+    @Override
+    public BeanDescriptor getBeanDescriptor() {
+        return introspect().getBeanDescriptor();
+    }
+
+    @Override
+    public MethodDescriptor[] getMethodDescriptors() {
+        return introspect().getMethodDescriptors();
+    }
+
+    @Override
+    public EventSetDescriptor[] getEventSetDescriptors() {
+        return introspect().getEventSetDescriptors();
+    }
+
+    @Override
+    public int getDefaultEventIndex() {
+        return introspect().getDefaultEventIndex();
+    }
+
+    private StandardBeanInfo introspect() {
+        StandardBeanInfo info = introspected;
+        if (info == null) {
+            try {
+                info = Introspector.introspect(beanClass);
+            } catch (IntrospectionException e) {
+                // the class was introspected successfully when the index was written
+                throw new IllegalStateException(e);
+            }
+            introspected = info;
+        }
+        return info;
+    }
+}
@@ -25,11 +25,14 @@ import java.lang.reflect.Modifier;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.harmony.beans.BeansUtils;
 import org.apache.harmony.beans.internal.nls.Messages;
@@ -42,8 +45,13 @@ public class Statement {
 
     private Object[] arguments;
 
+    // cache the best matching method of a class for a method name and argument
+    // types, for classes that cannot keep another class loader alive
+    private static final ConcurrentMap<MethodKey, Method> resolvedMethodsCache = new ConcurrentHashMap<MethodKey, Method>();
+
     // cache used methods of specified target class to accelerate method search
-    private static WeakHashMap<Class<?>, Method[]> classMethodsCache = new WeakHashMap<Class<?>, Method[]>();
+    private static final Map<Class<?>, Method[]> classMethodsCache = Collections
+            .synchronizedMap(new WeakHashMap<Class<?>, Method[]>());
 
     public Statement(Object target, String methodName, Object[] arguments) {
         this.target = target;
@@ -332,12 +340,31 @@ public class Statement {
      */
     static Method findMethod(Class<?> clazz, String methodName, Object[] args,
             boolean isStatic) throws NoSuchMethodException {
-        Class<?>[] argTypes = getTypes(args);
+        return findMethod(clazz, methodName, getTypes(args), isStatic);
+    }
 
-        Method[] methods = null;
-        if (classMethodsCache.containsKey(clazz)) {
-            methods = classMethodsCache.get(clazz);
-        } else {
+    /**
+     * Searches for best matching method for given name and argument types,
+     * where a <code>null</code> argument type matches any parameter type.
+     */
+    static Method findMethod(Class<?> clazz, String methodName,
+            Class<?>[] argTypes, boolean isStatic) throws NoSuchMethodException {
+        if (!BeansUtils.isCacheSafe(clazz)) {
+            return resolveMethod(clazz, methodName, argTypes, isStatic);
+        }
+        MethodKey key = new MethodKey(clazz, methodName, argTypes, isStatic);
+        Method method = resolvedMethodsCache.get(key);
+        if (method == null) {
+            method = resolveMethod(clazz, methodName, argTypes, isStatic);
+            resolvedMethodsCache.putIfAbsent(key, method);
+        }
+        return method;
+    }
+
+    private static Method resolveMethod(Class<?> clazz, String methodName,
+            Class<?>[] argTypes, boolean isStatic) throws NoSuchMethodException {
+        Method[] methods = classMethodsCache.get(clazz);
+        if (methods == null) {
             methods = clazz.getMethods();
             classMethodsCache.put(clazz, methods);
         }
@@ -361,7 +388,7 @@ public class Statement {
             return fitMethods.get(0);
         }
         // find the most relevant one
-        MethodComparator comparator = new MethodComparator(methodName, argTypes);
+        MethodComparator comparator = new MethodComparator(methodName, argTypes.clone());
         Method[] fitMethodArray = fitMethods.toArray(new Method[fitSize]);
         Method onlyMethod = fitMethodArray[0];
         Class<?> onlyReturnType, fitReturnType;
@@ -501,6 +528,52 @@ public class Statement {
         return types;
     }
 
+    /**
+     * Key of a method resolution: the class searched, the method name, the
+     * argument types and whether only static methods match.
+     */
+    private static final class MethodKey {
+
+        private final Class<?> clazz;
+
+        private final String methodName;
+
+        private final Class<?>[] argTypes;
+
+        private final boolean isStatic;
+
+        private final int hash;
+
+        MethodKey(Class<?> clazz, String methodName, Class<?>[] argTypes,
+                boolean isStatic) {
+            this.clazz = clazz;
+            this.methodName = methodName;
+            this.argTypes = argTypes;
+            this.isStatic = isStatic;
+            this.hash = (clazz.hashCode() * 31 + methodName.hashCode()) * 31
+                    + Arrays.hashCode(argTypes) + (isStatic ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return clazz == other.clazz && isStatic == other.isStatic
+                    && methodName.equals(other.methodName)
+                    && Arrays.equals(argTypes, other.argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     /**
      * Comparator to determine which of two methods is "closer" to the reference
      * method.
@@ -24,6 +24,8 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Stack;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.xml.parsers.SAXParserFactory;
 
@@ -286,8 +288,22 @@ public class XMLDecoder {
             }
 
             if (toClose.isExpression) {
-                // push back expression
-                readObjs.push(toClose);
+                if (incremental && readObjs.isEmpty()) {
+                    // top level object, hand it over instead of keeping it
+                    publish(toClose);
+                } else {
+                    // push back expression
+                    readObjs.push(toClose);
+                }
+            }
+        }
+
+        private void publish(Elem elem) throws SAXException {
+            try {
+                parsedObjs.put(elem);
+            } catch (InterruptedException e) {
+                // the decoder was closed, stop parsing
+                throw new SAXException(e);
             }
         }
 
@@ -375,9 +391,9 @@ public class XMLDecoder {
                 }
 
                 // Find the specific method matching the parameter
-                Method mostSpecificMethod = findMethod(
+                Method mostSpecificMethod = Statement.findMethod(
                         owner instanceof Class<?> ? (Class<?>) owner : owner
-                                .getClass(), method, c);
+                                .getClass(), method, c, false);
 
                 return mostSpecificMethod.invoke(owner, args.toArray());
             }
@@ -387,80 +403,6 @@ public class XMLDecoder {
             return exp.getValue();
         }
 
-        private Method findMethod(Class<?> clazz, String methodName,
-                Class<?>[] clazzes) throws Exception {
-            Method[] methods = clazz.getMethods();
-            ArrayList<Method> matchMethods = new ArrayList<Method>();
-
-            // Add all matching methods into a ArrayList
-            for (Method method : methods) {
-                if (!methodName.equals(method.getName())) {
-                    continue;
-                }
-                Class<?>[] parameterTypes = method.getParameterTypes();
-                if (parameterTypes.length != clazzes.length) {
-                    continue;
-                }
-                boolean match = true;
-                for (int i = 0; i < parameterTypes.length; i++) {
-                    boolean isNull = (clazzes[i] == null);
-                    boolean isPrimitive = isPrimitiveWrapper(clazzes[i], parameterTypes[i]);
-                    boolean isAssignable = isNull? false : parameterTypes[i].isAssignableFrom(clazzes[i]);
-                    if ( isNull || isPrimitive || isAssignable ) {
-                        continue;
-                    }
-                    match = false;
-                }
-                if (match) {
-                    matchMethods.add(method);
-                }
-            }
-
-            int size = matchMethods.size();
-            if (size == 1) {
-                // Only one method matches, just invoke it
-                return matchMethods.get(0);
-            } else if (size == 0) {
-                // Does not find any matching one, throw exception
-                throw new NoSuchMethodException(Messages.getString(
-                        "beans.41", methodName)); //$NON-NLS-1$
-            }
-
-            // There are more than one method matching the signature
-            // Find the most specific one to invoke
-            Statement.MethodComparator comparator = new Statement.MethodComparator(methodName,
-                    clazzes);
-            Method chosenOne = matchMethods.get(0);
-            matchMethods.remove(0);
-            int methodCounter = 1;
-            for (Method method : matchMethods) {
-                int difference = comparator.compare(chosenOne, method);
-                if (difference > 0) {
-                    chosenOne = method;
-                    methodCounter = 1;
-                } else if (difference == 0) {
-                    methodCounter++;
-                }
-            }
-            if (methodCounter > 1) {
-                // if 2 methods have same relevance, throw exception
-                throw new NoSuchMethodException(Messages.getString(
-                                                                   "beans.62", methodName)); //$NON-NLS-1$
-            }
-            return chosenOne;
-        }
-
-        private boolean isPrimitiveWrapper(Class<?> wrapper, Class<?> base) {
-            return (base == boolean.class) && (wrapper == Boolean.class)
-                    || (base == byte.class) && (wrapper == Byte.class)
-                    || (base == char.class) && (wrapper == Character.class)
-                    || (base == short.class) && (wrapper == Short.class)
-                    || (base == int.class) && (wrapper == Integer.class)
-                    || (base == long.class) && (wrapper == Long.class)
-                    || (base == float.class) && (wrapper == Float.class)
-                    || (base == double.class) && (wrapper == Double.class);
-        }
-
         private String capitalize(String str) {
             StringBuilder buf = new StringBuilder(str);
             buf.setCharAt(0, Character.toUpperCase(buf.charAt(0)));
@@ -567,6 +509,18 @@ public class XMLDecoder {
 
     private SAXHandler saxHandler = null;
 
+    private boolean incremental;
+
+    // top level objects handed from the parsing thread to readObject() in
+    // incremental mode, followed by END_OF_STREAM
+    private BlockingQueue<Elem> parsedObjs;
+
+    private static final Elem END_OF_STREAM = new Elem();
+
+    private Thread parserThread;
+
+    private volatile boolean closed;
+
     /**
      * Create a decoder to read from specified input stream.
      * 
@@ -620,6 +574,10 @@ public class XMLDecoder {
         if (inputStream == null) {
             return;
         }
+        closed = true;
+        if (parserThread != null) {
+            parserThread.interrupt();
+        }
         try {
             inputStream.close();
         } catch (Exception e) {
@@ -657,14 +615,12 @@ public class XMLDecoder {
         if (inputStream == null) {
             return null;
         }
+        if (incremental) {
+            return readObjectIncrementally();
+        }
         if (saxHandler == null) {
             saxHandler = new SAXHandler();
-            try {
-                SAXParserFactory.newInstance().newSAXParser().parse(
-                        inputStream, saxHandler);
-            } catch (Exception e) {
-                this.listener.exceptionThrown(e);
-            }
+            parse();
         }
 
         if (readObjIndex >= readObjs.size()) {
@@ -679,6 +635,90 @@ public class XMLDecoder {
         return elem.result;
     }
 
+    /**
+     * Sets whether this decoder parses the xml incrementally. By default the
+     * whole document is parsed by the first <code>readObject</code> call and
+     * all top level objects are held until the decoder is discarded.
+     * <p>
+     * In incremental mode the document is parsed by a background thread that
+     * builds each top level object when its closing tag is reached and waits
+     * for <code>readObject</code> to take it before parsing further. Only
+     * the objects with an <code>id</code> are kept beyond that, so that later
+     * objects can refer to them. Peak memory is then proportional to the
+     * largest top level object rather than to the whole document. The
+     * exception listener is called from the parsing thread, and the decoder
+     * should be closed if not all objects are read.
+     * </p>
+     * 
+     * @param incremental
+     *            <code>true</code> to parse incrementally
+     * @throws IllegalStateException
+     *             if an object has been read already
+     */
+    public void setIncremental(boolean incremental) {
+        if (saxHandler != null) {
+            throw new IllegalStateException("Objects have been read already"); //$NON-NLS-1$
+        }
+        this.incremental = incremental;
+    }
+
+    private void parse() {
+        try {
+            SAXParserFactory.newInstance().newSAXParser().parse(
+                    inputStream, saxHandler);
+        } catch (Exception e) {
+            if (!closed) {
+                this.listener.exceptionThrown(e);
+            }
+        }
+    }
+
+    private Object readObjectIncrementally() {
+        if (saxHandler == null) {
+            saxHandler = new SAXHandler();
+            parsedObjs = new ArrayBlockingQueue<Elem>(1);
+            parserThread = new Thread(new Runnable() {
+                public void run() {
+                    parse();
+                    putUnlessClosed(END_OF_STREAM);
+                }
+            }, "XMLDecoder"); //$NON-NLS-1$
+            parserThread.setDaemon(true);
+            parserThread.start();
+        }
+
+        boolean interrupted = false;
+        Elem elem;
+        while (true) {
+            try {
+                elem = parsedObjs.take();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (elem == END_OF_STREAM) {
+            // leave it for the next call
+            parsedObjs.offer(END_OF_STREAM);
+            throw new ArrayIndexOutOfBoundsException(Messages.getString("beans.70")); //$NON-NLS-1$
+        }
+        return elem.result;
+    }
+
+    private void putUnlessClosed(Elem elem) {
+        while (!closed) {
+            try {
+                parsedObjs.put(elem);
+                return;
+            } catch (InterruptedException e) {
+                // closed, or spurious, check again
+            }
+        }
+    }
+
     /**
      * Sets the exception listener.
      * 
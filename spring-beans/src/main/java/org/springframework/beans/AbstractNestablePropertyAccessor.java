@@ -42,6 +42,7 @@ import org.springframework.core.convert.ConverterNotFoundException;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
@@ -76,6 +77,13 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 */
 	private static final Log logger = LogFactory.getLog(AbstractNestablePropertyAccessor.class);
 
+	/**
+	 * Parsed property paths: property path -> CompiledPropertyPath.
+	 * Shared across all accessors since parsing does not depend on the target.
+	 */
+	private static final Map<String, CompiledPropertyPath> compiledPropertyPaths =
+			new ConcurrentReferenceHashMap<>(256);
+
 	private int autoGrowCollectionLimit = Integer.MAX_VALUE;
 
 	@Nullable
@@ -234,16 +242,16 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 
 	@Override
 	public void setPropertyValue(String propertyName, @Nullable Object value) throws BeansException {
+		CompiledPropertyPath path = compilePropertyPath(propertyName);
 		AbstractNestablePropertyAccessor nestedPa;
 		try {
-			nestedPa = getPropertyAccessorForPropertyPath(propertyName);
+			nestedPa = getPropertyAccessorForPropertyPath(path);
 		}
 		catch (NotReadablePropertyException ex) {
 			throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 					"Nested property in path '" + propertyName + "' does not exist", ex);
 		}
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
-		nestedPa.setPropertyValue(tokens, new PropertyValue(propertyName, value));
+		nestedPa.setPropertyValue(path.finalTokens, new PropertyValue(propertyName, value));
 	}
 
 	@Override
@@ -251,15 +259,16 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		PropertyTokenHolder tokens = (PropertyTokenHolder) pv.resolvedTokens;
 		if (tokens == null) {
 			String propertyName = pv.getName();
+			CompiledPropertyPath path = compilePropertyPath(propertyName);
 			AbstractNestablePropertyAccessor nestedPa;
 			try {
-				nestedPa = getPropertyAccessorForPropertyPath(propertyName);
+				nestedPa = getPropertyAccessorForPropertyPath(path);
 			}
 			catch (NotReadablePropertyException ex) {
 				throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 						"Nested property in path '" + propertyName + "' does not exist", ex);
 			}
-			tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
+			tokens = path.finalTokens;
 			if (nestedPa == this) {
 				pv.getOriginalPropertyValue().resolvedTokens = tokens;
 			}
@@ -514,9 +523,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	public TypeDescriptor getPropertyTypeDescriptor(String propertyName) throws BeansException {
 		try {
-			AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-			String finalPath = getFinalPath(nestedPa, propertyName);
-			PropertyTokenHolder tokens = getPropertyNameTokens(finalPath);
+			CompiledPropertyPath path = compilePropertyPath(propertyName);
+			AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(path);
+			PropertyTokenHolder tokens = path.finalTokens;
 			PropertyHandler ph = nestedPa.getLocalPropertyHandler(tokens.actualName);
 			if (ph != null) {
 				if (tokens.keys != null) {
@@ -607,9 +616,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Override
 	@Nullable
 	public Object getPropertyValue(String propertyName) throws BeansException {
-		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
-		return nestedPa.getPropertyValue(tokens);
+		CompiledPropertyPath path = compilePropertyPath(propertyName);
+		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(path);
+		return nestedPa.getPropertyValue(path.finalTokens);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -808,17 +817,20 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 */
 	@SuppressWarnings("unchecked")  // avoid nested generic
 	protected AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(String propertyPath) {
-		int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(propertyPath);
-		// Handle nested properties recursively.
-		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			AbstractNestablePropertyAccessor nestedPa = getNestedPropertyAccessor(nestedProperty);
-			return nestedPa.getPropertyAccessorForPropertyPath(nestedPath);
-		}
-		else {
-			return this;
+		return getPropertyAccessorForPropertyPath(compilePropertyPath(propertyPath));
+	}
+
+	/**
+	 * Navigate the nested properties of the given compiled path.
+	 * @param path the compiled property path
+	 * @return a property accessor for the target bean
+	 */
+	private AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(CompiledPropertyPath path) {
+		AbstractNestablePropertyAccessor nestedPa = this;
+		for (PropertyTokenHolder nestedTokens : path.nestedTokens) {
+			nestedPa = nestedPa.getNestedPropertyAccessor(nestedTokens);
 		}
+		return nestedPa;
 	}
 
 	/**
@@ -826,15 +838,14 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 * Create a new one if not found in the cache.
 	 * <p>Note: Caching nested PropertyAccessors is necessary now,
 	 * to keep registered custom editors for nested properties.
-	 * @param nestedProperty property to create the PropertyAccessor for
+	 * @param tokens the parsed tokens of the property to create the PropertyAccessor for
 	 * @return the PropertyAccessor instance, either cached or newly created
 	 */
-	private AbstractNestablePropertyAccessor getNestedPropertyAccessor(String nestedProperty) {
+	private AbstractNestablePropertyAccessor getNestedPropertyAccessor(PropertyTokenHolder tokens) {
 		if (this.nestedPropertyAccessors == null) {
 			this.nestedPropertyAccessors = new HashMap<>();
 		}
 		// Get value of bean property.
-		PropertyTokenHolder tokens = getPropertyNameTokens(nestedProperty);
 		String canonicalName = tokens.canonicalName;
 		Object value = getPropertyValue(tokens);
 		if (value == null || (value instanceof Optional && !((Optional<?>) value).isPresent())) {
@@ -920,12 +931,35 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		}
 	}
 
+	/**
+	 * Return the compiled form of the given property path, parsing it on first use.
+	 * @param propertyPath the property path, which may be nested
+	 * @return the nested property tokens and final property tokens of the path
+	 */
+	private static CompiledPropertyPath compilePropertyPath(String propertyPath) {
+		CompiledPropertyPath path = compiledPropertyPaths.get(propertyPath);
+		if (path == null) {
+			List<PropertyTokenHolder> nestedTokens = new ArrayList<>(2);
+			String finalPath = propertyPath;
+			int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(finalPath);
+			while (pos > -1) {
+				nestedTokens.add(getPropertyNameTokens(finalPath.substring(0, pos)));
+				finalPath = finalPath.substring(pos + 1);
+				pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(finalPath);
+			}
+			path = new CompiledPropertyPath(
+					nestedTokens.toArray(new PropertyTokenHolder[0]), getPropertyNameTokens(finalPath));
+			compiledPropertyPaths.put(propertyPath, path);
+		}
+		return path;
+	}
+
 	/**
 	 * Parse the given property name into the corresponding property name tokens.
 	 * @param propertyName the property name to parse
 	 * @return representation of the parsed property tokens
 	 */
-	private PropertyTokenHolder getPropertyNameTokens(String propertyName) {
+	private static PropertyTokenHolder getPropertyNameTokens(String propertyName) {
 		String actualName = null;
 		List<String> keys = new ArrayList<>(2);
 		int searchIndex = 0;
@@ -958,7 +992,7 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		return tokens;
 	}
 
-	private int getPropertyNameKeyEnd(String propertyName, int startIndex) {
+	private static int getPropertyNameKeyEnd(String propertyName, int startIndex) {
 		int unclosedPrefixes = 0;
 		int length = propertyName.length();
 		for (int i = startIndex; i < length; i++) {
@@ -1053,6 +1087,23 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	}
 
 
+	/**
+	 * A property path parsed once into the tokens of its nested properties and of
+	 * its final property. The tokens are shared and must not be modified.
+	 */
+	private static final class CompiledPropertyPath {
+
+		final PropertyTokenHolder[] nestedTokens;
+
+		final PropertyTokenHolder finalTokens;
+
+		CompiledPropertyPath(PropertyTokenHolder[] nestedTokens, PropertyTokenHolder finalTokens) {
+			this.nestedTokens = nestedTokens;
+			this.finalTokens = finalTokens;
+		}
+	}
+
+
 	/**
 	 * Holder class used to store property tokens.
 	 */
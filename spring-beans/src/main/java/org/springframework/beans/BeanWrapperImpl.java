@@ -303,6 +303,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 					throw pae.getException();
 				}
 			}
+			else if (this.pd instanceof GenericTypeAwarePropertyDescriptor) {
+				return ((GenericTypeAwarePropertyDescriptor) this.pd).invokeReadMethod(getWrappedInstance());
+			}
 			else {
 				ReflectionUtils.makeAccessible(readMethod);
 				return readMethod.invoke(getWrappedInstance(), (Object[]) null);
@@ -327,6 +330,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 					throw ex.getException();
 				}
 			}
+			else if (this.pd instanceof GenericTypeAwarePropertyDescriptor) {
+				((GenericTypeAwarePropertyDescriptor) this.pd).invokeWriteMethod(getWrappedInstance(), value);
+			}
 			else {
 				ReflectionUtils.makeAccessible(writeMethod);
 				writeMethod.invoke(getWrappedInstance(), value);
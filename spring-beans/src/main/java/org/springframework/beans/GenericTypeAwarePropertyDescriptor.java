@@ -18,6 +18,10 @@ package org.springframework.beans;
 
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashSet;
 import java.util.Set;
@@ -31,6 +35,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -38,11 +43,22 @@ import org.springframework.util.StringUtils;
  * overriding {@code getPropertyType()} such that a generically declared
  * type variable will be resolved against the containing bean class.
  *
+ * <p>Also invokes the read and write methods through method handles, which are
+ * created once per descriptor and thus once per bean class, avoiding reflective
+ * invocation where the platform supports method handles.
+ *
  * @author Juergen Hoeller
  * @since 2.5.2
  */
 final class GenericTypeAwarePropertyDescriptor extends PropertyDescriptor {
 
+	private static final MethodType READ_METHOD_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType WRITE_METHOD_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/** Marker for a method that cannot be invoked through a method handle. */
+	private static final MethodHandle NO_HANDLE = MethodHandles.constant(Object.class, null);
+
 	private final Class<?> beanClass;
 
 	@Nullable
@@ -62,6 +78,12 @@ final class GenericTypeAwarePropertyDescriptor extends PropertyDescriptor {
 
 	private final Class<?> propertyEditorClass;
 
+	@Nullable
+	private volatile MethodHandle readHandle;
+
+	@Nullable
+	private volatile MethodHandle writeHandle;
+
 
 	public GenericTypeAwarePropertyDescriptor(Class<?> beanClass, String propertyName,
 			@Nullable Method readMethod, @Nullable Method writeMethod, Class<?> propertyEditorClass)
@@ -149,6 +171,67 @@ final class GenericTypeAwarePropertyDescriptor extends PropertyDescriptor {
 		return this.writeMethodParameter;
 	}
 
+	/**
+	 * Invoke the read method on the given target.
+	 * @param target the bean instance
+	 * @return the property value
+	 * @throws InvocationTargetException if the read method threw an exception
+	 * @see Method#invoke
+	 */
+	@Nullable
+	public Object invokeReadMethod(Object target) throws Exception {
+		Method readMethod = this.readMethod;
+		Assert.state(readMethod != null, "No read method available");
+		MethodHandle handle = this.readHandle;
+		if (handle == null) {
+			handle = createHandle(readMethod, READ_METHOD_TYPE);
+			this.readHandle = handle;
+		}
+		if (handle == NO_HANDLE) {
+			ReflectionUtils.makeAccessible(readMethod);
+			return readMethod.invoke(target, (Object[]) null);
+		}
+		checkTarget(readMethod, target);
+		try {
+			return (Object) handle.invokeExact(target);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Invoke the write method for actual access on the given target.
+	 * @param target the bean instance
+	 * @param value the property value
+	 * @throws InvocationTargetException if the write method threw an exception
+	 * @see #getWriteMethodForActualAccess()
+	 * @see Method#invoke
+	 */
+	public void invokeWriteMethod(Object target, @Nullable Object value) throws Exception {
+		Method writeMethod = getWriteMethodForActualAccess();
+		MethodHandle handle = this.writeHandle;
+		if (handle == null) {
+			handle = createHandle(writeMethod, WRITE_METHOD_TYPE);
+			this.writeHandle = handle;
+		}
+		if (handle == NO_HANDLE) {
+			ReflectionUtils.makeAccessible(writeMethod);
+			writeMethod.invoke(target, value);
+			return;
+		}
+		checkTarget(writeMethod, target);
+		if (!ClassUtils.isAssignableValue(writeMethod.getParameterTypes()[0], value)) {
+			throw new IllegalArgumentException("argument type mismatch");
+		}
+		try {
+			handle.invokeExact(target, value);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
 	@Override
 	@Nullable
 	public Class<?> getPropertyType() {
@@ -161,6 +244,32 @@ final class GenericTypeAwarePropertyDescriptor extends PropertyDescriptor {
 	}
 
 
+	/**
+	 * Create a method handle for the given method, adapted to the given generic
+	 * type, or return {@link #NO_HANDLE} to fall back to reflective invocation.
+	 */
+	private static MethodHandle createHandle(Method method, MethodType type) {
+		try {
+			ReflectionUtils.makeAccessible(method);
+			return MethodHandles.lookup().unreflect(method).asType(type);
+		}
+		catch (Throwable ex) {
+			// No method handle support or no access: use reflection instead
+			return NO_HANDLE;
+		}
+	}
+
+	/**
+	 * Reject a target that the method cannot be invoked on, like {@link Method#invoke}
+	 * does, rather than failing with a {@link ClassCastException} from the handle.
+	 */
+	private static void checkTarget(Method method, Object target) {
+		if (!method.getDeclaringClass().isInstance(target)) {
+			throw new IllegalArgumentException("object is not an instance of declaring class");
+		}
+	}
+
+
 	@Override
 	public boolean equals(@Nullable Object other) {
 		if (this == other) {
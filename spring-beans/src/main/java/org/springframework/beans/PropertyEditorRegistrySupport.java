@@ -28,9 +28,12 @@ import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Currency;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -42,6 +45,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import org.xml.sax.InputSource;
@@ -91,6 +95,85 @@ import org.springframework.util.ClassUtils;
  */
 public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 
+	/**
+	 * Factories for the default editors: required type -> editor factory.
+	 * Shared by all registry instances, which only create the editors
+	 * for the types actually requested.
+	 */
+	private static final Map<Class<?>, Supplier<PropertyEditor>> defaultEditorFactories;
+
+	/**
+	 * Types covered by the config value editor, which one instance serves for all of them.
+	 */
+	private static final Set<Class<?>> configValueEditorTypes;
+
+	static {
+		Map<Class<?>, Supplier<PropertyEditor>> factories = new HashMap<>(64);
+
+		// Simple editors, without parameterization capabilities.
+		// The JDK does not contain a default editor for any of these target types.
+		factories.put(Charset.class, CharsetEditor::new);
+		factories.put(Class.class, ClassEditor::new);
+		factories.put(Class[].class, ClassArrayEditor::new);
+		factories.put(Currency.class, CurrencyEditor::new);
+		factories.put(File.class, FileEditor::new);
+		factories.put(InputStream.class, InputStreamEditor::new);
+		factories.put(InputSource.class, InputSourceEditor::new);
+		factories.put(Locale.class, LocaleEditor::new);
+		factories.put(Path.class, PathEditor::new);
+		factories.put(Pattern.class, PatternEditor::new);
+		factories.put(Properties.class, PropertiesEditor::new);
+		factories.put(Reader.class, ReaderEditor::new);
+		factories.put(Resource[].class, ResourceArrayPropertyEditor::new);
+		factories.put(TimeZone.class, TimeZoneEditor::new);
+		factories.put(URI.class, URIEditor::new);
+		factories.put(URL.class, URLEditor::new);
+		factories.put(UUID.class, UUIDEditor::new);
+		factories.put(ZoneId.class, ZoneIdEditor::new);
+
+		// Default instances of collection editors.
+		// Can be overridden by registering custom instances of those as custom editors.
+		factories.put(Collection.class, () -> new CustomCollectionEditor(Collection.class));
+		factories.put(Set.class, () -> new CustomCollectionEditor(Set.class));
+		factories.put(SortedSet.class, () -> new CustomCollectionEditor(SortedSet.class));
+		factories.put(List.class, () -> new CustomCollectionEditor(List.class));
+		factories.put(SortedMap.class, () -> new CustomMapEditor(SortedMap.class));
+
+		// Default editors for primitive arrays.
+		factories.put(byte[].class, ByteArrayPropertyEditor::new);
+		factories.put(char[].class, CharArrayPropertyEditor::new);
+
+		// The JDK does not contain a default editor for char!
+		factories.put(char.class, () -> new CharacterEditor(false));
+		factories.put(Character.class, () -> new CharacterEditor(true));
+
+		// Spring's CustomBooleanEditor accepts more flag values than the JDK's default editor.
+		factories.put(boolean.class, () -> new CustomBooleanEditor(false));
+		factories.put(Boolean.class, () -> new CustomBooleanEditor(true));
+
+		// The JDK does not contain default editors for number wrapper types!
+		// Override JDK primitive number editors with our own CustomNumberEditor.
+		factories.put(byte.class, () -> new CustomNumberEditor(Byte.class, false));
+		factories.put(Byte.class, () -> new CustomNumberEditor(Byte.class, true));
+		factories.put(short.class, () -> new CustomNumberEditor(Short.class, false));
+		factories.put(Short.class, () -> new CustomNumberEditor(Short.class, true));
+		factories.put(int.class, () -> new CustomNumberEditor(Integer.class, false));
+		factories.put(Integer.class, () -> new CustomNumberEditor(Integer.class, true));
+		factories.put(long.class, () -> new CustomNumberEditor(Long.class, false));
+		factories.put(Long.class, () -> new CustomNumberEditor(Long.class, true));
+		factories.put(float.class, () -> new CustomNumberEditor(Float.class, false));
+		factories.put(Float.class, () -> new CustomNumberEditor(Float.class, true));
+		factories.put(double.class, () -> new CustomNumberEditor(Double.class, false));
+		factories.put(Double.class, () -> new CustomNumberEditor(Double.class, true));
+		factories.put(BigDecimal.class, () -> new CustomNumberEditor(BigDecimal.class, true));
+		factories.put(BigInteger.class, () -> new CustomNumberEditor(BigInteger.class, true));
+
+		defaultEditorFactories = Collections.unmodifiableMap(factories);
+		configValueEditorTypes = Collections.unmodifiableSet(new HashSet<>(
+				Arrays.asList(String[].class, short[].class, int[].class, long[].class)));
+	}
+
+
 	@Nullable
 	private ConversionService conversionService;
 
@@ -188,84 +271,35 @@ public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 				return editor;
 			}
 		}
-		if (this.defaultEditors == null) {
-			createDefaultEditors();
-		}
-		return this.defaultEditors.get(requiredType);
+		return getOrCreateDefaultEditor(requiredType);
 	}
 
 	/**
-	 * Actually register the default editors for this registry instance.
+	 * Return the default editor for the given type from the editors created so far,
+	 * creating it first if necessary.
+	 * <p>Only the requested editor is created, rather than all default editors at once.
 	 */
-	private void createDefaultEditors() {
-		this.defaultEditors = new HashMap<>(64);
-
-		// Simple editors, without parameterization capabilities.
-		// The JDK does not contain a default editor for any of these target types.
-		this.defaultEditors.put(Charset.class, new CharsetEditor());
-		this.defaultEditors.put(Class.class, new ClassEditor());
-		this.defaultEditors.put(Class[].class, new ClassArrayEditor());
-		this.defaultEditors.put(Currency.class, new CurrencyEditor());
-		this.defaultEditors.put(File.class, new FileEditor());
-		this.defaultEditors.put(InputStream.class, new InputStreamEditor());
-		this.defaultEditors.put(InputSource.class, new InputSourceEditor());
-		this.defaultEditors.put(Locale.class, new LocaleEditor());
-		this.defaultEditors.put(Path.class, new PathEditor());
-		this.defaultEditors.put(Pattern.class, new PatternEditor());
-		this.defaultEditors.put(Properties.class, new PropertiesEditor());
-		this.defaultEditors.put(Reader.class, new ReaderEditor());
-		this.defaultEditors.put(Resource[].class, new ResourceArrayPropertyEditor());
-		this.defaultEditors.put(TimeZone.class, new TimeZoneEditor());
-		this.defaultEditors.put(URI.class, new URIEditor());
-		this.defaultEditors.put(URL.class, new URLEditor());
-		this.defaultEditors.put(UUID.class, new UUIDEditor());
-		this.defaultEditors.put(ZoneId.class, new ZoneIdEditor());
-
-		// Default instances of collection editors.
-		// Can be overridden by registering custom instances of those as custom editors.
-		this.defaultEditors.put(Collection.class, new CustomCollectionEditor(Collection.class));
-		this.defaultEditors.put(Set.class, new CustomCollectionEditor(Set.class));
-		this.defaultEditors.put(SortedSet.class, new CustomCollectionEditor(SortedSet.class));
-		this.defaultEditors.put(List.class, new CustomCollectionEditor(List.class));
-		this.defaultEditors.put(SortedMap.class, new CustomMapEditor(SortedMap.class));
-
-		// Default editors for primitive arrays.
-		this.defaultEditors.put(byte[].class, new ByteArrayPropertyEditor());
-		this.defaultEditors.put(char[].class, new CharArrayPropertyEditor());
-
-		// The JDK does not contain a default editor for char!
-		this.defaultEditors.put(char.class, new CharacterEditor(false));
-		this.defaultEditors.put(Character.class, new CharacterEditor(true));
-
-		// Spring's CustomBooleanEditor accepts more flag values than the JDK's default editor.
-		this.defaultEditors.put(boolean.class, new CustomBooleanEditor(false));
-		this.defaultEditors.put(Boolean.class, new CustomBooleanEditor(true));
-
-		// The JDK does not contain default editors for number wrapper types!
-		// Override JDK primitive number editors with our own CustomNumberEditor.
-		this.defaultEditors.put(byte.class, new CustomNumberEditor(Byte.class, false));
-		this.defaultEditors.put(Byte.class, new CustomNumberEditor(Byte.class, true));
-		this.defaultEditors.put(short.class, new CustomNumberEditor(Short.class, false));
-		this.defaultEditors.put(Short.class, new CustomNumberEditor(Short.class, true));
-		this.defaultEditors.put(int.class, new CustomNumberEditor(Integer.class, false));
-		this.defaultEditors.put(Integer.class, new CustomNumberEditor(Integer.class, true));
-		this.defaultEditors.put(long.class, new CustomNumberEditor(Long.class, false));
-		this.defaultEditors.put(Long.class, new CustomNumberEditor(Long.class, true));
-		this.defaultEditors.put(float.class, new CustomNumberEditor(Float.class, false));
-		this.defaultEditors.put(Float.class, new CustomNumberEditor(Float.class, true));
-		this.defaultEditors.put(double.class, new CustomNumberEditor(Double.class, false));
-		this.defaultEditors.put(Double.class, new CustomNumberEditor(Double.class, true));
-		this.defaultEditors.put(BigDecimal.class, new CustomNumberEditor(BigDecimal.class, true));
-		this.defaultEditors.put(BigInteger.class, new CustomNumberEditor(BigInteger.class, true));
-
-		// Only register config value editors if explicitly requested.
-		if (this.configValueEditorsActive) {
-			StringArrayPropertyEditor sae = new StringArrayPropertyEditor();
-			this.defaultEditors.put(String[].class, sae);
-			this.defaultEditors.put(short[].class, sae);
-			this.defaultEditors.put(int[].class, sae);
-			this.defaultEditors.put(long[].class, sae);
+	@Nullable
+	private PropertyEditor getOrCreateDefaultEditor(Class<?> requiredType) {
+		if (this.defaultEditors == null) {
+			this.defaultEditors = new HashMap<>(16);
+		}
+		PropertyEditor editor = this.defaultEditors.get(requiredType);
+		if (editor == null) {
+			Supplier<PropertyEditor> factory = defaultEditorFactories.get(requiredType);
+			if (factory != null) {
+				editor = factory.get();
+				this.defaultEditors.put(requiredType, editor);
+			}
+			// Only register config value editors if explicitly requested.
+			else if (this.configValueEditorsActive && configValueEditorTypes.contains(requiredType)) {
+				editor = new StringArrayPropertyEditor();
+				for (Class<?> configValueEditorType : configValueEditorTypes) {
+					this.defaultEditors.put(configValueEditorType, editor);
+				}
+			}
 		}
+		return editor;
 	}
 
 	/**
@@ -275,6 +309,10 @@ public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 	protected void copyDefaultEditorsTo(PropertyEditorRegistrySupport target) {
 		target.defaultEditorsActive = this.defaultEditorsActive;
 		target.configValueEditorsActive = this.configValueEditorsActive;
+		if (this.defaultEditorsActive && this.defaultEditors == null) {
+			// Share lazily created editors with the target from now on.
+			this.defaultEditors = new HashMap<>(16);
+		}
 		target.defaultEditors = this.defaultEditors;
 		target.overriddenDefaultEditors = this.overriddenDefaultEditors;
 	}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Index from types to the names of the bean definitions that may match them,
+ * used by {@link DefaultListableBeanFactory} to narrow down the bean definitions
+ * to check in a by-type lookup.
+ *
+ * <p>Each bean definition is indexed under every superclass and interface of
+ * the one type its instance is known to have, or is not indexed at all if
+ * that type is not known. The candidates for a type are the beans indexed
+ * under it plus all beans that are not indexed, in registration order; the
+ * index never decides a match itself, it only rules out beans that cannot
+ * match.
+ *
+ * <p>Entries are invalidated one bean at a time and re-determined through
+ * the factory on the next lookup. Updates are serialized, while lookups do not
+ * lock and see every bean either under its current type or as not indexed.
+ *
+ * @see DefaultListableBeanFactory#getBeanNamesForType(Class, boolean, boolean)
+ */
+final class BeanTypeIndex {
+
+	/** Indexed beans: bean name to registration order and type. */
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+	/** Bean names per type, for all superclasses and interfaces of their indexed type. */
+	private final Map<Class<?>, Set<String>> beanNamesByType = new ConcurrentHashMap<>(256);
+
+	/** Names of beans without known type, to be checked for any type. */
+	private final Set<String> unindexedBeanNames = ConcurrentHashMap.newKeySet(64);
+
+	/** Names of beans whose type needs to be determined again: bean name to invalidation stamp. */
+	private final Map<String, Long> staleBeanNames = new ConcurrentHashMap<>(64);
+
+	private long nextOrder;
+
+	private long nextStamp;
+
+	private volatile boolean populated;
+
+
+	/**
+	 * Return whether the index has been populated since it was created or last cleared.
+	 */
+	boolean isPopulated() {
+		return this.populated;
+	}
+
+	/**
+	 * Populate the index with the given bean definition names, in registration
+	 * order, leaving their types to be determined.
+	 */
+	synchronized void populate(List<String> beanNames) {
+		if (this.populated) {
+			return;
+		}
+		for (String beanName : beanNames) {
+			addEntry(beanName);
+		}
+		this.populated = true;
+	}
+
+	/**
+	 * Add a newly registered bean definition after all existing ones,
+	 * leaving its type to be determined.
+	 */
+	synchronized void add(String beanName) {
+		if (this.populated && !this.entries.containsKey(beanName)) {
+			addEntry(beanName);
+		}
+	}
+
+	/**
+	 * Mark the type of the given bean as to be determined again,
+	 * e.g. after its definition has been reset or its instance created.
+	 */
+	synchronized void invalidate(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			this.staleBeanNames.put(beanName, this.nextStamp++);
+			setType(beanName, entry, null);
+		}
+	}
+
+	/**
+	 * Remove the given bean from the index.
+	 */
+	synchronized void remove(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			setType(beanName, entry, null);
+			this.entries.remove(beanName);
+			this.staleBeanNames.remove(beanName);
+			this.unindexedBeanNames.remove(beanName);
+		}
+	}
+
+	/**
+	 * Return the beans whose type needs to be determined again,
+	 * along with the stamp of their invalidation.
+	 */
+	Map<String, Long> getStaleBeanNames() {
+		return (this.staleBeanNames.isEmpty() ? Collections.emptyMap() : new HashMap<>(this.staleBeanNames));
+	}
+
+	/**
+	 * Set the type determined for the given stale bean, unless the bean has
+	 * been invalidated again in the meantime.
+	 * @param beanName the name of the bean
+	 * @param stamp the invalidation stamp the type has been determined for
+	 * @param type the type of the bean, or {@code null} to check the bean for any type
+	 */
+	synchronized void resolve(String beanName, long stamp, @Nullable Class<?> type) {
+		Entry entry = this.entries.get(beanName);
+		Long currentStamp = this.staleBeanNames.get(beanName);
+		if (entry != null && currentStamp != null && currentStamp == stamp) {
+			setType(beanName, entry, type);
+			this.staleBeanNames.remove(beanName);
+		}
+	}
+
+	/**
+	 * Return the names of all beans that may match the given type, in registration order.
+	 */
+	List<String> getCandidates(Class<?> type) {
+		Set<String> candidates = new LinkedHashSet<>(this.unindexedBeanNames);
+		Set<String> indexed = this.beanNamesByType.get(type);
+		if (indexed != null) {
+			candidates.addAll(indexed);
+		}
+		List<Entry> candidateEntries = new ArrayList<>(candidates.size());
+		for (String beanName : candidates) {
+			Entry entry = this.entries.get(beanName);
+			if (entry != null) {
+				candidateEntries.add(entry);
+			}
+		}
+		candidateEntries.sort(Comparator.comparingLong(entry -> entry.order));
+		List<String> result = new ArrayList<>(candidateEntries.size());
+		for (Entry entry : candidateEntries) {
+			result.add(entry.beanName);
+		}
+		return result;
+	}
+
+	/**
+	 * Remove all entries, to be populated again on the next lookup.
+	 */
+	synchronized void clear() {
+		this.populated = false;
+		this.entries.clear();
+		this.beanNamesByType.clear();
+		this.unindexedBeanNames.clear();
+		this.staleBeanNames.clear();
+	}
+
+	private void addEntry(String beanName) {
+		this.entries.put(beanName, new Entry(beanName, this.nextOrder++));
+		this.staleBeanNames.put(beanName, this.nextStamp++);
+		this.unindexedBeanNames.add(beanName);
+	}
+
+	/**
+	 * Move the given bean to its new type, making sure that concurrent lookups
+	 * find it either under its old type, under its new type or as not indexed.
+	 */
+	private void setType(String beanName, Entry entry, @Nullable Class<?> type) {
+		Set<Class<?>> oldTypes = (entry.type != null ? getTypeClosure(entry.type) : Collections.emptySet());
+		Set<Class<?>> newTypes = (type != null ? getTypeClosure(type) : Collections.emptySet());
+		if (type != null) {
+			for (Class<?> newType : newTypes) {
+				this.beanNamesByType.computeIfAbsent(newType, key -> ConcurrentHashMap.newKeySet()).add(beanName);
+			}
+			this.unindexedBeanNames.remove(beanName);
+		}
+		else {
+			this.unindexedBeanNames.add(beanName);
+		}
+		for (Class<?> oldType : oldTypes) {
+			if (!newTypes.contains(oldType)) {
+				Set<String> beanNames = this.beanNamesByType.get(oldType);
+				if (beanNames != null) {
+					beanNames.remove(beanName);
+				}
+			}
+		}
+		entry.type = type;
+	}
+
+	/**
+	 * Return the given type along with all of its superclasses and interfaces.
+	 */
+	private static Set<Class<?>> getTypeClosure(Class<?> type) {
+		Set<Class<?>> closure = new LinkedHashSet<>();
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		queue.add(type);
+		while (!queue.isEmpty()) {
+			Class<?> current = queue.poll();
+			if (closure.add(current)) {
+				Class<?> superclass = current.getSuperclass();
+				if (superclass != null) {
+					queue.add(superclass);
+				}
+				Collections.addAll(queue, current.getInterfaces());
+			}
+		}
+		// Interfaces do not report Object as their superclass
+		closure.add(Object.class);
+		return closure;
+	}
+
+
+	/**
+	 * An indexed bean, with its position in registration order.
+	 */
+	private static final class Entry {
+
+		final String beanName;
+
+		final long order;
+
+		@Nullable
+		Class<?> type;
+
+		Entry(String beanName, long order) {
+			this.beanName = beanName;
+			this.order = order;
+		}
+	}
+
+}
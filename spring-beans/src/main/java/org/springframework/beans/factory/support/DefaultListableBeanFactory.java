@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,6 +41,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -48,6 +54,7 @@ import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -69,8 +76,10 @@ import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
@@ -83,6 +92,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CompositeIterator;
+import org.springframework.util.CustomizableThreadCreator;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
@@ -171,6 +181,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names, keyed by dependency type. */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Index of bean definition names by type, in case of frozen configuration. */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
@@ -184,6 +197,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans. */
 	private volatile boolean configurationFrozen = false;
 
+	/** Maximum number of threads to pre-instantiate singletons on. */
+	private int preInstantiationConcurrency = 1;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -315,6 +331,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Set the maximum number of threads that {@link #preInstantiateSingletons()}
+	 * creates non-lazy singletons on.
+	 * <p>Default is 1: all singletons are created one after another on the calling
+	 * thread. With a higher value, the singletons are grouped into independent
+	 * subgraphs, connected through their dependencies as known before creation:
+	 * "depends-on" declarations, bean references in constructor arguments and
+	 * property values, factory beans, and dependencies registered so far.
+	 * Subgraphs are created concurrently on at most this many threads, each of
+	 * them in registration order, so circular references within a subgraph are
+	 * resolved as usual.
+	 * <p>Beans whose dependencies are only determined during creation, i.e.
+	 * autowired beans and all beans processed by an
+	 * {@link org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor}
+	 * such as the one for {@code @Autowired} and {@code @Resource}, share a single
+	 * subgraph that is created on the calling thread. Any circular reference
+	 * therefore stays within one subgraph. {@link SmartInitializingSingleton}
+	 * callbacks run on the calling thread, in registration order, once all
+	 * singletons exist.
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationConcurrency(int preInstantiationConcurrency) {
+		Assert.isTrue(preInstantiationConcurrency > 0, "Pre-instantiation concurrency must be positive");
+		this.preInstantiationConcurrency = preInstantiationConcurrency;
+	}
+
+	/**
+	 * Return the maximum number of threads to pre-instantiate singletons on.
+	 */
+	public int getPreInstantiationConcurrency() {
+		return this.preInstantiationConcurrency;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -324,6 +373,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.preInstantiationConcurrency = otherListableFactory.preInstantiationConcurrency;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
 					BeanUtils.instantiateClass(otherListableFactory.getAutowireCandidateResolver().getClass()));
@@ -506,8 +556,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions that may match.
+		for (String beanName : getCandidateBeanDefinitionNames(type, allowEagerInit)) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
@@ -585,6 +635,62 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Determine the bean definitions to check for a match with the given type:
+	 * the candidates from the type index in case of frozen configuration,
+	 * or all bean definitions otherwise.
+	 * @param type the type to match
+	 * @param allowEagerInit whether type matching may initialize beans
+	 * @return the names of the bean definitions to check, in registration order
+	 * @see #freezeConfiguration()
+	 */
+	private Collection<String> getCandidateBeanDefinitionNames(ResolvableType type, boolean allowEagerInit) {
+		Class<?> resolved = type.resolve();
+		if (!isConfigurationFrozen() || !allowEagerInit || resolved == null ||
+				resolved.isPrimitive() || resolved.isArray() || getTempClassLoader() != null) {
+			// Primitive and array types may also match by wrapper or component type...
+			return this.beanDefinitionNames;
+		}
+		if (!this.beanTypeIndex.isPopulated()) {
+			this.beanTypeIndex.populate(this.beanDefinitionNames);
+		}
+		this.beanTypeIndex.getStaleBeanNames().forEach((beanName, stamp) -> {
+			if (containsBeanDefinition(beanName)) {
+				this.beanTypeIndex.resolve(beanName, stamp, determineIndexedType(beanName));
+			}
+			else {
+				this.beanTypeIndex.remove(beanName);
+			}
+		});
+		return this.beanTypeIndex.getCandidates(resolved);
+	}
+
+	/**
+	 * Determine the type to index the given bean definition under: the class of
+	 * its singleton instance if already created, or its predicted type otherwise.
+	 * @param beanName the name of the bean
+	 * @return the type, or {@code null} if the bean needs to be checked for any
+	 * type (e.g. a FactoryBean, whose object type is only known when checked)
+	 */
+	@Nullable
+	private Class<?> determineIndexedType(String beanName) {
+		try {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract() || mbd.getDecoratedDefinition() != null ||
+					isSingletonCurrentlyInCreation(beanName) || isFactoryBean(beanName, mbd)) {
+				return null;
+			}
+			Object beanInstance = getSingleton(beanName, false);
+			Class<?> beanType = (beanInstance != null && beanInstance.getClass() != NullBean.class ?
+					beanInstance.getClass() : predictBeanType(beanName, mbd));
+			return (beanType != null && !FactoryBean.class.isAssignableFrom(beanType) ? beanType : null);
+		}
+		catch (BeansException ex) {
+			// Leave it to the regular check, e.g. for a bean class that cannot be loaded
+			return null;
+		}
+	}
+
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
 		return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
 	}
@@ -819,12 +925,14 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
 		clearByTypeCache();
+		this.beanTypeIndex.clear();
 	}
 
 	@Override
 	public void freezeConfiguration() {
 		this.configurationFrozen = true;
 		this.frozenBeanDefinitionNames = StringUtils.toStringArray(this.beanDefinitionNames);
+		this.beanTypeIndex.clear();
 	}
 
 	@Override
@@ -853,30 +961,14 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
+		if (this.preInstantiationConcurrency > 1) {
+			preInstantiateSingletonsConcurrently(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
@@ -899,6 +991,251 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Instantiate the given non-lazy singleton, or just its factory in case of
+	 * a non-eager {@link FactoryBean}.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				final FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+									((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Instantiate the given non-lazy singletons in independent subgraphs,
+	 * concurrently on a bounded pool of threads.
+	 * @param beanNames the names of all beans, in registration order
+	 * @see #setPreInstantiationConcurrency
+	 */
+	private void preInstantiateSingletonsConcurrently(List<String> beanNames) {
+		List<String> candidateNames = new ArrayList<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				candidateNames.add(beanName);
+			}
+		}
+		List<List<String>> subgraphs = groupByKnownDependencies(candidateNames);
+		if (subgraphs.size() < 2) {
+			for (String beanName : candidateNames) {
+				preInstantiateSingleton(beanName);
+			}
+			return;
+		}
+
+		// The subgraph of beans with dependencies unknown before creation, if any,
+		// is created on the calling thread, the others on a pool of threads.
+		List<String> callerSubgraph = null;
+		List<List<String>> pooledSubgraphs = new ArrayList<>(subgraphs.size());
+		for (List<String> subgraph : subgraphs) {
+			if (callerSubgraph == null && subgraph.stream().anyMatch(
+					beanName -> hasUnknownDependencies(getMergedLocalBeanDefinition(beanName)))) {
+				callerSubgraph = subgraph;
+			}
+			else {
+				pooledSubgraphs.add(subgraph);
+			}
+		}
+		int poolSize = Math.min(this.preInstantiationConcurrency - (callerSubgraph != null ? 1 : 0),
+				pooledSubgraphs.size());
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + candidateNames.size() + " singletons in " + subgraphs.size() +
+					" independent groups on up to " + this.preInstantiationConcurrency + " threads");
+		}
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("spring-preinstantiation-");
+		threadCreator.setDaemon(true);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(poolSize, 1), runnable -> {
+			Thread thread = threadCreator.createThread(runnable);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		});
+		AtomicBoolean failed = new AtomicBoolean();
+		try {
+			List<Future<?>> futures = new ArrayList<>(pooledSubgraphs.size());
+			for (List<String> subgraph : pooledSubgraphs) {
+				futures.add(executor.submit(() -> preInstantiateSubgraph(subgraph, failed)));
+			}
+			Throwable failure = null;
+			if (callerSubgraph != null) {
+				try {
+					preInstantiateSubgraph(callerSubgraph, failed);
+				}
+				catch (RuntimeException | Error ex) {
+					failure = ex;
+				}
+			}
+			// Wait for all groups, reporting the failure of the first failed group.
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException ex) {
+					if (failure == null) {
+						failure = ex.getCause();
+					}
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					failed.set(true);
+					throw new BeanCreationException(
+							"Interrupted while waiting for singletons to be pre-instantiated", ex);
+				}
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Instantiate the given subgraph of non-lazy singletons in order, unless
+	 * another subgraph has failed.
+	 */
+	private void preInstantiateSubgraph(List<String> subgraph, AtomicBoolean failed) {
+		for (String beanName : subgraph) {
+			if (failed.get()) {
+				return;
+			}
+			try {
+				preInstantiateSingleton(beanName);
+			}
+			catch (RuntimeException | Error ex) {
+				failed.set(true);
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given bean may get dependencies injected that are
+	 * not known before its creation: through autowiring, or through
+	 * instantiation-aware post-processors, e.g. for annotated injection points.
+	 */
+	private boolean hasUnknownDependencies(RootBeanDefinition bd) {
+		return (bd.getAutowireMode() != AUTOWIRE_NO ||
+				(!bd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()));
+	}
+
+	/**
+	 * Group the given beans into subgraphs that are connected through their
+	 * dependencies as known before creation. All beans with dependencies that
+	 * are unknown before creation are put into one subgraph, so that a circular
+	 * reference never spans several subgraphs.
+	 * @param beanNames the names of the beans, in registration order
+	 * @return the subgraphs in order of their first bean, each of them listing
+	 * its beans in registration order
+	 * @see #hasUnknownDependencies
+	 */
+	private List<List<String>> groupByKnownDependencies(List<String> beanNames) {
+		Map<String, String> parents = new HashMap<>(beanNames.size() * 2);
+		String firstUnknown = null;
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (hasUnknownDependencies(bd)) {
+				if (firstUnknown == null) {
+					firstUnknown = beanName;
+				}
+				else {
+					union(parents, firstUnknown, beanName);
+				}
+			}
+			String[] dependsOn = bd.getDependsOn();
+			if (dependsOn != null) {
+				for (String dependency : dependsOn) {
+					union(parents, beanName, canonicalName(dependency));
+				}
+			}
+			if (bd.getFactoryBeanName() != null) {
+				union(parents, beanName, transformedBeanName(bd.getFactoryBeanName()));
+			}
+			if (bd.hasConstructorArgumentValues()) {
+				ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+				for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+					unionReference(parents, beanName, valueHolder.getValue());
+				}
+				for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+					unionReference(parents, beanName, valueHolder.getValue());
+				}
+			}
+			if (bd.hasPropertyValues()) {
+				for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+					unionReference(parents, beanName, pv.getValue());
+				}
+			}
+			for (String dependency : getDependenciesForBean(beanName)) {
+				union(parents, beanName, dependency);
+			}
+			for (String dependent : getDependentBeans(beanName)) {
+				union(parents, beanName, dependent);
+			}
+		}
+
+		Map<String, List<String>> subgraphs = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			subgraphs.computeIfAbsent(find(parents, beanName), root -> new ArrayList<>()).add(beanName);
+		}
+		return new ArrayList<>(subgraphs.values());
+	}
+
+	private void unionReference(Map<String, String> parents, String beanName, @Nullable Object value) {
+		if (value instanceof BeanReference) {
+			union(parents, beanName, transformedBeanName(((BeanReference) value).getBeanName()));
+		}
+	}
+
+	private static void union(Map<String, String> parents, String name1, String name2) {
+		String root1 = find(parents, name1);
+		String root2 = find(parents, name2);
+		if (!root1.equals(root2)) {
+			parents.put(root2, root1);
+		}
+	}
+
+	private static String find(Map<String, String> parents, String name) {
+		String root = name;
+		String parent = parents.get(root);
+		while (parent != null) {
+			root = parent;
+			parent = parents.get(root);
+		}
+		// Compress the path for subsequent lookups.
+		String current = name;
+		while (!current.equals(root)) {
+			String next = parents.get(current);
+			parents.put(current, root);
+			current = next;
+		}
+		return root;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -969,6 +1306,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				removeManualSingletonName(beanName);
 			}
 			this.frozenBeanDefinitionNames = null;
+			this.beanTypeIndex.add(beanName);
 		}
 
 		if (existingDefinition != null || containsSingleton(beanName)) {
@@ -1001,6 +1339,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex.remove(beanName);
 
 		resetBeanDefinition(beanName);
 	}
@@ -1065,6 +1404,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		super.destroySingletons();
 		updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
 		clearByTypeCache();
+		this.beanTypeIndex.clear();
 	}
 
 	@Override
@@ -1072,6 +1412,26 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		super.destroySingleton(beanName);
 		removeManualSingletonName(beanName);
 		clearByTypeCache();
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
+	/**
+	 * Overridden to check a bean for any type while in creation,
+	 * since an early reference to it may differ from its predicted type.
+	 */
+	@Override
+	protected void beforeSingletonCreation(String beanName) {
+		super.beforeSingletonCreation(beanName);
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
+	/**
+	 * Overridden to index a bean by its created instance.
+	 */
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.invalidate(beanName);
 	}
 
 	private void removeManualSingletonName(String beanName) {
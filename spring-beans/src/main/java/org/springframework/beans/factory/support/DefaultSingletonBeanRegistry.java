@@ -17,7 +17,6 @@
 package org.springframework.beans.factory.support;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -25,6 +24,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -32,6 +33,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -61,6 +63,14 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>Fully initialized singletons are served without any locking. Each singleton
+ * is created under a lock of its own, so that independent singletons can be
+ * created by several threads at the same time, while a thread asking for a
+ * singleton that another thread currently creates waits for the fully
+ * initialized instance. Early references for resolving circular references
+ * are only handed out within the creating thread, except where two threads
+ * would otherwise wait for each other's singletons.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #registerSingleton
@@ -70,18 +80,28 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
 
+	/** Interval in milliseconds in which a thread waiting for a singleton checks for a deadlock. */
+	private static final long SINGLETON_LOCK_CHECK_INTERVAL = 50;
+
+
 	/** Cache of singleton objects: bean name to bean instance. */
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
 
 	/** Cache of singleton factories: bean name to ObjectFactory. */
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
 
 	/** Cache of early singleton objects: bean name to bean instance. */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
 
 	/** Set of registered singletons, containing the bean names in registration order. */
 	private final Set<String> registeredSingletons = new LinkedHashSet<>(256);
 
+	/** Creation locks of singletons: bean name to lock. */
+	private final Map<String, SingletonLock> singletonLocks = new ConcurrentHashMap<>(256);
+
+	/** Threads waiting for a singleton creation lock: thread to bean name. */
+	private final Map<Thread, String> singletonLockWaiters = new ConcurrentHashMap<>(16);
+
 	/** Names of beans that are currently in creation. */
 	private final Set<String> singletonsCurrentlyInCreation =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
@@ -90,12 +110,12 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> inCreationCheckExclusions =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** List of suppressed Exceptions, available for associating related causes. */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	/** List of suppressed Exceptions per creating thread, available for associating related causes. */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed singleton creation exceptions");
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
@@ -114,7 +134,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "Bean name must not be null");
 		Assert.notNull(singletonObject, "Singleton object must not be null");
-		synchronized (this.singletonObjects) {
+		if (!acquireSingletonLock(beanName)) {
+			throw new IllegalStateException("Could not register object [" + singletonObject +
+					"] under bean name '" + beanName + "': singleton is currently in creation in another thread");
+		}
+		try {
 			Object oldObject = this.singletonObjects.get(beanName);
 			if (oldObject != null) {
 				throw new IllegalStateException("Could not register object [" + singletonObject +
@@ -122,6 +146,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			}
 			addSingleton(beanName, singletonObject);
 		}
+		finally {
+			releaseSingletonLock(beanName);
+		}
 	}
 
 	/**
@@ -168,22 +195,50 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Return the (raw) singleton object registered under the given name.
 	 * <p>Checks already instantiated singletons and also allows for an early
 	 * reference to a currently created singleton (resolving a circular reference).
+	 * <p>A singleton currently created by another thread is not exposed before
+	 * it has been fully initialized; {@code null} is returned for it instead.
 	 * @param beanName the name of the bean to look for
 	 * @param allowEarlyReference whether early references should be created or not
 	 * @return the registered singleton object, or {@code null} if none found
 	 */
 	@Nullable
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
+		// Quick check for existing instance without any locking
 		Object singletonObject = this.singletonObjects.get(beanName);
-		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
+		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName) &&
+				!isSingletonLockedByOtherThread(beanName)) {
+			singletonObject = getEarlySingleton(beanName, allowEarlyReference);
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Return the early reference to the given singleton, creating it from the
+	 * registered singleton factory if allowed and necessary.
+	 * <p>Only to be called by the thread creating the singleton, or while that
+	 * thread waits for the current one. The early reference is created outside
+	 * of the singleton mutex, since creating it may in turn request other beans.
+	 */
+	@Nullable
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			singletonObject = this.earlySingletonObjects.get(beanName);
+			if (singletonObject == null && allowEarlyReference) {
+				ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+				if (singletonFactory != null) {
+					Object earlySingletonObject = singletonFactory.getObject();
+					synchronized (this.singletonObjects) {
+						// Consistent publication of early reference within full singleton lock
+						singletonObject = this.singletonObjects.get(beanName);
+						if (singletonObject == null) {
+							singletonObject = this.earlySingletonObjects.get(beanName);
+							if (singletonObject == null) {
+								singletonObject = earlySingletonObject;
+								this.earlySingletonObjects.put(beanName, singletonObject);
+								this.singletonFactories.remove(beanName);
+							}
+						}
 					}
 				}
 			}
@@ -201,8 +256,24 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		synchronized (this.singletonObjects) {
-			Object singletonObject = this.singletonObjects.get(beanName);
+		// Quick check for existing instance without any locking
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		if (!acquireSingletonLock(beanName)) {
+			// The thread creating this singleton waits for a singleton that the current thread
+			// creates: resolve like a circular reference within a single thread would be.
+			singletonObject = getEarlySingleton(beanName, true);
+			if (singletonObject == null) {
+				throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in creation " +
+						"in another thread that waits for a bean created by this thread: " +
+						"Is there an unresolvable circular reference?");
+			}
+			return singletonObject;
+		}
+		try {
+			singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
 				if (this.singletonsCurrentlyInDestruction) {
 					throw new BeanCreationNotAllowedException(beanName,
@@ -214,9 +285,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				beforeSingletonCreation(beanName);
 				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+				boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
 				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+					this.suppressedExceptions.set(new LinkedHashSet<>());
 				}
 				try {
 					singletonObject = singletonFactory.getObject();
@@ -232,7 +303,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				catch (BeanCreationException ex) {
 					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
+						for (Exception suppressedException : this.suppressedExceptions.get()) {
 							ex.addRelatedCause(suppressedException);
 						}
 					}
@@ -240,7 +311,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 				}
 				finally {
 					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+						this.suppressedExceptions.remove();
 					}
 					afterSingletonCreation(beanName);
 				}
@@ -250,6 +321,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			}
 			return singletonObject;
 		}
+		finally {
+			releaseSingletonLock(beanName);
+		}
 	}
 
 	/**
@@ -258,13 +332,126 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
+		}
+	}
+
+	/**
+	 * Acquire the creation lock for the given singleton, waiting for another
+	 * thread that currently holds it unless that thread in turn waits,
+	 * directly or indirectly, for a singleton locked by the current thread.
+	 * Of the threads in such a cycle, only one gives up waiting: preferably
+	 * the one with the lowest id among those whose awaited singleton already
+	 * has an early reference, otherwise the one with the lowest id overall.
+	 * The others keep waiting until it has released its locks.
+	 * <p>The lock is reentrant; every successful call needs to be paired
+	 * with a call to {@link #releaseSingletonLock}.
+	 * @param beanName the name of the bean
+	 * @return {@code true} if the lock has been acquired, or {@code false}
+	 * if waiting for it would deadlock and the current thread is to break the cycle
+	 * @throws BeanCreationException if interrupted while waiting
+	 */
+	protected boolean acquireSingletonLock(String beanName) {
+		SingletonLock lock = this.singletonLocks.computeIfAbsent(beanName, name -> new SingletonLock());
+		if (lock.tryLock()) {
+			return true;
+		}
+		Thread currentThread = Thread.currentThread();
+		this.singletonLockWaiters.put(currentThread, beanName);
+		try {
+			while (!isWaitCycleToBreak(lock)) {
+				if (lock.tryLock(SINGLETON_LOCK_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
 			}
+			return false;
+		}
+		catch (InterruptedException ex) {
+			currentThread.interrupt();
+			throw new BeanCreationException(beanName, "Interrupted while waiting for singleton creation in another thread");
+		}
+		finally {
+			this.singletonLockWaiters.remove(currentThread);
+		}
+	}
+
+	/**
+	 * Release the creation lock for the given singleton, if held by the current thread.
+	 * @param beanName the name of the bean
+	 * @see #acquireSingletonLock
+	 */
+	protected void releaseSingletonLock(String beanName) {
+		SingletonLock lock = this.singletonLocks.get(beanName);
+		if (lock != null && lock.isHeldByCurrentThread()) {
+			lock.unlock();
 		}
 	}
 
+	/**
+	 * Determine whether the creation lock for the given singleton is currently
+	 * held by a thread other than the current one.
+	 */
+	private boolean isSingletonLockedByOtherThread(String beanName) {
+		SingletonLock lock = this.singletonLocks.get(beanName);
+		return (lock != null && lock.isLocked() && !lock.isHeldByCurrentThread());
+	}
+
+	/**
+	 * Follow the chain of threads holding the given lock and waiting for
+	 * further locks, checking whether it leads back to the current thread
+	 * and whether the current thread is the one to break that cycle, so that
+	 * exactly one of the threads in the cycle gives up waiting.
+	 * <p>A thread whose awaited singleton already has an early reference can
+	 * resolve the cycle like a circular reference within a single thread, so
+	 * such a thread is preferred; only if there is none, the cycle cannot be
+	 * resolved and the thread with the lowest id breaks it by failing.
+	 */
+	private boolean isWaitCycleToBreak(SingletonLock lock) {
+		Thread currentThread = Thread.currentThread();
+		String currentBeanName = this.singletonLockWaiters.get(currentThread);
+		if (currentBeanName == null) {
+			return false;
+		}
+		long lowestThreadId = currentThread.getId();
+		long lowestResolvableThreadId = (hasEarlySingleton(currentBeanName) ? lowestThreadId : Long.MAX_VALUE);
+		SingletonLock lockToCheck = lock;
+		// Bounded in case of a cycle between other threads
+		for (int i = 0; i <= this.singletonLockWaiters.size(); i++) {
+			Thread owner = lockToCheck.getOwnerThread();
+			if (owner == null) {
+				return false;
+			}
+			if (owner == currentThread) {
+				long breakingThreadId = (lowestResolvableThreadId != Long.MAX_VALUE ?
+						lowestResolvableThreadId : lowestThreadId);
+				return (breakingThreadId == currentThread.getId());
+			}
+			String awaitedBeanName = this.singletonLockWaiters.get(owner);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			lowestThreadId = Math.min(lowestThreadId, owner.getId());
+			if (hasEarlySingleton(awaitedBeanName)) {
+				lowestResolvableThreadId = Math.min(lowestResolvableThreadId, owner.getId());
+			}
+			lockToCheck = this.singletonLocks.get(awaitedBeanName);
+			if (lockToCheck == null) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether an early reference to the given singleton is
+	 * available or can be created from its registered singleton factory.
+	 */
+	private boolean hasEarlySingleton(String beanName) {
+		return (this.earlySingletonObjects.containsKey(beanName) || this.singletonFactories.containsKey(beanName));
+	}
+
 	/**
 	 * Remove the bean with the given name from the singleton cache of this factory,
 	 * to be able to clean up eager registration of a singleton if creation failed.
@@ -521,6 +708,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
+			this.singletonLocks.clear();
 			this.singletonsCurrentlyInDestruction = false;
 		}
 	}
@@ -607,9 +795,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	/**
 	 * Exposes the singleton mutex to subclasses and external collaborators.
-	 * <p>Subclasses should synchronize on the given Object if they perform
-	 * any sort of extended singleton creation phase. In particular, subclasses
-	 * should <i>not</i> have their own mutexes involved in singleton creation,
+	 * <p>The mutex guards the registration state of singletons only; it is not
+	 * held while a singleton is being created, which happens under a lock per
+	 * singleton instead (see {@link #acquireSingletonLock}). Subclasses and
+	 * collaborators should therefore only hold it for short bookkeeping
+	 * operations and must <i>not</i> call into bean creation while holding it,
 	 * to avoid the potential for deadlocks in lazy-init situations.
 	 */
 	@Override
@@ -617,4 +807,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+
+	/**
+	 * Creation lock of a singleton, exposing its owner for deadlock detection.
+	 */
+	@SuppressWarnings("serial")
+	private static final class SingletonLock extends ReentrantLock {
+
+		@Nullable
+		Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
 }
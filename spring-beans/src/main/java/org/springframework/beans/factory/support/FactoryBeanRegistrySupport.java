@@ -95,8 +95,18 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
-				Object object = this.factoryBeanObjectCache.get(beanName);
+			// Quick check for existing object without any locking
+			Object object = this.factoryBeanObjectCache.get(beanName);
+			if (object != null) {
+				return object;
+			}
+			if (!acquireSingletonLock(beanName)) {
+				throw new BeanCurrentlyInCreationException(beanName, "FactoryBean object is currently in creation " +
+						"in another thread that waits for a bean created by this thread: " +
+						"Is there an unresolvable circular reference?");
+			}
+			try {
+				object = this.factoryBeanObjectCache.get(beanName);
 				if (object == null) {
 					object = doGetObjectFromFactoryBean(factory, beanName);
 					// Only post-process and store if not put there already during getObject() call above
@@ -130,6 +140,9 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 				}
 				return object;
 			}
+			finally {
+				releaseSingletonLock(beanName);
+			}
 		}
 		else {
 			Object object = doGetObjectFromFactoryBean(factory, beanName);
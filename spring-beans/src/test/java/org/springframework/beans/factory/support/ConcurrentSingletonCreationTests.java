@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for singletons created concurrently by threads that wait for each other.
+ */
+public class ConcurrentSingletonCreationTests {
+
+	@Test
+	public void circularReferenceAcrossThreadsIsResolvedThroughEarlyReference() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor processor = new AutowiredAnnotationBeanPostProcessor();
+		processor.setBeanFactory(beanFactory);
+		beanFactory.addBeanPostProcessor(processor);
+
+		beanFactory.registerSingleton("latches", new Latches());
+		RootBeanDefinition x = new RootBeanDefinition(X.class);
+		x.getConstructorArgumentValues().addIndexedArgumentValue(0, new RuntimeBeanReference("latches"));
+		beanFactory.registerBeanDefinition("x", x);
+		RootBeanDefinition gate = new RootBeanDefinition(Gate.class);
+		gate.getConstructorArgumentValues().addIndexedArgumentValue(0, new RuntimeBeanReference("latches"));
+		beanFactory.registerBeanDefinition("gate", gate);
+		RootBeanDefinition y = new RootBeanDefinition(Y.class);
+		y.getConstructorArgumentValues().addIndexedArgumentValue(0, new RuntimeBeanReference("gate"));
+		y.getConstructorArgumentValues().addIndexedArgumentValue(1, new RuntimeBeanReference("x"));
+		beanFactory.registerBeanDefinition("y", y);
+
+		// Thread A is created first and is therefore likely to have the lower id,
+		// yet only thread B waits for a bean that has an early reference already
+		ExecutorService threadA = Executors.newSingleThreadExecutor();
+		ExecutorService threadB = Executors.newSingleThreadExecutor();
+		try {
+			Future<X> futureX = threadA.submit(() -> beanFactory.getBean("x", X.class));
+			Future<Y> futureY = threadB.submit(() -> beanFactory.getBean("y", Y.class));
+			X resolvedX = futureX.get(10, TimeUnit.SECONDS);
+			Y resolvedY = futureY.get(10, TimeUnit.SECONDS);
+			assertNotNull(resolvedX.y);
+			assertSame(resolvedY, resolvedX.y);
+			assertSame(resolvedX, resolvedY.x);
+			assertSame(resolvedX, beanFactory.getBean("x"));
+			assertSame(resolvedY, beanFactory.getBean("y"));
+		}
+		finally {
+			threadA.shutdownNow();
+			threadB.shutdownNow();
+		}
+	}
+
+
+	static class Latches {
+
+		final CountDownLatch xInstantiated = new CountDownLatch(1);
+
+		final CountDownLatch yLocked = new CountDownLatch(1);
+	}
+
+
+	static class X {
+
+		@Autowired
+		Y y;
+
+		public X(Latches latches) throws InterruptedException {
+			latches.xInstantiated.countDown();
+			latches.yLocked.await(10, TimeUnit.SECONDS);
+		}
+	}
+
+
+	static class Gate {
+
+		public Gate(Latches latches) throws InterruptedException {
+			latches.yLocked.countDown();
+			latches.xInstantiated.await(10, TimeUnit.SECONDS);
+		}
+	}
+
+
+	static class Y {
+
+		final X x;
+
+		public Y(Gate gate, X x) {
+			this.x = x;
+		}
+	}
+
+}
@@ -47,6 +47,7 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.DexMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -287,6 +288,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * {@linkplain #setResourceLoader resource loader}.
 	 * <p>Call this setter method <i>after</i> {@link #setResourceLoader} in order
 	 * for the given MetadataReaderFactory to override the default factory.
+	 * <p>A {@link DexMetadataReaderFactory} also supplies the candidate classes,
+	 * from its DEX files instead of the class files of the resource loader.
 	 */
 	public void setMetadataReaderFactory(MetadataReaderFactory metadataReaderFactory) {
 		this.metadataReaderFactory = metadataReaderFactory;
@@ -418,7 +421,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
-			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
+			Resource[] resources = (getMetadataReaderFactory() instanceof DexMetadataReaderFactory ?
+					((DexMetadataReaderFactory) getMetadataReaderFactory()).getResources(packageSearchPath) :
+					getResourcePatternResolver().getResources(packageSearchPath));
 			boolean traceEnabled = logger.isTraceEnabled();
 			boolean debugEnabled = logger.isDebugEnabled();
 			for (Resource resource : resources) {
@@ -32,8 +32,11 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -142,6 +145,8 @@ class ConfigurationClassParser {
 
 	private final SourceClass objectSourceClass = new SourceClass(Object.class);
 
+	private boolean parallelMetadataReading = false;
+
 
 	/**
 	 * Create a new {@link ConfigurationClassParser} instance that will be used
@@ -162,7 +167,21 @@ class ConfigurationClassParser {
 	}
 
 
+	/**
+	 * Set whether to read the metadata of the configuration classes to parse,
+	 * and of the classes they import, nest or extend, on the common fork-join
+	 * pool before parsing them. Parsing itself remains sequential.
+	 * <p>Default is "false". Only worth it with a {@link MetadataReaderFactory}
+	 * that caches the metadata it reads, and that can be called concurrently.
+	 * @see #preloadMetadata
+	 */
+	public void setParallelMetadataReading(boolean parallelMetadataReading) {
+		this.parallelMetadataReading = parallelMetadataReading;
+	}
+
+
 	public void parse(Set<BeanDefinitionHolder> configCandidates) {
+		preloadMetadata(configCandidates);
 		for (BeanDefinitionHolder holder : configCandidates) {
 			BeanDefinition bd = holder.getBeanDefinition();
 			try {
@@ -289,15 +308,20 @@ class ConfigurationClassParser {
 				Set<BeanDefinitionHolder> scannedBeanDefinitions =
 						this.componentScanParser.parse(componentScan, sourceClass.getMetadata().getClassName());
 				// Check the set of scanned definitions for any further config classes and parse recursively if needed
+				Set<BeanDefinitionHolder> scannedConfigCandidates = new LinkedHashSet<>();
 				for (BeanDefinitionHolder holder : scannedBeanDefinitions) {
 					BeanDefinition bdCand = holder.getBeanDefinition().getOriginatingBeanDefinition();
 					if (bdCand == null) {
 						bdCand = holder.getBeanDefinition();
 					}
 					if (ConfigurationClassUtils.checkConfigurationClassCandidate(bdCand, this.metadataReaderFactory)) {
-						parse(bdCand.getBeanClassName(), holder.getBeanName());
+						scannedConfigCandidates.add(new BeanDefinitionHolder(bdCand, holder.getBeanName()));
 					}
 				}
+				preloadMetadata(scannedConfigCandidates);
+				for (BeanDefinitionHolder holder : scannedConfigCandidates) {
+					parse(holder.getBeanDefinition().getBeanClassName(), holder.getBeanName());
+				}
 			}
 		}
 
@@ -340,6 +364,76 @@ class ConfigurationClassParser {
 		return null;
 	}
 
+	/**
+	 * Read the metadata of the given configuration classes, and transitively of the
+	 * classes they import, declare as member classes, extend or implement, on the
+	 * common fork-join pool, if {@linkplain #setParallelMetadataReading enabled}.
+	 * <p>This only warms the cache of the {@link MetadataReaderFactory}: condition
+	 * evaluation and parsing happen afterwards, sequentially and in the order of the
+	 * given candidates, so that bean definitions get registered in the same order.
+	 * Classes that cannot be read are skipped here and reported while parsing.
+	 */
+	private void preloadMetadata(Set<BeanDefinitionHolder> configCandidates) {
+		if (!this.parallelMetadataReading || configCandidates.size() < 2) {
+			return;
+		}
+		Set<String> seen = ConcurrentHashMap.newKeySet();
+		List<AnnotationMetadata> current = configCandidates.parallelStream()
+				.map(holder -> getMetadata(holder.getBeanDefinition(), seen))
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		while (!current.isEmpty()) {
+			current = current.parallelStream()
+					.flatMap(metadata -> getReferencedClassNames(metadata).stream())
+					.filter(seen::add)
+					.map(this::readMetadata)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList());
+		}
+	}
+
+	@Nullable
+	private AnnotationMetadata getMetadata(BeanDefinition bd, Set<String> seen) {
+		if (bd instanceof AnnotatedBeanDefinition) {
+			return ((AnnotatedBeanDefinition) bd).getMetadata();
+		}
+		else if (bd instanceof AbstractBeanDefinition && ((AbstractBeanDefinition) bd).hasBeanClass()) {
+			return AnnotationMetadata.introspect(((AbstractBeanDefinition) bd).getBeanClass());
+		}
+		String className = bd.getBeanClassName();
+		return (className != null && seen.add(className) ? readMetadata(className) : null);
+	}
+
+	private static Set<String> getReferencedClassNames(AnnotationMetadata metadata) {
+		Set<String> classNames = new LinkedHashSet<>();
+		if (metadata.getSuperClassName() != null) {
+			classNames.add(metadata.getSuperClassName());
+		}
+		Collections.addAll(classNames, metadata.getInterfaceNames());
+		Collections.addAll(classNames, metadata.getMemberClassNames());
+		MultiValueMap<String, Object> imports = metadata.getAllAnnotationAttributes(Import.class.getName(), true);
+		if (imports != null) {
+			for (Object value : imports.getOrDefault("value", Collections.emptyList())) {
+				Collections.addAll(classNames, (String[]) value);
+			}
+		}
+		classNames.removeIf(className -> className.startsWith("java"));
+		return classNames;
+	}
+
+	@Nullable
+	private AnnotationMetadata readMetadata(String className) {
+		try {
+			return this.metadataReaderFactory.getMetadataReader(className).getAnnotationMetadata();
+		}
+		catch (Throwable ex) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Failed to preload metadata for class [" + className + "]", ex);
+			}
+			return null;
+		}
+	}
+
 	/**
 	 * Register member (nested) classes that happen to be configuration classes themselves.
 	 */
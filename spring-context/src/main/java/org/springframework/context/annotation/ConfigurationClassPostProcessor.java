@@ -126,6 +126,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 
 	private boolean setMetadataReaderFactoryCalled = false;
 
+	private boolean parallelMetadataReading = false;
+
 	private final Set<Integer> registriesPostProcessed = new HashSet<>();
 
 	private final Set<Integer> factoriesPostProcessed = new HashSet<>();
@@ -176,6 +178,18 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		this.setMetadataReaderFactoryCalled = true;
 	}
 
+	/**
+	 * Set whether to read the metadata of configuration classes, and of the classes
+	 * they import, nest or extend, in parallel before parsing them.
+	 * <p>Default is "false". Parsing, condition evaluation and the registration of
+	 * bean definitions remain sequential and keep their order; only switch this on
+	 * if the {@link #setMetadataReaderFactory MetadataReaderFactory} in use can be
+	 * called concurrently.
+	 */
+	public void setParallelMetadataReading(boolean parallelMetadataReading) {
+		this.parallelMetadataReading = parallelMetadataReading;
+	}
+
 	/**
 	 * Set the {@link BeanNameGenerator} to be used when triggering component scanning
 	 * from {@link Configuration} classes and when registering {@link Import}'ed
@@ -318,6 +332,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		ConfigurationClassParser parser = new ConfigurationClassParser(
 				this.metadataReaderFactory, this.problemReporter, this.environment,
 				this.resourceLoader, this.componentScanBeanNameGenerator, registry);
+		parser.setParallelMetadataReading(this.parallelMetadataReading);
 
 		Set<BeanDefinitionHolder> candidates = new LinkedHashSet<>(configCandidates);
 		Set<ConfigurationClass> alreadyParsed = new HashSet<>(configCandidates.size());
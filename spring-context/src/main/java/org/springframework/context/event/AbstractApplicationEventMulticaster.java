@@ -54,6 +54,10 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>Listener beans are retrieved from the BeanFactory without holding any lock
+ * of this multicaster, so that publishing an event never waits for a lock while
+ * another thread creates a listener bean that registers or publishes in turn.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -73,7 +77,10 @@ public abstract class AbstractApplicationEventMulticaster
 	@Nullable
 	private ConfigurableBeanFactory beanFactory;
 
-	private Object retrievalMutex = this.defaultRetriever;
+	private final Object retrievalMutex = this.defaultRetriever;
+
+	/** Incremented on every change of registered listeners, guarded by the retrieval mutex. */
+	private int listenerGeneration;
 
 
 	@Override
@@ -90,7 +97,6 @@ public abstract class AbstractApplicationEventMulticaster
 		if (this.beanClassLoader == null) {
 			this.beanClassLoader = this.beanFactory.getBeanClassLoader();
 		}
-		this.retrievalMutex = this.beanFactory.getSingletonMutex();
 	}
 
 	private ConfigurableBeanFactory getBeanFactory() {
@@ -113,6 +119,7 @@ public abstract class AbstractApplicationEventMulticaster
 			}
 			this.defaultRetriever.applicationListeners.add(listener);
 			this.retrieverCache.clear();
+			this.listenerGeneration++;
 		}
 	}
 
@@ -121,6 +128,7 @@ public abstract class AbstractApplicationEventMulticaster
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListenerBeans.add(listenerBeanName);
 			this.retrieverCache.clear();
+			this.listenerGeneration++;
 		}
 	}
 
@@ -129,6 +137,7 @@ public abstract class AbstractApplicationEventMulticaster
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListeners.remove(listener);
 			this.retrieverCache.clear();
+			this.listenerGeneration++;
 		}
 	}
 
@@ -137,6 +146,7 @@ public abstract class AbstractApplicationEventMulticaster
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListenerBeans.remove(listenerBeanName);
 			this.retrieverCache.clear();
+			this.listenerGeneration++;
 		}
 	}
 
@@ -146,6 +156,7 @@ public abstract class AbstractApplicationEventMulticaster
 			this.defaultRetriever.applicationListeners.clear();
 			this.defaultRetriever.applicationListenerBeans.clear();
 			this.retrieverCache.clear();
+			this.listenerGeneration++;
 		}
 	}
 
@@ -156,9 +167,12 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @see ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners() {
+		ListenerRetriever snapshot = new ListenerRetriever(false);
 		synchronized (this.retrievalMutex) {
-			return this.defaultRetriever.getApplicationListeners();
+			snapshot.applicationListeners.addAll(this.defaultRetriever.applicationListeners);
+			snapshot.applicationListenerBeans.addAll(this.defaultRetriever.applicationListenerBeans);
 		}
+		return snapshot.getApplicationListeners();
 	}
 
 	/**
@@ -186,18 +200,21 @@ public abstract class AbstractApplicationEventMulticaster
 		if (this.beanClassLoader == null ||
 				(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
 						(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
-			// Fully synchronized building and caching of a ListenerRetriever
+			// Build a ListenerRetriever without holding the mutex, since retrieving listener
+			// beans may create them, and only cache it if no listener changed in the meantime
+			int generation;
 			synchronized (this.retrievalMutex) {
-				retriever = this.retrieverCache.get(cacheKey);
-				if (retriever != null) {
-					return retriever.getApplicationListeners();
+				generation = this.listenerGeneration;
+			}
+			retriever = new ListenerRetriever(true);
+			Collection<ApplicationListener<?>> listeners =
+					retrieveApplicationListeners(eventType, sourceType, retriever);
+			synchronized (this.retrievalMutex) {
+				if (generation == this.listenerGeneration) {
+					this.retrieverCache.putIfAbsent(cacheKey, retriever);
 				}
-				retriever = new ListenerRetriever(true);
-				Collection<ApplicationListener<?>> listeners =
-						retrieveApplicationListeners(eventType, sourceType, retriever);
-				this.retrieverCache.put(cacheKey, retriever);
-				return listeners;
 			}
+			return listeners;
 		}
 		else {
 			// No ListenerRetriever caching -> no synchronization necessary
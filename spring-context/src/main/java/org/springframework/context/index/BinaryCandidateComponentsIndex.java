@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Read-only view of a binary components index written by a
+ * {@link CandidateComponentsIndexGenerator}, queried in place.
+ *
+ * <p>Types and stereotypes are stored sorted by the bytes of their UTF-8
+ * names, and each stereotype refers to its types in that same order. All the
+ * types of a stereotype in a package are therefore adjacent, and a query for a
+ * plain base package is two binary searches followed by a scan of the matching
+ * range; only the names returned are decoded. Index files on the file system
+ * are memory-mapped, others (e.g. inside an APK) are read into memory once.
+ *
+ * <p>Layout, all integers big-endian:
+ * <pre class="code">
+ * int      magic, version
+ * int      typeCount, stereotypeCount, referenceCount
+ * int[]    type name offsets (typeCount)
+ * int[]    stereotype name offsets (stereotypeCount)
+ * int[]    first reference of each stereotype (stereotypeCount + 1)
+ * int[]    references: type indexes (referenceCount)
+ * strings  unsigned short length + UTF-8 bytes, at the offsets above
+ * </pre>
+ *
+ * @see CandidateComponentsIndexLoader#BINARY_COMPONENTS_RESOURCE_LOCATION
+ */
+final class BinaryCandidateComponentsIndex {
+
+	static final int MAGIC = 0x53434958;  // "SCIX"
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 20;
+
+	private static final AntPathMatcher pathMatcher = new AntPathMatcher(".");
+
+
+	private final ByteBuffer buffer;
+
+	private final int typeCount;
+
+	private final int stereotypeCount;
+
+	private final int typeNamesOff;
+
+	private final int stereotypeNamesOff;
+
+	private final int stereotypeStartsOff;
+
+	private final int referencesOff;
+
+
+	BinaryCandidateComponentsIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a binary components index");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported binary components index version " + buffer.getInt(4));
+		}
+		this.typeCount = buffer.getInt(8);
+		this.stereotypeCount = buffer.getInt(12);
+		this.typeNamesOff = HEADER_SIZE;
+		this.stereotypeNamesOff = this.typeNamesOff + this.typeCount * 4;
+		this.stereotypeStartsOff = this.stereotypeNamesOff + this.stereotypeCount * 4;
+		this.referencesOff = this.stereotypeStartsOff + (this.stereotypeCount + 1) * 4;
+	}
+
+
+	/**
+	 * Load the index behind the given URL, memory-mapping it if it is a file.
+	 */
+	static BinaryCandidateComponentsIndex load(URL url) throws IOException {
+		if (ResourceUtils.isFileURL(url)) {
+			File file = ResourceUtils.getFile(url);
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				return new BinaryCandidateComponentsIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			}
+		}
+		try (InputStream is = url.openStream()) {
+			return new BinaryCandidateComponentsIndex(ByteBuffer.wrap(StreamUtils.copyToByteArray(is)));
+		}
+	}
+
+
+	/**
+	 * Return the number of types in this index.
+	 */
+	int size() {
+		return this.typeCount;
+	}
+
+	/**
+	 * Add the candidate types of the given stereotype in the given package to
+	 * the given set.
+	 * @param basePackage the package to check for candidates, or a package pattern
+	 * @param stereotype the stereotype to use
+	 * @param result the set to add the matching types to
+	 */
+	void addCandidateTypes(String basePackage, String stereotype, Set<String> result) {
+		int stereotypeIndex = find(this.stereotypeNamesOff, 0, this.stereotypeCount,
+				stereotype.getBytes(StandardCharsets.UTF_8), false);
+		if (stereotypeIndex < 0) {
+			return;
+		}
+		int start = this.buffer.getInt(this.stereotypeStartsOff + stereotypeIndex * 4);
+		int end = this.buffer.getInt(this.stereotypeStartsOff + (stereotypeIndex + 1) * 4);
+		if (pathMatcher.isPattern(basePackage)) {
+			for (int i = start; i < end; i++) {
+				String type = typeName(reference(i));
+				if (pathMatcher.match(basePackage, ClassUtils.getPackageName(type))) {
+					result.add(type);
+				}
+			}
+			return;
+		}
+		// references are sorted by type name: find the first type starting with the package
+		byte[] prefix = basePackage.getBytes(StandardCharsets.UTF_8);
+		int low = start;
+		int high = end;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(stringOffset(this.typeNamesOff, reference(mid)), prefix, true) < 0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		for (int i = low; i < end; i++) {
+			int typeIndex = reference(i);
+			if (compare(stringOffset(this.typeNamesOff, typeIndex), prefix, true) != 0) {
+				break;
+			}
+			result.add(typeName(typeIndex));
+		}
+	}
+
+	private int reference(int i) {
+		return this.buffer.getInt(this.referencesOff + i * 4);
+	}
+
+	private String typeName(int typeIndex) {
+		int off = stringOffset(this.typeNamesOff, typeIndex);
+		int length = this.buffer.getShort(off) & 0xFFFF;
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = this.buffer.get(off + 2 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int stringOffset(int tableOff, int index) {
+		return this.buffer.getInt(tableOff + index * 4);
+	}
+
+	/**
+	 * Binary search for the given name in a sorted string table.
+	 */
+	private int find(int tableOff, int low, int high, byte[] name, boolean prefix) {
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compare(stringOffset(tableOff, mid), name, prefix);
+			if (cmp < 0) {
+				low = mid + 1;
+			}
+			else if (cmp > 0) {
+				high = mid;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compare the string at the given offset with the given UTF-8 bytes, by
+	 * unsigned bytes. If {@code prefix} is set, a string starting with the
+	 * given bytes compares as equal.
+	 */
+	private int compare(int off, byte[] other, boolean prefix) {
+		int length = this.buffer.getShort(off) & 0xFFFF;
+		int common = Math.min(length, other.length);
+		for (int i = 0; i < common; i++) {
+			int cmp = (this.buffer.get(off + 2 + i) & 0xFF) - (other[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		if (prefix && length >= other.length) {
+			return 0;
+		}
+		return length - other.length;
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.context.index;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
@@ -28,7 +29,8 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 /**
- * Provide access to the candidates that are defined in {@code META-INF/spring.components}.
+ * Provide access to the candidates that are defined in {@code META-INF/spring.components}
+ * and in binary {@code META-INF/spring.components.idx} indexes.
  *
  * <p>An arbitrary number of stereotypes can be registered (and queried) on the index: a
  * typical example is the fully qualified name of an annotation that flags the class for
@@ -52,9 +54,16 @@ public class CandidateComponentsIndex {
 
 	private final MultiValueMap<String, Entry> index;
 
+	private final List<BinaryCandidateComponentsIndex> binaryIndexes;
+
 
 	CandidateComponentsIndex(List<Properties> content) {
+		this(content, Collections.emptyList());
+	}
+
+	CandidateComponentsIndex(List<Properties> content, List<BinaryCandidateComponentsIndex> binaryIndexes) {
 		this.index = parseIndex(content);
+		this.binaryIndexes = binaryIndexes;
 	}
 
 
@@ -66,14 +75,23 @@ public class CandidateComponentsIndex {
 	 * or an empty set if none has been found for the specified {@code basePackage}
 	 */
 	public Set<String> getCandidateTypes(String basePackage, String stereotype) {
+		Set<String> result = null;
 		List<Entry> candidates = this.index.get(stereotype);
 		if (candidates != null) {
-			return candidates.parallelStream()
+			result = candidates.parallelStream()
 					.filter(t -> t.match(basePackage))
 					.map(t -> t.type)
 					.collect(Collectors.toSet());
 		}
-		return Collections.emptySet();
+		if (!this.binaryIndexes.isEmpty()) {
+			if (result == null) {
+				result = new HashSet<>();
+			}
+			for (BinaryCandidateComponentsIndex binaryIndex : this.binaryIndexes) {
+				binaryIndex.addCandidateTypes(basePackage, stereotype, result);
+			}
+		}
+		return (result != null ? result : Collections.emptySet());
 	}
 
 	private static MultiValueMap<String, Entry> parseIndex(List<Properties> content) {
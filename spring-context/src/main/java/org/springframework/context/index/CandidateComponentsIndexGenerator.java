@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Indexed;
+import org.springframework.util.Assert;
+
+/**
+ * Build-time generator of the binary components index read from
+ * {@value CandidateComponentsIndexLoader#BINARY_COMPONENTS_RESOURCE_LOCATION}.
+ *
+ * <p>Walks compiled classes through a {@link MetadataReaderFactory}, e.g. the
+ * class files of a build or the DEX files of an APK, and records the same
+ * stereotypes that the {@code spring-context-indexer} annotation processor
+ * records: the {@link Indexed @Indexed} annotations present on a class,
+ * directly or as meta-annotations, {@code javax.*} annotations declared on
+ * it, and the class itself as well as its superclasses and interfaces if they
+ * are annotated with {@code @Indexed}.
+ *
+ * <pre class="code">
+ * CandidateComponentsIndexGenerator generator = new CandidateComponentsIndexGenerator(factory);
+ * generator.addResources(factory.getResources("com/example/**&#47;*.class"));
+ * try (OutputStream out = new FileOutputStream("META-INF/spring.components.idx")) {
+ *     generator.writeTo(out);
+ * }
+ * </pre>
+ *
+ * @see CandidateComponentsIndex
+ */
+public class CandidateComponentsIndexGenerator {
+
+	private static final Comparator<byte[]> UTF8_ORDER = (a, b) -> {
+		int common = Math.min(a.length, b.length);
+		for (int i = 0; i < common; i++) {
+			int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return a.length - b.length;
+	};
+
+
+	private final MetadataReaderFactory metadataReaderFactory;
+
+	/** Stereotypes by type name. */
+	private final Map<String, Set<String>> candidates = new TreeMap<>();
+
+
+	/**
+	 * Create a new generator reading super types through the given factory.
+	 * @param metadataReaderFactory the factory to read the metadata of
+	 * superclasses and interfaces with
+	 */
+	public CandidateComponentsIndexGenerator(MetadataReaderFactory metadataReaderFactory) {
+		Assert.notNull(metadataReaderFactory, "MetadataReaderFactory must not be null");
+		this.metadataReaderFactory = metadataReaderFactory;
+	}
+
+
+	/**
+	 * Add the classes behind the given resources to the index.
+	 * @param resources the class resources
+	 * @return the number of classes added to the index
+	 * @throws IOException if a class cannot be read
+	 */
+	public int addResources(Resource... resources) throws IOException {
+		int count = 0;
+		for (Resource resource : resources) {
+			if (addClass(this.metadataReaderFactory.getMetadataReader(resource))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Add the class read by the given reader to the index, if it has any stereotype.
+	 * @param metadataReader the reader of the class
+	 * @return whether the class has been added to the index
+	 */
+	public boolean addClass(MetadataReader metadataReader) {
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		if (metadata.isAnnotation()) {
+			return false;
+		}
+		Set<String> stereotypes = new LinkedHashSet<>();
+		metadata.getAnnotations().stream().forEach(annotation -> {
+			Class<?> annotationType = annotation.getType();
+			if (AnnotationUtils.isAnnotationDeclaredLocally(Indexed.class, annotationType) ||
+					(annotation.isDirectlyPresent() && annotationType.getName().startsWith("javax."))) {
+				stereotypes.add(annotationType.getName());
+			}
+		});
+		if (isIndexed(metadata)) {
+			stereotypes.add(metadata.getClassName());
+		}
+		collectIndexedSuperTypes(metadata, stereotypes, new HashSet<>());
+		if (stereotypes.isEmpty()) {
+			return false;
+		}
+		addCandidate(metadata.getClassName(), stereotypes.toArray(new String[0]));
+		return true;
+	}
+
+	/**
+	 * Add the given type to the index, with the given stereotypes.
+	 * @param type the fully qualified name of the type
+	 * @param stereotypes the stereotypes of the type
+	 */
+	public void addCandidate(String type, String... stereotypes) {
+		Assert.hasText(type, "Type must not be empty");
+		Collections.addAll(this.candidates.computeIfAbsent(type, key -> new LinkedHashSet<>()), stereotypes);
+	}
+
+	/**
+	 * Return the stereotypes recorded for the given type, if any.
+	 */
+	public Set<String> getStereotypes(String type) {
+		Set<String> stereotypes = this.candidates.get(type);
+		return (stereotypes != null ? Collections.unmodifiableSet(stereotypes) : Collections.emptySet());
+	}
+
+	private void collectIndexedSuperTypes(AnnotationMetadata metadata, Set<String> stereotypes, Set<String> seen) {
+		List<String> superTypes = new ArrayList<>(Arrays.asList(metadata.getInterfaceNames()));
+		if (metadata.getSuperClassName() != null) {
+			superTypes.add(metadata.getSuperClassName());
+		}
+		for (String superType : superTypes) {
+			if (superType.startsWith("java.") || !seen.add(superType)) {
+				continue;
+			}
+			AnnotationMetadata superMetadata = readMetadata(superType);
+			if (superMetadata != null) {
+				if (isIndexed(superMetadata)) {
+					stereotypes.add(superType);
+				}
+				collectIndexedSuperTypes(superMetadata, stereotypes, seen);
+			}
+		}
+	}
+
+	private static boolean isIndexed(AnnotationMetadata metadata) {
+		return metadata.getAnnotations().isDirectlyPresent(Indexed.class);
+	}
+
+	@Nullable
+	private AnnotationMetadata readMetadata(String type) {
+		try {
+			return this.metadataReaderFactory.getMetadataReader(type).getAnnotationMetadata();
+		}
+		catch (IOException ex) {
+			// super type not available to the build - cannot be indexed
+			return null;
+		}
+	}
+
+
+	/**
+	 * Write the index in the binary format read by {@link CandidateComponentsIndexLoader}.
+	 * The stream is not closed.
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		// sort types and stereotypes by their UTF-8 bytes, as the reader compares them
+		List<byte[]> types = new ArrayList<>(this.candidates.size());
+		Map<String, List<String>> typesByStereotype = new HashMap<>();
+		for (Map.Entry<String, Set<String>> entry : this.candidates.entrySet()) {
+			types.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+			for (String stereotype : entry.getValue()) {
+				typesByStereotype.computeIfAbsent(stereotype, key -> new ArrayList<>()).add(entry.getKey());
+			}
+		}
+		types.sort(UTF8_ORDER);
+		Map<String, Integer> typeIndexes = new HashMap<>(types.size() * 4 / 3 + 1);
+		for (int i = 0; i < types.size(); i++) {
+			typeIndexes.put(new String(types.get(i), StandardCharsets.UTF_8), i);
+		}
+		List<byte[]> stereotypes = new ArrayList<>(typesByStereotype.size());
+		for (String stereotype : typesByStereotype.keySet()) {
+			stereotypes.add(stereotype.getBytes(StandardCharsets.UTF_8));
+		}
+		stereotypes.sort(UTF8_ORDER);
+
+		ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+		DataOutputStream strings = new DataOutputStream(stringBytes);
+		int referenceCount = 0;
+		for (List<String> stereotypeTypes : typesByStereotype.values()) {
+			referenceCount += stereotypeTypes.size();
+		}
+		int stringsOff = BinaryCandidateComponentsIndex.HEADER_SIZE +
+				(types.size() + stereotypes.size() * 2 + 1 + referenceCount) * 4;
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(BinaryCandidateComponentsIndex.MAGIC);
+		data.writeInt(BinaryCandidateComponentsIndex.VERSION);
+		data.writeInt(types.size());
+		data.writeInt(stereotypes.size());
+		data.writeInt(referenceCount);
+		for (byte[] type : types) {
+			data.writeInt(stringsOff + writeString(strings, type));
+		}
+		for (byte[] stereotype : stereotypes) {
+			data.writeInt(stringsOff + writeString(strings, stereotype));
+		}
+		int start = 0;
+		List<int[]> references = new ArrayList<>(stereotypes.size());
+		for (byte[] stereotype : stereotypes) {
+			List<String> stereotypeTypes = typesByStereotype.get(new String(stereotype, StandardCharsets.UTF_8));
+			int[] indexes = new int[stereotypeTypes.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = typeIndexes.get(stereotypeTypes.get(i));
+			}
+			Arrays.sort(indexes);
+			references.add(indexes);
+			data.writeInt(start);
+			start += indexes.length;
+		}
+		data.writeInt(start);
+		for (int[] indexes : references) {
+			for (int index : indexes) {
+				data.writeInt(index);
+			}
+		}
+		strings.flush();
+		stringBytes.writeTo(data);
+		data.flush();
+	}
+
+	private static int writeString(DataOutputStream strings, byte[] utf8) throws IOException {
+		if (utf8.length > 0xFFFF) {
+			throw new IOException("Name too long for a components index");
+		}
+		int off = strings.size();
+		strings.writeShort(utf8.length);
+		strings.write(utf8);
+		return off;
+	}
+
+}
@@ -47,6 +47,13 @@ public final class CandidateComponentsIndexLoader {
 	 */
 	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
 
+	/**
+	 * The location to look for binary components indexes, as written by a
+	 * {@link CandidateComponentsIndexGenerator}.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String BINARY_COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components.idx";
+
 	/**
 	 * System property that instructs Spring to ignore the index, i.e.
 	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
@@ -97,20 +104,26 @@ public final class CandidateComponentsIndexLoader {
 
 		try {
 			Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
-			if (!urls.hasMoreElements()) {
-				return null;
-			}
 			List<Properties> result = new ArrayList<>();
 			while (urls.hasMoreElements()) {
 				URL url = urls.nextElement();
 				Properties properties = PropertiesLoaderUtils.loadProperties(new UrlResource(url));
 				result.add(properties);
 			}
+			List<BinaryCandidateComponentsIndex> binaryIndexes = new ArrayList<>();
+			urls = classLoader.getResources(BINARY_COMPONENTS_RESOURCE_LOCATION);
+			while (urls.hasMoreElements()) {
+				binaryIndexes.add(BinaryCandidateComponentsIndex.load(urls.nextElement()));
+			}
+			if (result.isEmpty() && binaryIndexes.isEmpty()) {
+				return null;
+			}
 			if (logger.isDebugEnabled()) {
-				logger.debug("Loaded " + result.size() + "] index(es)");
+				logger.debug("Loaded " + (result.size() + binaryIndexes.size()) + "] index(es)");
 			}
-			int totalCount = result.stream().mapToInt(Properties::size).sum();
-			return (totalCount > 0 ? new CandidateComponentsIndex(result) : null);
+			int totalCount = result.stream().mapToInt(Properties::size).sum() +
+					binaryIndexes.stream().mapToInt(BinaryCandidateComponentsIndex::size).sum();
+			return (totalCount > 0 ? new CandidateComponentsIndex(result, binaryIndexes) : null);
 		}
 		catch (IOException ex) {
 			throw new IllegalStateException("Unable to load indexes from location [" +
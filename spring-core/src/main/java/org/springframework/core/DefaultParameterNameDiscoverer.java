@@ -16,6 +16,8 @@
 
 package org.springframework.core;
 
+import org.springframework.util.ClassUtils;
+
 /**
  * Default implementation of the {@link ParameterNameDiscoverer} strategy interface,
  * using the Java 8 standard reflection mechanism (if available), and falling back
@@ -27,6 +29,11 @@ package org.springframework.core;
  * for Kotlin classes and interfaces. When compiling or running as a Graal native image,
  * no {@link ParameterNameDiscoverer} is used.
  *
+ * <p>If a {@link ParameterNameIndex} is found at
+ * {@value ParameterNameIndex#PARAMETER_NAMES_RESOURCE_LOCATION}, typically on
+ * Android where there are no class files to read debug information from, an
+ * {@link IndexedParameterNameDiscoverer} is consulted before any other discoverer.
+ *
  * <p>Further discoverers may be added through {@link #addDiscoverer(ParameterNameDiscoverer)}.
  *
  * @author Juergen Hoeller
@@ -35,11 +42,16 @@ package org.springframework.core;
  * @see StandardReflectionParameterNameDiscoverer
  * @see LocalVariableTableParameterNameDiscoverer
  * @see KotlinReflectionParameterNameDiscoverer
+ * @see IndexedParameterNameDiscoverer
  */
 public class DefaultParameterNameDiscoverer extends PrioritizedParameterNameDiscoverer {
 
 	public DefaultParameterNameDiscoverer() {
 		if (!GraalDetector.inImageCode()) {
+			ParameterNameIndex index = ParameterNameIndex.loadIndex(ClassUtils.getDefaultClassLoader());
+			if (index != null) {
+				addDiscoverer(new IndexedParameterNameDiscoverer(index));
+			}
 			if (KotlinDetector.isKotlinReflectPresent()) {
 				addDiscoverer(new KotlinReflectionParameterNameDiscoverer());
 			}
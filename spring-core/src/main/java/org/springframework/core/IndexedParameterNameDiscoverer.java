@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ParameterNameDiscoverer} implementation that looks parameter names
+ * up in a precomputed {@link ParameterNameIndex}. Returns {@code null} for
+ * methods and constructors that are not indexed.
+ *
+ * @see ParameterNameIndex#loadIndex(ClassLoader)
+ */
+public class IndexedParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+	private static final String CONSTRUCTOR = "<init>";
+
+	private final ParameterNameIndex index;
+
+
+	/**
+	 * Create a new IndexedParameterNameDiscoverer for the given index.
+	 * @param index the index to look parameter names up in
+	 */
+	public IndexedParameterNameDiscoverer(ParameterNameIndex index) {
+		Assert.notNull(index, "ParameterNameIndex must not be null");
+		this.index = index;
+	}
+
+
+	@Override
+	@Nullable
+	public String[] getParameterNames(Method method) {
+		Method originalMethod = BridgeMethodResolver.findBridgedMethod(method);
+		return this.index.getParameterNames(originalMethod.getDeclaringClass().getName(),
+				originalMethod.getName(), Type.getMethodDescriptor(originalMethod));
+	}
+
+	@Override
+	@Nullable
+	public String[] getParameterNames(Constructor<?> ctor) {
+		return this.index.getParameterNames(ctor.getDeclaringClass().getName(),
+				CONSTRUCTOR, Type.getConstructorDescriptor(ctor));
+	}
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Precomputed index of constructor and method parameter names, keyed by
+ * class name, method name and method descriptor.
+ *
+ * <p>On platforms without class files at runtime, such as Android, the
+ * {@link LocalVariableTableParameterNameDiscoverer} cannot read the debug
+ * information of a class. An index built from the class files at build time
+ * with a {@link Builder} and packaged as {@value #PARAMETER_NAMES_RESOURCE_LOCATION}
+ * is picked up by {@link DefaultParameterNameDiscoverer} instead, through an
+ * {@link IndexedParameterNameDiscoverer}: lookups are plain map lookups,
+ * without any I/O after the index has been loaded.
+ *
+ * @see IndexedParameterNameDiscoverer
+ */
+public final class ParameterNameIndex {
+
+	/**
+	 * The location to look for parameter name indexes.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String PARAMETER_NAMES_RESOURCE_LOCATION = "META-INF/spring.parameter-names";
+
+	/**
+	 * System property that instructs Spring to ignore the index, i.e.
+	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
+	 */
+	public static final String IGNORE_INDEX = "spring.parameter-names.ignore";
+
+
+	private static final int MAGIC = 0x53504e49;  // "SPNI"
+
+	private static final int VERSION = 1;
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(ParameterNameIndex.class);
+
+	private static final ConcurrentMap<ClassLoader, ParameterNameIndex> cache =
+			new ConcurrentReferenceHashMap<>();
+
+
+	/** Parameter names by class name, then by method name plus descriptor. */
+	private final Map<String, Map<String, String[]>> parameterNames;
+
+
+	private ParameterNameIndex(Map<String, Map<String, String[]>> parameterNames) {
+		this.parameterNames = parameterNames;
+	}
+
+
+	/**
+	 * Return the parameter names of the given method or constructor.
+	 * @param className the fully qualified name of the declaring class
+	 * @param methodName the method name, or {@code "<init>"} for a constructor
+	 * @param descriptor the method descriptor, e.g. {@code "(Ljava/lang/String;I)V"}
+	 * @return the parameter names, or {@code null} if the method is not indexed
+	 */
+	@Nullable
+	public String[] getParameterNames(String className, String methodName, String descriptor) {
+		Map<String, String[]> methods = this.parameterNames.get(className);
+		return (methods != null ? methods.get(methodName + descriptor) : null);
+	}
+
+	/**
+	 * Return whether the index holds parameter names for the given class.
+	 */
+	public boolean containsClass(String className) {
+		return this.parameterNames.containsKey(className);
+	}
+
+	/**
+	 * Write this index to the given stream, in the format read by
+	 * {@link #read(InputStream)}. The stream is not closed.
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		Map<String, Integer> pool = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		for (Map.Entry<String, Map<String, String[]>> classEntry : this.parameterNames.entrySet()) {
+			intern(classEntry.getKey(), pool, strings);
+			for (Map.Entry<String, String[]> methodEntry : classEntry.getValue().entrySet()) {
+				intern(methodEntry.getKey(), pool, strings);
+				for (String name : methodEntry.getValue()) {
+					intern(name, pool, strings);
+				}
+			}
+		}
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeShort(VERSION);
+		data.writeInt(strings.size());
+		for (String string : strings) {
+			data.writeUTF(string);
+		}
+		data.writeInt(this.parameterNames.size());
+		for (Map.Entry<String, Map<String, String[]>> classEntry : this.parameterNames.entrySet()) {
+			data.writeInt(pool.get(classEntry.getKey()));
+			data.writeInt(classEntry.getValue().size());
+			for (Map.Entry<String, String[]> methodEntry : classEntry.getValue().entrySet()) {
+				data.writeInt(pool.get(methodEntry.getKey()));
+				data.writeByte(methodEntry.getValue().length);
+				for (String name : methodEntry.getValue()) {
+					data.writeInt(pool.get(name));
+				}
+			}
+		}
+		data.flush();
+	}
+
+	private static void intern(String string, Map<String, Integer> pool, List<String> strings) {
+		if (!pool.containsKey(string)) {
+			pool.put(string, strings.size());
+			strings.add(string);
+		}
+	}
+
+
+	/**
+	 * Read an index written by {@link #writeTo(OutputStream)}. The stream is not closed.
+	 * @param in the stream to read from
+	 * @return the index
+	 * @throws IOException in case of I/O errors, or if the stream does not hold
+	 * an index of this version
+	 */
+	public static ParameterNameIndex read(InputStream in) throws IOException {
+		Map<String, Map<String, String[]>> parameterNames = new HashMap<>();
+		read(in, parameterNames);
+		return new ParameterNameIndex(parameterNames);
+	}
+
+	private static void read(InputStream in, Map<String, Map<String, String[]>> parameterNames) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC || data.readUnsignedShort() != VERSION) {
+			throw new IOException("Not a parameter name index of version " + VERSION);
+		}
+		String[] strings = new String[data.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = data.readUTF();
+		}
+		int classCount = data.readInt();
+		for (int i = 0; i < classCount; i++) {
+			String className = strings[data.readInt()];
+			int methodCount = data.readInt();
+			Map<String, String[]> methods = new HashMap<>(methodCount * 4 / 3 + 1);
+			for (int j = 0; j < methodCount; j++) {
+				String methodKey = strings[data.readInt()];
+				String[] names = new String[data.readUnsignedByte()];
+				for (int k = 0; k < names.length; k++) {
+					names[k] = strings[data.readInt()];
+				}
+				methods.put(methodKey, names);
+			}
+			// as on the class path, the first definition of a class wins
+			parameterNames.putIfAbsent(className, methods);
+		}
+	}
+
+	/**
+	 * Load the indexes found at {@value #PARAMETER_NAMES_RESOURCE_LOCATION}
+	 * with the given class loader and merge them into a single index.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null} to use the default)
+	 * @return the index to use or {@code null} if no index was found
+	 * @throws IllegalArgumentException if any index cannot be read
+	 */
+	@Nullable
+	public static ParameterNameIndex loadIndex(@Nullable ClassLoader classLoader) {
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ParameterNameIndex.class.getClassLoader();
+		}
+		return cache.computeIfAbsent(classLoaderToUse, ParameterNameIndex::doLoadIndex);
+	}
+
+	@Nullable
+	private static ParameterNameIndex doLoadIndex(ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+
+		try {
+			Enumeration<URL> urls = classLoader.getResources(PARAMETER_NAMES_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			Map<String, Map<String, String[]>> parameterNames = new HashMap<>();
+			int count = 0;
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				try (InputStream is = url.openStream()) {
+					read(is, parameterNames);
+				}
+				count++;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + count + " parameter name index(es) for " +
+						parameterNames.size() + " classes");
+			}
+			return (!parameterNames.isEmpty() ? new ParameterNameIndex(parameterNames) : null);
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Unable to load indexes from location [" +
+					PARAMETER_NAMES_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+	/**
+	 * Return a new {@link Builder} for an index.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+
+	/**
+	 * Builder for a {@link ParameterNameIndex}, typically fed with the class
+	 * files of an application at build time.
+	 */
+	public static final class Builder {
+
+		private final Map<String, Map<String, String[]>> parameterNames = new LinkedHashMap<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Add the parameter names of a single method or constructor.
+		 * @param className the fully qualified name of the declaring class
+		 * @param methodName the method name, or {@code "<init>"} for a constructor
+		 * @param descriptor the method descriptor
+		 * @param parameterNames the parameter names, one per parameter in the descriptor
+		 * @return this builder
+		 */
+		public Builder add(String className, String methodName, String descriptor, String... parameterNames) {
+			Assert.isTrue(Type.getArgumentTypes(descriptor).length == parameterNames.length,
+					() -> "Expected one parameter name per parameter of " + methodName + descriptor);
+			this.parameterNames.computeIfAbsent(className, key -> new LinkedHashMap<>())
+					.put(methodName + descriptor, parameterNames);
+			return this;
+		}
+
+		/**
+		 * Add the parameter names recorded in the LocalVariableTable of the
+		 * methods and constructors of the given class file. Methods without
+		 * debug information are skipped.
+		 * @param classFile the class file contents; the stream is not closed
+		 * @return this builder
+		 * @throws IOException in case of I/O errors
+		 * @see LocalVariableTableParameterNameDiscoverer
+		 */
+		public Builder addClassFile(InputStream classFile) throws IOException {
+			new ClassReader(classFile).accept(new ParameterNameCollectingVisitor(), 0);
+			return this;
+		}
+
+		/**
+		 * Build the index.
+		 */
+		public ParameterNameIndex build() {
+			Map<String, Map<String, String[]>> parameterNames = new HashMap<>(this.parameterNames.size() * 4 / 3 + 1);
+			this.parameterNames.forEach((className, methods) ->
+					parameterNames.put(className, new LinkedHashMap<>(methods)));
+			return new ParameterNameIndex(parameterNames);
+		}
+
+
+		/**
+		 * Helper class that records the parameter names of all methods and
+		 * constructors, the way {@link LocalVariableTableParameterNameDiscoverer}
+		 * discovers them, but without resolving the class.
+		 */
+		private class ParameterNameCollectingVisitor extends ClassVisitor {
+
+			private static final String STATIC_CLASS_INIT = "<clinit>";
+
+			@Nullable
+			private String className;
+
+			ParameterNameCollectingVisitor() {
+				super(SpringAsmInfo.ASM_VERSION);
+			}
+
+			@Override
+			public void visit(int version, int access, String name, String signature,
+					@Nullable String superName, String[] interfaces) {
+				this.className = ClassUtils.convertResourcePathToClassName(name);
+			}
+
+			@Override
+			@Nullable
+			public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+				// exclude synthetic + bridged && static class initialization
+				if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0 && !STATIC_CLASS_INIT.equals(name)) {
+					return new LocalVariableTableVisitor(name, desc, (access & Opcodes.ACC_STATIC) != 0);
+				}
+				return null;
+			}
+
+
+			private class LocalVariableTableVisitor extends MethodVisitor {
+
+				private final String name;
+
+				private final String desc;
+
+				private final String[] parameterNames;
+
+				private final int[] lvtSlotIndex;
+
+				private final boolean isStatic;
+
+				private boolean hasLvtInfo = false;
+
+				LocalVariableTableVisitor(String name, String desc, boolean isStatic) {
+					super(SpringAsmInfo.ASM_VERSION);
+					this.name = name;
+					this.desc = desc;
+					this.isStatic = isStatic;
+					Type[] args = Type.getArgumentTypes(desc);
+					this.parameterNames = new String[args.length];
+					this.lvtSlotIndex = new int[args.length];
+					int nextIndex = (isStatic ? 0 : 1);
+					for (int i = 0; i < args.length; i++) {
+						this.lvtSlotIndex[i] = nextIndex;
+						nextIndex += args[i].getSize();
+					}
+				}
+
+				@Override
+				public void visitLocalVariable(String name, String description, String signature,
+						Label start, Label end, int index) {
+					this.hasLvtInfo = true;
+					for (int i = 0; i < this.lvtSlotIndex.length; i++) {
+						if (this.lvtSlotIndex[i] == index) {
+							this.parameterNames[i] = name;
+						}
+					}
+				}
+
+				@Override
+				public void visitEnd() {
+					// static no-arg methods without locals never report a local variable
+					if ((this.hasLvtInfo || (this.isStatic && this.parameterNames.length == 0)) &&
+							ParameterNameCollectingVisitor.this.className != null &&
+							!ObjectUtils.containsElement(this.parameterNames, null)) {
+						add(ParameterNameCollectingVisitor.this.className, this.name, this.desc, this.parameterNames);
+					}
+				}
+			}
+		}
+	}
+
+}
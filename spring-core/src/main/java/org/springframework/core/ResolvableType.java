@@ -31,12 +31,14 @@ import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.SerializableTypeWrapper.FieldTypeProvider;
 import org.springframework.core.SerializableTypeWrapper.MethodParameterTypeProvider;
 import org.springframework.core.SerializableTypeWrapper.TypeProvider;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.CacheStatistics;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
@@ -83,6 +85,27 @@ import org.springframework.util.StringUtils;
 @SuppressWarnings("serial")
 public class ResolvableType implements Serializable {
 
+	/**
+	 * System property that instructs Spring to intern {@code ResolvableType}
+	 * instances: {@value}.
+	 * <p>If set to "true", factory methods return one shared canonical instance
+	 * for types that are equal and have an equal {@link #getSource() source}, and
+	 * that canonical instance memoises its resolved generics, interfaces, supertype
+	 * and {@link #as(Class)} results for all callers. The default is "false".
+	 * <p>Canonical instances are held strongly, so this is meant for applications
+	 * with a single application class loader, such as on Android.
+	 * @see #INTERN_MAX_ENTRIES_PROPERTY_NAME
+	 * @see #getInternStatistics()
+	 */
+	public static final String INTERN_PROPERTY_NAME = "spring.resolvabletype.intern";
+
+	/**
+	 * System property that sets the maximum number of canonical instances held
+	 * when {@link #INTERN_PROPERTY_NAME interning} is enabled: {@value}.
+	 * <p>Defaults to 4096. The least recently used instances are evicted beyond that.
+	 */
+	public static final String INTERN_MAX_ENTRIES_PROPERTY_NAME = "spring.resolvabletype.intern.max-entries";
+
 	/**
 	 * {@code ResolvableType} returned when no value is available. {@code NONE} is used
 	 * in preference to {@code null} so that multiple method calls can be safely chained.
@@ -94,6 +117,10 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	@Nullable
+	private static final ResolvableTypeInterner interner =
+			(SpringProperties.getFlag(INTERN_PROPERTY_NAME) ? new ResolvableTypeInterner() : null);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -133,6 +160,17 @@ public class ResolvableType implements Serializable {
 	@Nullable
 	private volatile ResolvableType[] generics;
 
+	@Nullable
+	private volatile Class<?>[] resolvedGenerics;
+
+	/**
+	 * Results of {@link #as(Class)}, only memoised for canonical instances.
+	 */
+	@Nullable
+	private transient volatile Map<Class<?>, ResolvableType> asTypes;
+
+	private transient volatile boolean interned;
+
 
 	/**
 	 * Private constructor used to create a new {@link ResolvableType} for cache key purposes,
@@ -447,6 +485,23 @@ public class ResolvableType implements Serializable {
 		if (resolved == null || resolved == type) {
 			return this;
 		}
+		if (this.interned) {
+			Map<Class<?>, ResolvableType> asTypes = this.asTypes;
+			if (asTypes == null) {
+				asTypes = new ConcurrentHashMap<>(4);
+				this.asTypes = asTypes;
+			}
+			ResolvableType asType = asTypes.get(type);
+			if (asType == null) {
+				asType = searchAs(type);
+				asTypes.put(type, asType);
+			}
+			return asType;
+		}
+		return searchAs(type);
+	}
+
+	private ResolvableType searchAs(Class<?> type) {
 		for (ResolvableType interfaceType : getInterfaces()) {
 			ResolvableType interfaceAsType = interfaceType.as(type);
 			if (interfaceAsType != NONE) {
@@ -723,12 +778,16 @@ public class ResolvableType implements Serializable {
 	 * @see #resolve()
 	 */
 	public Class<?>[] resolveGenerics() {
-		ResolvableType[] generics = getGenerics();
-		Class<?>[] resolvedGenerics = new Class<?>[generics.length];
-		for (int i = 0; i < generics.length; i++) {
-			resolvedGenerics[i] = generics[i].resolve();
+		Class<?>[] resolvedGenerics = this.resolvedGenerics;
+		if (resolvedGenerics == null) {
+			ResolvableType[] generics = getGenerics();
+			resolvedGenerics = new Class<?>[generics.length];
+			for (int i = 0; i < generics.length; i++) {
+				resolvedGenerics[i] = generics[i].resolve();
+			}
+			this.resolvedGenerics = resolvedGenerics;
 		}
-		return resolvedGenerics;
+		return (resolvedGenerics.length > 0 ? resolvedGenerics.clone() : resolvedGenerics);
 	}
 
 	/**
@@ -928,6 +987,14 @@ public class ResolvableType implements Serializable {
 		return hashCode;
 	}
 
+	/**
+	 * Mark this instance as the canonical instance of its type, enabling
+	 * memoisation of {@link #as(Class)} results.
+	 */
+	void markInterned() {
+		this.interned = true;
+	}
+
 	/**
 	 * Adapts this {@link ResolvableType} to a {@link VariableResolver}.
 	 */
@@ -986,7 +1053,8 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		ResolvableType resolvableType = new ResolvableType(clazz);
+		return (interner != null ? interner.getOrIntern(resolvableType) : resolvableType);
 	}
 
 	/**
@@ -1330,7 +1398,8 @@ public class ResolvableType implements Serializable {
 	public static ResolvableType forArrayComponent(ResolvableType componentType) {
 		Assert.notNull(componentType, "Component type must not be null");
 		Class<?> arrayClass = Array.newInstance(componentType.resolve(), 0).getClass();
-		return new ResolvableType(arrayClass, null, null, componentType);
+		ResolvableType resolvableType = new ResolvableType(arrayClass, null, null, componentType);
+		return (interner != null ? interner.getOrIntern(resolvableType) : resolvableType);
 	}
 
 	/**
@@ -1406,21 +1475,30 @@ public class ResolvableType implements Serializable {
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
-			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
+			ResolvableType resolvableType = new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
+			return (interner != null ? interner.getOrIntern(resolvableType) : resolvableType);
 		}
 
 		// Purge empty entries on access since we don't have a clean-up thread or the like.
 		cache.purgeUnreferencedEntries();
 
-		// Check the cache - we may have a ResolvableType which has been resolved before...
+		// Check the canonical instances first - they come with memoised generics...
 		ResolvableType resultType = new ResolvableType(type, typeProvider, variableResolver);
+		if (interner != null) {
+			ResolvableType canonicalType = interner.get(resultType);
+			if (canonicalType != null) {
+				return canonicalType;
+			}
+		}
+
+		// Check the cache - we may have a ResolvableType which has been resolved before...
 		ResolvableType cachedType = cache.get(resultType);
 		if (cachedType == null) {
 			cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
 			cache.put(cachedType, cachedType);
 		}
 		resultType.resolved = cachedType.resolved;
-		return resultType;
+		return (interner != null ? interner.intern(resultType) : resultType);
 	}
 
 	/**
@@ -1430,6 +1508,19 @@ public class ResolvableType implements Serializable {
 	public static void clearCache() {
 		cache.clear();
 		SerializableTypeWrapper.cache.clear();
+		if (interner != null) {
+			interner.clear();
+		}
+	}
+
+	/**
+	 * Return the statistics of the table of canonical instances, reporting
+	 * an empty table without budget if {@link #INTERN_PROPERTY_NAME interning}
+	 * is disabled.
+	 */
+	public static CacheStatistics getInternStatistics() {
+		return (interner != null ? interner.getStatistics() :
+				new CacheStatistics(ResolvableTypeInterner.NAME, 0, 0, 0, 0, 0, 0));
 	}
 
 
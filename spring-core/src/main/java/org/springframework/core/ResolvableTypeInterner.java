@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.BoundedLruCache;
+import org.springframework.util.CacheStatistics;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Bounded table of canonical {@link ResolvableType} instances, used by
+ * {@link ResolvableType} when {@link ResolvableType#INTERN_PROPERTY_NAME
+ * interning} is enabled.
+ *
+ * <p>Two instances share a canonical instance if they are {@link Object#equals equal}
+ * and have an equal {@link ResolvableType#getSource() source}, so that interning
+ * never changes what a caller observes. Canonical instances memoise their resolved
+ * generics, interfaces and supertype once for all callers.
+ *
+ * <p>Only types that resolve to a class which is cache-safe for the class loader
+ * of this class are interned, since canonical instances are held strongly in a
+ * {@link BoundedLruCache} which evicts the least recently used ones once the
+ * table outgrows its budget.
+ *
+ * @see ResolvableType#getInternStatistics()
+ */
+final class ResolvableTypeInterner {
+
+	/** The name of the table, as exposed in its statistics. */
+	static final String NAME = "resolvableTypes";
+
+	private static final int DEFAULT_MAX_ENTRIES = 4096;
+
+
+	@Nullable
+	private final ClassLoader cacheClassLoader = ResolvableTypeInterner.class.getClassLoader();
+
+	private final BoundedLruCache<Key, ResolvableType> entries;
+
+
+	/**
+	 * Create a new table with the budget configured through
+	 * {@value ResolvableType#INTERN_MAX_ENTRIES_PROPERTY_NAME}.
+	 */
+	ResolvableTypeInterner() {
+		this(getConfiguredMaxEntries());
+	}
+
+	/**
+	 * Create a new table.
+	 * @param maxEntries the maximum number of canonical instances held
+	 */
+	ResolvableTypeInterner(int maxEntries) {
+		this.entries = new BoundedLruCache<>(maxEntries);
+	}
+
+
+	/**
+	 * Return the canonical instance for the given type, if any.
+	 */
+	@Nullable
+	ResolvableType get(ResolvableType type) {
+		return this.entries.get(new Key(type));
+	}
+
+	/**
+	 * Return the canonical instance for the given fully resolved type, making
+	 * the given type the canonical instance if there is none yet and its class
+	 * is cache-safe.
+	 */
+	ResolvableType intern(ResolvableType type) {
+		Class<?> resolved = type.resolve();
+		if (resolved != null && !ClassUtils.isCacheSafe(resolved, this.cacheClassLoader)) {
+			return type;
+		}
+		ResolvableType existing = this.entries.putIfAbsent(new Key(type), type);
+		if (existing != null) {
+			return existing;
+		}
+		type.markInterned();
+		return type;
+	}
+
+	/**
+	 * Return the canonical instance for the given type, interning it
+	 * if necessary.
+	 */
+	ResolvableType getOrIntern(ResolvableType type) {
+		ResolvableType canonical = get(type);
+		return (canonical != null ? canonical : intern(type));
+	}
+
+	/**
+	 * Remove all canonical instances.
+	 */
+	void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this table.
+	 */
+	CacheStatistics getStatistics() {
+		return this.entries.getStatistics(NAME);
+	}
+
+	private static int getConfiguredMaxEntries() {
+		return BoundedLruCache.parseMaxEntries(
+				SpringProperties.getProperty(ResolvableType.INTERN_MAX_ENTRIES_PROPERTY_NAME), DEFAULT_MAX_ENTRIES);
+	}
+
+
+	/**
+	 * Key of the table: structural equality of the type plus equality of its source.
+	 */
+	private static final class Key {
+
+		private final ResolvableType type;
+
+		private final int hash;
+
+		Key(ResolvableType type) {
+			this.type = type;
+			this.hash = 31 * type.hashCode() + ObjectUtils.nullSafeHashCode(type.getSource());
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			ResolvableType otherType = ((Key) other).type;
+			return (this.type.getClass() == otherType.getClass() && this.type.equals(otherType) &&
+					ObjectUtils.nullSafeEquals(this.type.getSource(), otherType.getSource()));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+}
@@ -47,6 +47,9 @@ final class AnnotationTypeMappings {
 
 	private static final IntrospectionFailureLogger failureLogger = IntrospectionFailureLogger.DEBUG;
 
+	private static final BoundedAnnotationCache<Class<? extends Annotation>, AnnotationTypeMappings> plainCache =
+			new BoundedAnnotationCache<>("annotationTypeMappings", annotationType -> annotationType);
+
 	private static final Map<AnnotationFilter, Cache> cache = new ConcurrentReferenceHashMap<>();
 
 
@@ -178,10 +181,15 @@ final class AnnotationTypeMappings {
 	static AnnotationTypeMappings forAnnotationType(
 			Class<? extends Annotation> annotationType, AnnotationFilter annotationFilter) {
 
+		if (annotationFilter == AnnotationFilter.PLAIN) {
+			// The default filter: bounded cache, not cleared under memory pressure
+			return plainCache.get(annotationType, type -> new AnnotationTypeMappings(AnnotationFilter.PLAIN, type));
+		}
 		return cache.computeIfAbsent(annotationFilter, Cache::new).get(annotationType);
 	}
 
 	static void clearCache() {
+		plainCache.clear();
 		cache.clear();
 	}
 
@@ -35,6 +35,7 @@ import org.springframework.core.annotation.AnnotationTypeMapping.MirrorSets.Mirr
 import org.springframework.core.annotation.MergedAnnotation.Adapt;
 import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.lang.Nullable;
+import org.springframework.util.CacheStatistics;
 import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -109,6 +110,24 @@ public abstract class AnnotationUtils {
 	 */
 	public static final String VALUE = MergedAnnotation.VALUE;
 
+	/**
+	 * System property that sets the maximum number of entries that each internal
+	 * annotation metadata cache holds per class loader: {@value}.
+	 * <p>Defaults to 2048. The least recently used entries are evicted beyond that.
+	 * @see #getCacheStatistics()
+	 */
+	public static final String CACHE_MAX_ENTRIES_PROPERTY_NAME = "spring.annotations.cache.max-entries";
+
+	/**
+	 * System property that instructs Spring to share synthesized annotations
+	 * of the same type with identical attribute values: {@value}.
+	 * <p>Synthesizing an annotation then costs a cache lookup instead of the
+	 * creation of a new proxy, e.g. for annotations read on every invocation
+	 * of an advised method. Shared instances are held in a bounded cache.
+	 * @see #synthesizeAnnotation(Annotation, AnnotatedElement)
+	 */
+	public static final String SHARE_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME = "spring.annotations.synthesized.share";
+
 	private static final AnnotationFilter JAVA_LANG_ANNOTATION_FILTER =
 			AnnotationFilter.packages("java.lang.annotation");
 
@@ -1271,6 +1290,17 @@ public abstract class AnnotationUtils {
 	public static void clearCache() {
 		AnnotationTypeMappings.clearCache();
 		AnnotationsScanner.clearCache();
+		AttributeMethods.clearCache();
+		TypeMappedAnnotations.clearCache();
+		SynthesizedMergedAnnotationInvocationHandler.clearCache();
+	}
+
+	/**
+	 * Return the statistics of the internal annotation metadata caches.
+	 * @see #CACHE_MAX_ENTRIES_PROPERTY_NAME
+	 */
+	public static List<CacheStatistics> getCacheStatistics() {
+		return BoundedAnnotationCache.getAllStatistics();
 	}
 
 
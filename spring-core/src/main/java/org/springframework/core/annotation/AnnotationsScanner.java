@@ -22,7 +22,6 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
-import java.util.Map;
 import java.util.function.BiPredicate;
 
 import org.springframework.core.BridgeMethodResolver;
@@ -30,7 +29,6 @@ import org.springframework.core.Ordered;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.lang.Nullable;
-import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 
@@ -50,11 +48,11 @@ abstract class AnnotationsScanner {
 	private static final Method[] NO_METHODS = {};
 
 
-	private static final Map<AnnotatedElement, Annotation[]> declaredAnnotationCache =
-			new ConcurrentReferenceHashMap<>(256);
+	private static final BoundedAnnotationCache<AnnotatedElement, Annotation[]> declaredAnnotationCache =
+			new BoundedAnnotationCache<>("declaredAnnotations", BoundedAnnotationCache::getDeclaringType);
 
-	private static final Map<Class<?>, Method[]> baseTypeMethodsCache =
-			new ConcurrentReferenceHashMap<>(256);
+	private static final BoundedAnnotationCache<Class<?>, Method[]> baseTypeMethodsCache =
+			new BoundedAnnotationCache<>("baseTypeMethods", type -> type);
 
 
 	private AnnotationsScanner() {
@@ -452,8 +450,9 @@ abstract class AnnotationsScanner {
 	}
 
 	static Annotation[] getDeclaredAnnotations(AnnotatedElement source, boolean defensive) {
+		boolean cacheable = (source instanceof Class || source instanceof Member);
 		boolean cached = false;
-		Annotation[] annotations = declaredAnnotationCache.get(source);
+		Annotation[] annotations = (cacheable ? declaredAnnotationCache.get(source) : null);
 		if (annotations != null) {
 			cached = true;
 		}
@@ -472,7 +471,7 @@ abstract class AnnotationsScanner {
 					}
 				}
 				annotations = (allIgnored ? NO_ANNOTATIONS : annotations);
-				if (source instanceof Class || source instanceof Member) {
+				if (cacheable) {
 					declaredAnnotationCache.put(source, annotations);
 					cached = true;
 				}
@@ -20,11 +20,9 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Map;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
-import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * Provides a quick way to access the attribute methods of an {@link Annotation}
@@ -38,8 +36,8 @@ final class AttributeMethods {
 	static final AttributeMethods NONE = new AttributeMethods(null, new Method[0]);
 
 
-	private static final Map<Class<? extends Annotation>, AttributeMethods> cache =
-			new ConcurrentReferenceHashMap<>();
+	private static final BoundedAnnotationCache<Class<? extends Annotation>, AttributeMethods> cache =
+			new BoundedAnnotationCache<>("attributeMethods", annotationType -> annotationType);
 
 	private static final Comparator<Method> methodComparator = (m1, m2) -> {
 		if (m1 != null && m2 != null) {
@@ -252,7 +250,11 @@ final class AttributeMethods {
 		if (annotationType == null) {
 			return NONE;
 		}
-		return cache.computeIfAbsent(annotationType, AttributeMethods::compute);
+		return cache.get(annotationType, AttributeMethods::compute);
+	}
+
+	static void clearCache() {
+		cache.clear();
 	}
 
 	private static AttributeMethods compute(Class<? extends Annotation> annotationType) {
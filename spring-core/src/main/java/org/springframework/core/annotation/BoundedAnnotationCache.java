@@ -0,0 +1,264 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.BoundedLruCache;
+import org.springframework.util.CacheStatistics;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Bounded cache for annotation metadata, partitioned by class loader.
+ *
+ * <p>Entries for types that are cache-safe for the class loader of this class,
+ * i.e. loaded by it or by one of its parents, are held strongly, in one
+ * partition per class loader. Each partition holds at most a given number of
+ * entries and evicts the least recently used ones once it outgrows that budget,
+ * instead of being cleared all at once as soft references are under memory
+ * pressure. Entries for other types, e.g. from a child class loader of a web
+ * application, or whose keys refer to such types, are held softly, so that
+ * they never keep their class loader alive.
+ *
+ * <p>Each partition is a {@link BoundedLruCache}, so lookups do not block and a
+ * partition that outgrows its budget is trimmed in batches by one thread at a time.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see AnnotationUtils#getCacheStatistics()
+ */
+final class BoundedAnnotationCache<K, V> {
+
+	private static final int DEFAULT_MAX_ENTRIES = 2048;
+
+	private static final Object BOOTSTRAP_CLASS_LOADER = new Object();
+
+	private static final List<BoundedAnnotationCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+
+
+	private final String name;
+
+	private final Function<? super K, Class<?>> typeExtractor;
+
+	@Nullable
+	private final Function<? super K, Class<?>[]> referencedTypesExtractor;
+
+	private final int maxEntries;
+
+	@Nullable
+	private final ClassLoader cacheClassLoader = BoundedAnnotationCache.class.getClassLoader();
+
+	private final ConcurrentMap<Object, BoundedLruCache<K, V>> partitions = new ConcurrentHashMap<>(4);
+
+	private final Map<K, V> softEntries = new ConcurrentReferenceHashMap<>(64);
+
+	private final LongAdder softHitCount = new LongAdder();
+
+	private final LongAdder softMissCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache with the budget configured through
+	 * {@value AnnotationUtils#CACHE_MAX_ENTRIES_PROPERTY_NAME}.
+	 * @param name the name of the cache, as exposed in its statistics
+	 * @param typeExtractor the function that returns the type a key belongs to
+	 */
+	BoundedAnnotationCache(String name, Function<? super K, Class<?>> typeExtractor) {
+		this(name, typeExtractor, null, getConfiguredMaxEntries());
+	}
+
+	/**
+	 * Create a new cache with the budget configured through
+	 * {@value AnnotationUtils#CACHE_MAX_ENTRIES_PROPERTY_NAME}, for keys that
+	 * may refer to types from other class loaders than the one of their own type.
+	 * @param name the name of the cache, as exposed in its statistics
+	 * @param typeExtractor the function that returns the type a key belongs to
+	 * @param referencedTypesExtractor the function that returns the other types
+	 * a key refers to, all of which need to be cache-safe for the entry to be
+	 * held strongly
+	 */
+	BoundedAnnotationCache(String name, Function<? super K, Class<?>> typeExtractor,
+			Function<? super K, Class<?>[]> referencedTypesExtractor) {
+
+		this(name, typeExtractor, referencedTypesExtractor, getConfiguredMaxEntries());
+	}
+
+	/**
+	 * Create a new cache.
+	 * @param name the name of the cache, as exposed in its statistics
+	 * @param typeExtractor the function that returns the type a key belongs to
+	 * @param referencedTypesExtractor the function that returns the other types
+	 * a key refers to, if any
+	 * @param maxEntries the maximum number of entries per class loader
+	 */
+	BoundedAnnotationCache(String name, Function<? super K, Class<?>> typeExtractor,
+			@Nullable Function<? super K, Class<?>[]> referencedTypesExtractor, int maxEntries) {
+
+		this.name = name;
+		this.typeExtractor = typeExtractor;
+		this.referencedTypesExtractor = referencedTypesExtractor;
+		this.maxEntries = Math.max(maxEntries, 1);
+		caches.add(this);
+	}
+
+
+	/**
+	 * Return the cached value for the given key, if any.
+	 */
+	@Nullable
+	V get(K key) {
+		BoundedLruCache<K, V> partition = getPartition(key);
+		if (partition != null) {
+			return partition.get(key);
+		}
+		V value = this.softEntries.get(key);
+		(value != null ? this.softHitCount : this.softMissCount).increment();
+		return value;
+	}
+
+	/**
+	 * Return the cached value for the given key, computing and caching it
+	 * if necessary. The value may be computed more than once in case of
+	 * concurrent lookups, in which case the first one cached is returned.
+	 */
+	V get(K key, Function<? super K, ? extends V> mappingFunction) {
+		V value = get(key);
+		if (value == null) {
+			V computed = mappingFunction.apply(key);
+			value = putIfAbsent(key, computed);
+			if (value == null) {
+				value = computed;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Cache the given value for the given key.
+	 */
+	void put(K key, V value) {
+		BoundedLruCache<K, V> partition = getPartition(key);
+		if (partition != null) {
+			partition.put(key, value);
+		}
+		else {
+			this.softEntries.put(key, value);
+		}
+	}
+
+	@Nullable
+	private V putIfAbsent(K key, V value) {
+		BoundedLruCache<K, V> partition = getPartition(key);
+		if (partition != null) {
+			return partition.putIfAbsent(key, value);
+		}
+		return this.softEntries.putIfAbsent(key, value);
+	}
+
+	/**
+	 * Remove all entries from this cache.
+	 */
+	void clear() {
+		this.partitions.values().forEach(BoundedLruCache::clear);
+		this.softEntries.clear();
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this cache.
+	 */
+	CacheStatistics getStatistics() {
+		int size = this.softEntries.size();
+		long hitCount = this.softHitCount.sum();
+		long missCount = this.softMissCount.sum();
+		long evictionCount = 0;
+		for (BoundedLruCache<K, V> partition : this.partitions.values()) {
+			size += partition.size();
+			hitCount += partition.getHitCount();
+			missCount += partition.getMissCount();
+			evictionCount += partition.getEvictionCount();
+		}
+		return new CacheStatistics(this.name, size, this.maxEntries, this.partitions.size(),
+				hitCount, missCount, evictionCount);
+	}
+
+	/**
+	 * Return the partition for the class loader of the type of the given key,
+	 * or {@code null} if that type or any of the types the key refers to
+	 * is not cache-safe.
+	 */
+	@Nullable
+	private BoundedLruCache<K, V> getPartition(K key) {
+		Class<?> type = this.typeExtractor.apply(key);
+		ClassLoader classLoader = type.getClassLoader();
+		Object partitionKey = (classLoader != null ? classLoader : BOOTSTRAP_CLASS_LOADER);
+		BoundedLruCache<K, V> partition = this.partitions.get(partitionKey);
+		if (partition == null && ClassUtils.isCacheSafe(type, this.cacheClassLoader)) {
+			partition = this.partitions.computeIfAbsent(partitionKey, loader -> new BoundedLruCache<>(this.maxEntries));
+		}
+		if (partition != null && this.referencedTypesExtractor != null) {
+			for (Class<?> referencedType : this.referencedTypesExtractor.apply(key)) {
+				if (!ClassUtils.isCacheSafe(referencedType, this.cacheClassLoader)) {
+					return null;
+				}
+			}
+		}
+		return partition;
+	}
+
+
+	/**
+	 * Return the statistics of all bounded annotation caches.
+	 */
+	static List<CacheStatistics> getAllStatistics() {
+		List<CacheStatistics> statistics = new ArrayList<>(caches.size());
+		for (BoundedAnnotationCache<?, ?> cache : caches) {
+			statistics.add(cache.getStatistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Return the type that declares the given element, for use as a type extractor.
+	 */
+	static Class<?> getDeclaringType(AnnotatedElement element) {
+		if (element instanceof Class) {
+			return (Class<?>) element;
+		}
+		if (element instanceof Member) {
+			return ((Member) element).getDeclaringClass();
+		}
+		throw new IllegalArgumentException("Unsupported annotated element: " + element);
+	}
+
+	private static int getConfiguredMaxEntries() {
+		return BoundedLruCache.parseMaxEntries(
+				SpringProperties.getProperty(AnnotationUtils.CACHE_MAX_ENTRIES_PROPERTY_NAME), DEFAULT_MAX_ENTRIES);
+	}
+
+}
@@ -18,13 +18,17 @@ package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -36,6 +40,13 @@ import org.springframework.util.ReflectionUtils;
  * <em>synthesized</em> (i.e. wrapped in a dynamic proxy) with additional
  * functionality such as attribute alias handling.
  *
+ * <p>Attribute values are resolved once, when the proxy is created, and held
+ * in a final array; attribute methods return them without going through the
+ * merged annotation again. If {@link AnnotationUtils#SHARE_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME}
+ * is set, proxies are shared between synthesized annotations of the same type
+ * with identical attribute values; proxies whose type or attribute values refer
+ * to classes that are not cache-safe are only held softly.
+ *
  * @author Sam Brannen
  * @author Phillip Webb
  * @since 5.2
@@ -45,31 +56,42 @@ import org.springframework.util.ReflectionUtils;
  */
 final class SynthesizedMergedAnnotationInvocationHandler<A extends Annotation> implements InvocationHandler {
 
-	private final MergedAnnotation<?> annotation;
+	private static final boolean shareInstances =
+			SpringProperties.getFlag(AnnotationUtils.SHARE_SYNTHESIZED_ANNOTATIONS_PROPERTY_NAME);
+
+	private static final BoundedAnnotationCache<InstanceKey, Annotation> instanceCache =
+			new BoundedAnnotationCache<>("synthesizedAnnotations", key -> key.type, key -> key.referencedTypes);
+
 
 	private final Class<A> type;
 
 	private final AttributeMethods attributes;
 
+	private final Object[] values;
+
 	@Nullable
 	private volatile Integer hashCode;
 
+	@Nullable
+	private volatile String string;
+
 
-	private SynthesizedMergedAnnotationInvocationHandler(MergedAnnotation<A> annotation, Class<A> type) {
-		Assert.notNull(annotation, "MergedAnnotation must not be null");
-		Assert.notNull(type, "Type must not be null");
-		Assert.isTrue(type.isAnnotation(), "Type must be an annotation");
-		this.annotation = annotation;
+	private SynthesizedMergedAnnotationInvocationHandler(Class<A> type, AttributeMethods attributes, Object[] values) {
 		this.type = type;
-		this.attributes = AttributeMethods.forAnnotationType(type);
-		for (int i = 0; i < this.attributes.size(); i++) {
-			getAttributeValue(this.attributes.get(i));
-		}
+		this.attributes = attributes;
+		this.values = values;
 	}
 
 
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) {
+		if (args == null) {
+			// Attribute methods never take arguments
+			int index = this.attributes.indexOf(method.getName());
+			if (index != -1) {
+				return getAttributeValue(index);
+			}
+		}
 		if (ReflectionUtils.isEqualsMethod(method)) {
 			return annotationEquals(args[0]);
 		}
@@ -77,14 +99,11 @@ final class SynthesizedMergedAnnotationInvocationHandler<A extends Annotation> i
 			return annotationHashCode();
 		}
 		if (ReflectionUtils.isToStringMethod(method)) {
-			return this.annotation.toString();
+			return annotationToString();
 		}
 		if (isAnnotationTypeMethod(method)) {
 			return this.type;
 		}
-		if (this.attributes.indexOf(method.getName()) != -1) {
-			return getAttributeValue(method);
-		}
 		throw new AnnotationConfigurationException(String.format(
 				"Method [%s] is unsupported for synthesized annotation type [%s]", method, this.type));
 	}
@@ -104,9 +123,13 @@ final class SynthesizedMergedAnnotationInvocationHandler<A extends Annotation> i
 		if (!this.type.isInstance(other)) {
 			return false;
 		}
+		SynthesizedMergedAnnotationInvocationHandler<?> otherHandler = getHandler(other);
+		if (otherHandler != null) {
+			return Arrays.deepEquals(this.values, otherHandler.values);
+		}
 		for (int i = 0; i < this.attributes.size(); i++) {
 			Method attribute = this.attributes.get(i);
-			Object thisValue = getAttributeValue(attribute);
+			Object thisValue = this.values[i];
 			Object otherValue = ReflectionUtils.invokeMethod(attribute, other);
 			if (!ObjectUtils.nullSafeEquals(thisValue, otherValue)) {
 				return false;
@@ -127,11 +150,48 @@ final class SynthesizedMergedAnnotationInvocationHandler<A extends Annotation> i
 		return hashCode;
 	}
 
+	private String annotationToString() {
+		String string = this.string;
+		if (string == null) {
+			StringBuilder builder = new StringBuilder("@").append(this.type.getName()).append("(");
+			for (int i = 0; i < this.attributes.size(); i++) {
+				builder.append(i == 0 ? "" : ", ");
+				builder.append(this.attributes.get(i).getName());
+				builder.append("=");
+				builder.append(toString(this.values[i]));
+			}
+			builder.append(")");
+			string = builder.toString();
+			this.string = string;
+		}
+		return string;
+	}
+
+	/**
+	 * Render the given attribute value like {@link MergedAnnotation#toString()} does,
+	 * since the merged annotation is not retained by shared proxies.
+	 */
+	private String toString(Object value) {
+		if (value instanceof Class) {
+			return ((Class<?>) value).getName();
+		}
+		if (value.getClass().isArray()) {
+			StringBuilder builder = new StringBuilder("[");
+			for (int i = 0; i < Array.getLength(value); i++) {
+				builder.append(i == 0 ? "" : ", ");
+				builder.append(toString(Array.get(value, i)));
+			}
+			builder.append("]");
+			return builder.toString();
+		}
+		return String.valueOf(value);
+	}
+
 	private Integer computeHashCode() {
 		int hashCode = 0;
 		for (int i = 0; i < this.attributes.size(); i++) {
 			Method attribute = this.attributes.get(i);
-			Object value = getAttributeValue(attribute);
+			Object value = this.values[i];
 			hashCode += (127 * attribute.getName().hashCode()) ^ getValueHashCode(value);
 		}
 		return hashCode;
@@ -170,18 +230,93 @@ final class SynthesizedMergedAnnotationInvocationHandler<A extends Annotation> i
 		return value.hashCode();
 	}
 
-	private Object getAttributeValue(Method method) {
-		String name = method.getName();
-		Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType());
-		return this.annotation.getValue(name, type).orElseThrow(
-				() -> new NoSuchElementException("No value found for attribute named '" + name +
-						"' in merged annotation " + this.annotation.getType().getName()));
+	/**
+	 * Return the value of the attribute at the given index, cloning non-empty
+	 * arrays since the values are shared between invocations.
+	 */
+	private Object getAttributeValue(int index) {
+		Object value = this.values[index];
+		if (value instanceof Object[]) {
+			Object[] array = (Object[]) value;
+			return (array.length > 0 ? array.clone() : array);
+		}
+		if (value.getClass().isArray() && Array.getLength(value) > 0) {
+			return cloneArray(value);
+		}
+		return value;
+	}
+
+	private static Object cloneArray(Object array) {
+		if (array instanceof boolean[]) {
+			return ((boolean[]) array).clone();
+		}
+		if (array instanceof byte[]) {
+			return ((byte[]) array).clone();
+		}
+		if (array instanceof char[]) {
+			return ((char[]) array).clone();
+		}
+		if (array instanceof double[]) {
+			return ((double[]) array).clone();
+		}
+		if (array instanceof float[]) {
+			return ((float[]) array).clone();
+		}
+		if (array instanceof int[]) {
+			return ((int[]) array).clone();
+		}
+		if (array instanceof long[]) {
+			return ((long[]) array).clone();
+		}
+		return ((short[]) array).clone();
+	}
+
+	private static Object[] getAttributeValues(MergedAnnotation<?> annotation, AttributeMethods attributes) {
+		Object[] values = new Object[attributes.size()];
+		for (int i = 0; i < values.length; i++) {
+			Method method = attributes.get(i);
+			String name = method.getName();
+			Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType());
+			values[i] = annotation.getValue(name, type).orElseThrow(
+					() -> new NoSuchElementException("No value found for attribute named '" + name +
+							"' in merged annotation " + annotation.getType().getName()));
+		}
+		return values;
+	}
+
+	@Nullable
+	private static SynthesizedMergedAnnotationInvocationHandler<?> getHandler(Object annotation) {
+		if (Proxy.isProxyClass(annotation.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(annotation);
+			if (handler instanceof SynthesizedMergedAnnotationInvocationHandler) {
+				return (SynthesizedMergedAnnotationInvocationHandler<?>) handler;
+			}
+		}
+		return null;
+	}
+
+	static void clearCache() {
+		instanceCache.clear();
 	}
 
 	@SuppressWarnings("unchecked")
 	static <A extends Annotation> A createProxy(MergedAnnotation<A> annotation, Class<A> type) {
+		Assert.notNull(annotation, "MergedAnnotation must not be null");
+		Assert.notNull(type, "Type must not be null");
+		Assert.isTrue(type.isAnnotation(), "Type must be an annotation");
+		AttributeMethods attributes = AttributeMethods.forAnnotationType(type);
+		Object[] values = getAttributeValues(annotation, attributes);
+		if (shareInstances) {
+			return (A) instanceCache.get(new InstanceKey(type, values),
+					key -> createProxy(type, attributes, values));
+		}
+		return createProxy(type, attributes, values);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A extends Annotation> A createProxy(Class<A> type, AttributeMethods attributes, Object[] values) {
 		ClassLoader classLoader = type.getClassLoader();
-		InvocationHandler handler = new SynthesizedMergedAnnotationInvocationHandler<>(annotation, type);
+		InvocationHandler handler = new SynthesizedMergedAnnotationInvocationHandler<>(type, attributes, values);
 		Class<?>[] interfaces = isVisible(classLoader, SynthesizedAnnotation.class) ?
 				new Class<?>[] {type, SynthesizedAnnotation.class} : new Class<?>[] {type};
 		return (A) Proxy.newProxyInstance(classLoader, interfaces, handler);
@@ -196,4 +331,69 @@ final class SynthesizedMergedAnnotationInvocationHandler<A extends Annotation> i
 		}
 	}
 
+
+	/**
+	 * Key for shared proxies: an annotation type and its attribute values.
+	 */
+	private static final class InstanceKey {
+
+		private static final Class<?>[] NO_TYPES = new Class<?>[0];
+
+		final Class<?> type;
+
+		/** Classes, enum types and annotation types among the attribute values. */
+		final Class<?>[] referencedTypes;
+
+		private final Object[] values;
+
+		private final int hashCode;
+
+		InstanceKey(Class<?> type, Object[] values) {
+			this.type = type;
+			this.values = values;
+			this.hashCode = type.hashCode() * 31 + Arrays.deepHashCode(values);
+			Set<Class<?>> referencedTypes = new LinkedHashSet<>();
+			collectReferencedTypes(values, referencedTypes);
+			this.referencedTypes = (referencedTypes.isEmpty() ? NO_TYPES : referencedTypes.toArray(NO_TYPES));
+		}
+
+		private static void collectReferencedTypes(Object[] values, Set<Class<?>> referencedTypes) {
+			for (Object value : values) {
+				if (value instanceof Object[]) {
+					collectReferencedTypes((Object[]) value, referencedTypes);
+				}
+				else if (value instanceof Class) {
+					referencedTypes.add((Class<?>) value);
+				}
+				else if (value instanceof Enum) {
+					referencedTypes.add(((Enum<?>) value).getDeclaringClass());
+				}
+				else if (value instanceof Annotation) {
+					referencedTypes.add(((Annotation) value).annotationType());
+					SynthesizedMergedAnnotationInvocationHandler<?> handler = getHandler(value);
+					if (handler != null) {
+						collectReferencedTypes(handler.values, referencedTypes);
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof InstanceKey)) {
+				return false;
+			}
+			InstanceKey otherKey = (InstanceKey) other;
+			return (this.type == otherKey.type && Arrays.deepEquals(this.values, otherKey.values));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -46,6 +47,13 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 	static final MergedAnnotations NONE = new TypeMappedAnnotations(
 			null, new Annotation[0], RepeatableContainers.none(), AnnotationFilter.ALL);
 
+	/**
+	 * Cache of instances for classes and members with the default repeatable
+	 * containers and filter, keeping their aggregates once scanned.
+	 */
+	private static final BoundedAnnotationCache<ElementKey, TypeMappedAnnotations> cache =
+			new BoundedAnnotationCache<>("mergedAnnotations", key -> BoundedAnnotationCache.getDeclaringType(key.element));
+
 
 	@Nullable
 	private final Object source;
@@ -251,6 +259,12 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		if (AnnotationsScanner.isKnownEmpty(element, searchStrategy)) {
 			return NONE;
 		}
+		if ((element instanceof Class || element instanceof Member) &&
+				repeatableContainers == RepeatableContainers.standardRepeatables() &&
+				annotationFilter == AnnotationFilter.PLAIN) {
+			return cache.get(new ElementKey(element, searchStrategy), key -> new TypeMappedAnnotations(
+					element, searchStrategy, repeatableContainers, annotationFilter));
+		}
 		return new TypeMappedAnnotations(element, searchStrategy, repeatableContainers, annotationFilter);
 	}
 
@@ -263,6 +277,10 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		return new TypeMappedAnnotations(source, annotations, repeatableContainers, annotationFilter);
 	}
 
+	static void clearCache() {
+		cache.clear();
+	}
+
 	private static boolean isMappingForType(AnnotationTypeMapping mapping,
 			AnnotationFilter annotationFilter, @Nullable Object requiredType) {
 
@@ -272,6 +290,39 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 	}
 
 
+	/**
+	 * Key for cached instances: an annotated element and a search strategy.
+	 */
+	private static final class ElementKey {
+
+		final AnnotatedElement element;
+
+		final SearchStrategy searchStrategy;
+
+		ElementKey(AnnotatedElement element, SearchStrategy searchStrategy) {
+			this.element = element;
+			this.searchStrategy = searchStrategy;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ElementKey)) {
+				return false;
+			}
+			ElementKey otherKey = (ElementKey) other;
+			return (this.element.equals(otherKey.element) && this.searchStrategy == otherKey.searchStrategy);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.element.hashCode() * 31 + this.searchStrategy.hashCode());
+		}
+	}
+
+
 	/**
 	 * {@link AnnotationsProcessor} used to detect if an annotation is directly
 	 * present or meta-present.
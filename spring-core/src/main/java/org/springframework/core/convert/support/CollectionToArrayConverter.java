@@ -69,6 +69,10 @@ final class CollectionToArrayConverter implements ConditionalGenericConverter {
 		Collection<?> sourceCollection = (Collection<?>) source;
 		TypeDescriptor targetElementType = targetType.getElementTypeDescriptor();
 		Assert.state(targetElementType != null, "No target element type");
+		if (ConversionUtils.canConvertElementsInBatch(sourceType, targetType, this.conversionService)) {
+			return ((ConfigurableConversionService) this.conversionService)
+					.convertElementsToArray(sourceCollection, targetElementType.getType());
+		}
 		Object array = Array.newInstance(targetElementType.getType(), sourceCollection.size());
 		int i = 0;
 		for (Object sourceElement : sourceCollection) {
@@ -18,6 +18,8 @@ package org.springframework.core.convert.support;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.core.CollectionFactory;
@@ -84,6 +86,17 @@ final class CollectionToCollectionConverter implements ConditionalGenericConvert
 		if (elementDesc == null) {
 			target.addAll(sourceCollection);
 		}
+		else if (ConversionUtils.canConvertElementsInBatch(sourceType, targetType, this.conversionService)) {
+			List<?> targetElements = ((ConfigurableConversionService) this.conversionService)
+					.convertElements(sourceCollection, elementDesc.getType());
+			Iterator<?> sourceElements = sourceCollection.iterator();
+			for (Object targetElement : targetElements) {
+				target.add(targetElement);
+				if (sourceElements.next() != targetElement) {
+					copyRequired = true;
+				}
+			}
+		}
 		else {
 			for (Object sourceElement : sourceCollection) {
 				Object targetElement = this.conversionService.convert(sourceElement,
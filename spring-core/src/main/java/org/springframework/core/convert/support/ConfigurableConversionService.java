@@ -16,6 +16,13 @@
 
 package org.springframework.core.convert.support;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.converter.ConverterRegistry;
 
@@ -36,4 +43,68 @@ import org.springframework.core.convert.converter.ConverterRegistry;
  */
 public interface ConfigurableConversionService extends ConversionService, ConverterRegistry {
 
+	/**
+	 * Convert all elements of the given collection to the given type.
+	 * <p>The default implementation calls {@link #convert(Object, Class)} for
+	 * each element. Implementations may resolve the converter for each element
+	 * class once per batch instead.
+	 * @param source the collection to convert the elements of
+	 * @param targetElementType the type to convert the elements to
+	 * @return a new list with the converted elements, in the iteration order of the source
+	 * @throws org.springframework.core.convert.ConversionException if an element cannot be converted
+	 */
+	default <T> List<T> convertElements(Collection<?> source, Class<T> targetElementType) {
+		List<T> result = new ArrayList<>(source.size());
+		for (Object element : source) {
+			result.add(convert(element, targetElementType));
+		}
+		return result;
+	}
+
+	/**
+	 * Lazily convert all elements of the given stream to the given type.
+	 * @param source the stream to convert the elements of
+	 * @param targetElementType the type to convert the elements to
+	 * @return a stream of the converted elements
+	 * @see #convertElements(Collection, Class)
+	 */
+	default <T> Stream<T> convertElements(Stream<?> source, Class<T> targetElementType) {
+		return source.map(element -> convert(element, targetElementType));
+	}
+
+	/**
+	 * Convert all elements of the given collection or array to the given type,
+	 * into a new array of that type.
+	 * @param source the collection or array to convert the elements of
+	 * @param targetComponentType the type to convert the elements to,
+	 * possibly a primitive type
+	 * @return the new array, e.g. an {@code int[]} for {@code int.class}
+	 * @throws org.springframework.core.convert.ConversionException if an element cannot be converted
+	 * @see #convertElementsToArray(Object, Class, boolean)
+	 */
+	default Object convertElementsToArray(Object source, Class<?> targetComponentType) {
+		return convertElementsToArray(source, targetComponentType, false);
+	}
+
+	/**
+	 * Convert all elements of the given collection or array to the given type,
+	 * into a new array of that type, optionally in parallel.
+	 * <p>Converting in parallel only pays off for large inputs, and requires
+	 * thread-safe converters.
+	 * @param source the collection or array to convert the elements of
+	 * @param targetComponentType the type to convert the elements to,
+	 * possibly a primitive type
+	 * @param parallel whether to convert the elements on the common fork-join pool
+	 * @return the new array, e.g. an {@code int[]} for {@code int.class}
+	 * @throws org.springframework.core.convert.ConversionException if an element cannot be converted
+	 */
+	default Object convertElementsToArray(Object source, Class<?> targetComponentType, boolean parallel) {
+		Object[] elements = ConversionUtils.toElementArray(source);
+		Object result = Array.newInstance(targetComponentType, elements.length);
+		IntStream indexes = IntStream.range(0, elements.length);
+		(parallel ? indexes.parallel() : indexes).forEach(i ->
+				ConversionUtils.setArrayElement(result, i, convert(elements[i], targetComponentType)));
+		return result;
+	}
+
 }
@@ -16,6 +16,9 @@
 
 package org.springframework.core.convert.support;
 
+import java.lang.reflect.Array;
+import java.util.Collection;
+
 import org.springframework.core.convert.ConversionFailedException;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
@@ -23,6 +26,7 @@ import org.springframework.core.convert.converter.GenericConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Internal utilities for the conversion package.
@@ -71,6 +75,61 @@ abstract class ConversionUtils {
 		return false;
 	}
 
+	/**
+	 * Return whether elements can be converted between the given collection or
+	 * array types through the batch operations of a {@link ConfigurableConversionService},
+	 * i.e. whether the element types carry neither annotations nor generics that a
+	 * converter could depend on.
+	 */
+	public static boolean canConvertElementsInBatch(TypeDescriptor sourceType, TypeDescriptor targetType,
+			ConversionService conversionService) {
+
+		if (!(conversionService instanceof ConfigurableConversionService)) {
+			return false;
+		}
+		TypeDescriptor sourceElementType = sourceType.getElementTypeDescriptor();
+		TypeDescriptor targetElementType = targetType.getElementTypeDescriptor();
+		return (targetElementType != null && isPlain(targetElementType) &&
+				(sourceElementType != null ? isPlain(sourceElementType) : sourceType.getAnnotations().length == 0));
+	}
+
+	private static boolean isPlain(TypeDescriptor typeDescriptor) {
+		return (typeDescriptor.getAnnotations().length == 0 && !typeDescriptor.getResolvableType().hasGenerics());
+	}
+
+	/**
+	 * Return the elements of the given collection or array, boxing primitives.
+	 */
+	public static Object[] toElementArray(Object source) {
+		if (source instanceof Collection) {
+			return ((Collection<?>) source).toArray();
+		}
+		Assert.isTrue(source.getClass().isArray(), "Source must be a Collection or an array");
+		return ObjectUtils.toObjectArray(source);
+	}
+
+	/**
+	 * Set an element of the given array, unboxing it for primitive arrays.
+	 * Avoids the native {@link Array#set} for the common array types.
+	 */
+	public static void setArrayElement(Object array, int index, @Nullable Object value) {
+		if (array instanceof Object[]) {
+			((Object[]) array)[index] = value;
+		}
+		else if (array instanceof int[]) {
+			((int[]) array)[index] = (Integer) value;
+		}
+		else if (array instanceof long[]) {
+			((long[]) array)[index] = (Long) value;
+		}
+		else if (array instanceof double[]) {
+			((double[]) array)[index] = (Double) value;
+		}
+		else {
+			Array.set(array, index, value);
+		}
+	}
+
 	public static Class<?> getEnumType(Class<?> targetType) {
 		Class<?> enumType = targetType;
 		while (enumType != null && !enumType.isEnum()) {
@@ -17,7 +17,9 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -46,6 +48,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -78,6 +81,13 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	/** Converters for plain class pairs, by source class and then by target class. */
+	private final Map<Class<?>, Map<Class<?>, ClassPairConverter>> classPairCache =
+			new ConcurrentReferenceHashMap<>(64);
+
+	/** Whether a subclass customizes the converter lookup or the conversion itself. */
+	private final boolean classPairCacheApplicable = !overridesConversionHooks(getClass());
+
 
 	// ConverterRegistry implementation
 
@@ -132,6 +142,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (sourceType != null && this.classPairCacheApplicable) {
+			return (getClassPairConverter(sourceType, targetType).converter != null);
+		}
 		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
 				TypeDescriptor.valueOf(targetType));
 	}
@@ -171,6 +184,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (source != null && this.classPairCacheApplicable) {
+			return (T) getClassPairConverter(source.getClass(), targetType).convert(source);
+		}
 		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
 	}
 
@@ -212,6 +228,37 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return convert(source, TypeDescriptor.forObject(source), targetType);
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> convertElements(Collection<?> source, Class<T> targetElementType) {
+		Assert.notNull(targetElementType, "Target type to convert to cannot be null");
+		if (!this.classPairCacheApplicable) {
+			return ConfigurableConversionService.super.convertElements(source, targetElementType);
+		}
+		ElementConverter converter = new ElementConverter(targetElementType);
+		List<T> result = new ArrayList<>(source.size());
+		for (Object element : source) {
+			result.add((T) converter.convert(element));
+		}
+		return result;
+	}
+
+	@Override
+	public Object convertElementsToArray(Object source, Class<?> targetComponentType, boolean parallel) {
+		Assert.notNull(targetComponentType, "Target type to convert to cannot be null");
+		if (!this.classPairCacheApplicable || parallel) {
+			// Parallel conversion goes through the thread-safe class pair cache for each element
+			return ConfigurableConversionService.super.convertElementsToArray(source, targetComponentType, parallel);
+		}
+		Object[] elements = ConversionUtils.toElementArray(source);
+		Object result = Array.newInstance(targetComponentType, elements.length);
+		ElementConverter converter = new ElementConverter(targetComponentType);
+		for (int i = 0; i < elements.length; i++) {
+			ConversionUtils.setArrayElement(result, i, converter.convert(elements[i]));
+		}
+		return result;
+	}
+
 	@Override
 	public String toString() {
 		return this.converters.toString();
@@ -304,6 +351,40 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.classPairCache.clear();
+	}
+
+	/**
+	 * Return the converter for the given pair of plain classes, looked up by
+	 * identity without creating any {@link TypeDescriptor} once cached.
+	 */
+	private ClassPairConverter getClassPairConverter(Class<?> sourceType, Class<?> targetType) {
+		Map<Class<?>, ClassPairConverter> convertersForSource = this.classPairCache.get(sourceType);
+		if (convertersForSource == null) {
+			convertersForSource = this.classPairCache.computeIfAbsent(
+					sourceType, key -> new ConcurrentReferenceHashMap<>(8));
+		}
+		ClassPairConverter converter = convertersForSource.get(targetType);
+		if (converter == null) {
+			TypeDescriptor sourceDescriptor = TypeDescriptor.valueOf(sourceType);
+			TypeDescriptor targetDescriptor = TypeDescriptor.valueOf(targetType);
+			converter = new ClassPairConverter(
+					sourceDescriptor, targetDescriptor, getConverter(sourceDescriptor, targetDescriptor));
+			convertersForSource.put(targetType, converter);
+		}
+		return converter;
+	}
+
+	private static boolean overridesConversionHooks(Class<?> serviceClass) {
+		if (serviceClass == GenericConversionService.class || serviceClass == DefaultConversionService.class) {
+			return false;
+		}
+		Method convert = ReflectionUtils.findMethod(
+				serviceClass, "convert", Object.class, TypeDescriptor.class, TypeDescriptor.class);
+		Method getConverter = ReflectionUtils.findMethod(
+				serviceClass, "getConverter", TypeDescriptor.class, TypeDescriptor.class);
+		return (convert == null || convert.getDeclaringClass() != GenericConversionService.class ||
+				getConverter == null || getConverter.getDeclaringClass() != GenericConversionService.class);
 	}
 
 	@Nullable
@@ -494,6 +575,102 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Cached conversion between two plain classes, with their type descriptors.
+	 * Plain {@link Converter Converters} and {@link ConverterFactory ConverterFactories}
+	 * are called directly, bypassing their {@link GenericConverter} adapter.
+	 */
+	private final class ClassPairConverter {
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		@Nullable
+		private final GenericConverter converter;
+
+		@Nullable
+		private final Converter<Object, ?> directConverter;
+
+		ClassPairConverter(TypeDescriptor sourceType, TypeDescriptor targetType, @Nullable GenericConverter converter) {
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.converter = converter;
+			if (converter instanceof ConverterAdapter) {
+				this.directConverter = ((ConverterAdapter) converter).converter;
+			}
+			else if (converter instanceof ConverterFactoryAdapter) {
+				this.directConverter = ((ConverterFactoryAdapter) converter).converterFactory.getConverter(
+						targetType.getObjectType());
+			}
+			else if (converter == NO_OP_CONVERTER) {
+				this.directConverter = source -> source;
+			}
+			else {
+				this.directConverter = null;
+			}
+		}
+
+		@Nullable
+		Object convert(Object source) {
+			if (this.converter == null) {
+				return handleConverterNotFound(source, this.sourceType, this.targetType);
+			}
+			Object result;
+			if (this.directConverter != null) {
+				try {
+					result = this.directConverter.convert(source);
+				}
+				catch (ConversionFailedException ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new ConversionFailedException(this.sourceType, this.targetType, source, ex);
+				}
+			}
+			else {
+				result = ConversionUtils.invokeConverter(this.converter, source, this.sourceType, this.targetType);
+			}
+			return handleResult(this.sourceType, this.targetType, result);
+		}
+	}
+
+
+	/**
+	 * Converts the elements of a batch to a single target type, holding on to
+	 * the converter for the class of the last element. Not thread-safe.
+	 */
+	private final class ElementConverter {
+
+		private final Class<?> targetType;
+
+		@Nullable
+		private Class<?> lastSourceType;
+
+		@Nullable
+		private ClassPairConverter lastConverter;
+
+		ElementConverter(Class<?> targetType) {
+			this.targetType = targetType;
+		}
+
+		@Nullable
+		Object convert(@Nullable Object element) {
+			if (element == null) {
+				return GenericConversionService.this.convert(null, this.targetType);
+			}
+			Class<?> sourceType = element.getClass();
+			ClassPairConverter converter = this.lastConverter;
+			if (converter == null || sourceType != this.lastSourceType) {
+				converter = getClassPairConverter(sourceType, this.targetType);
+				this.lastSourceType = sourceType;
+				this.lastConverter = converter;
+			}
+			return converter.convert(element);
+		}
+	}
+
+
 	/**
 	 * Manages all converters registered with the service.
 	 */
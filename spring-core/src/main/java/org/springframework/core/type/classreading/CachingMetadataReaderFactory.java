@@ -44,6 +44,10 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	@Nullable
 	private Map<Resource, MetadataReader> metadataReaderCache;
 
+	/** Optional persistent store of class metadata snapshots. */
+	@Nullable
+	private MetadataSnapshotStore metadataSnapshotStore;
+
 
 	/**
 	 * Create a new CachingMetadataReaderFactory for the default class loader,
@@ -114,13 +118,35 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	}
 
 
+	/**
+	 * Specify a store for snapshots of the class metadata read by this factory.
+	 * <p>Metadata missing from the MetadataReader cache is looked up in the store
+	 * before the class is read, and recorded in it after the class has been read.
+	 * With a persistent store, such as a {@link FileMetadataSnapshotStore}, the
+	 * classes read on a previous run are not parsed again, as long as their
+	 * resources report the same last-modified timestamp.
+	 * <p>Default is none.
+	 */
+	public void setMetadataSnapshotStore(@Nullable MetadataSnapshotStore metadataSnapshotStore) {
+		this.metadataSnapshotStore = metadataSnapshotStore;
+	}
+
+	/**
+	 * Return the store for class metadata snapshots, if any.
+	 */
+	@Nullable
+	public MetadataSnapshotStore getMetadataSnapshotStore() {
+		return this.metadataSnapshotStore;
+	}
+
+
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
 		if (this.metadataReaderCache instanceof ConcurrentMap) {
 			// No synchronization necessary...
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
+				metadataReader = createMetadataReader(resource);
 				this.metadataReaderCache.put(resource, metadataReader);
 			}
 			return metadataReader;
@@ -129,15 +155,58 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 			synchronized (this.metadataReaderCache) {
 				MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 				if (metadataReader == null) {
-					metadataReader = super.getMetadataReader(resource);
+					metadataReader = createMetadataReader(resource);
 					this.metadataReaderCache.put(resource, metadataReader);
 				}
 				return metadataReader;
 			}
 		}
 		else {
+			return createMetadataReader(resource);
+		}
+	}
+
+	private MetadataReader createMetadataReader(Resource resource) throws IOException {
+		MetadataSnapshotStore store = this.metadataSnapshotStore;
+		String key = (store != null ? getSnapshotKey(resource) : null);
+		if (store == null || key == null) {
 			return super.getMetadataReader(resource);
 		}
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		byte[] snapshot = store.get(key);
+		if (snapshot != null) {
+			SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
+			try {
+				MetadataSnapshot.replay(snapshot, visitor);
+				return new SimpleMetadataReader(resource, visitor.getMetadata());
+			}
+			catch (IOException | RuntimeException ex) {
+				// corrupt or outdated snapshot - read the class and replace it
+			}
+		}
+		SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
+		MetadataSnapshot.Recorder recorder = new MetadataSnapshot.Recorder(visitor);
+		accept(resource, recorder);
+		snapshot = recorder.getSnapshot();
+		if (snapshot != null) {
+			store.put(key, snapshot);
+		}
+		return new SimpleMetadataReader(resource, visitor.getMetadata());
+	}
+
+	/**
+	 * Return the snapshot key for the given resource: its description plus its
+	 * last-modified timestamp, or {@code null} if the timestamp is not known.
+	 */
+	@Nullable
+	private static String getSnapshotKey(Resource resource) {
+		try {
+			long lastModified = resource.lastModified();
+			return (lastModified > 0 ? resource.getDescription() + '@' + lastModified : null);
+		}
+		catch (IOException ex) {
+			return null;
+		}
 	}
 
 	/**
@@ -0,0 +1,624 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.UTFDataFormatException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads the class definitions of a single DEX file and reports their
+ * annotations, type hierarchy and methods to an ASM {@link ClassVisitor},
+ * the way an ASM {@link org.springframework.asm.ClassReader} reports them
+ * from a class file with {@code SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES}.
+ *
+ * <p>All reads are absolute reads on the given buffer, typically a memory-mapped
+ * file, so a reader can be shared between threads. Nothing is loaded into the VM:
+ * annotation types, enum constants and class literals are reported by name.
+ *
+ * @see DexMetadataReaderFactory
+ */
+final class DexClassReader {
+
+	private static final int NO_INDEX = -1;
+
+	private static final int CLASS_DEF_SIZE = 32;
+
+	// Annotation visibilities
+	private static final int VISIBILITY_BUILD = 0;
+
+	private static final int VISIBILITY_RUNTIME = 1;
+
+	// Encoded value types
+	private static final int VALUE_BYTE = 0x00;
+
+	private static final int VALUE_SHORT = 0x02;
+
+	private static final int VALUE_CHAR = 0x03;
+
+	private static final int VALUE_INT = 0x04;
+
+	private static final int VALUE_LONG = 0x06;
+
+	private static final int VALUE_FLOAT = 0x10;
+
+	private static final int VALUE_DOUBLE = 0x11;
+
+	private static final int VALUE_METHOD_TYPE = 0x15;
+
+	private static final int VALUE_METHOD_HANDLE = 0x16;
+
+	private static final int VALUE_STRING = 0x17;
+
+	private static final int VALUE_TYPE = 0x18;
+
+	private static final int VALUE_FIELD = 0x19;
+
+	private static final int VALUE_METHOD = 0x1a;
+
+	private static final int VALUE_ENUM = 0x1b;
+
+	private static final int VALUE_ARRAY = 0x1c;
+
+	private static final int VALUE_ANNOTATION = 0x1d;
+
+	private static final int VALUE_NULL = 0x1e;
+
+	private static final int VALUE_BOOLEAN = 0x1f;
+
+	// Dex-only access flags, and the mask of flags shared with class files
+	private static final int ACC_DECLARED_SYNCHRONIZED = 0x20000;
+
+	private static final int ACC_CLASS_FILE_MASK = 0xFFFF;
+
+	private static final String ENCLOSING_CLASS = "Ldalvik/annotation/EnclosingClass;";
+
+	private static final String ENCLOSING_METHOD = "Ldalvik/annotation/EnclosingMethod;";
+
+	private static final String INNER_CLASS = "Ldalvik/annotation/InnerClass;";
+
+	private static final String MEMBER_CLASSES = "Ldalvik/annotation/MemberClasses;";
+
+
+	private final ByteBuffer dex;
+
+	private final String[] strings;
+
+	private final int stringIdsOff;
+
+	private final int typeIdsOff;
+
+	private final int protoIdsOff;
+
+	private final int fieldIdsOff;
+
+	private final int methodIdsOff;
+
+	private final int classDefsOff;
+
+	/** Class def offsets by class name, in the order of the DEX file. */
+	private final Map<String, Integer> classDefs;
+
+
+	/**
+	 * Create a new reader for the given DEX file contents.
+	 * @param dex the DEX file, from position 0 to its limit
+	 * @throws IllegalArgumentException if the buffer does not hold a DEX file
+	 */
+	DexClassReader(ByteBuffer dex) {
+		this.dex = dex.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (this.dex.limit() < 0x70 || this.dex.get(0) != 'd' || this.dex.get(1) != 'e' ||
+				this.dex.get(2) != 'x' || this.dex.get(3) != '\n') {
+			throw new IllegalArgumentException("Not a DEX file");
+		}
+		this.strings = new String[this.dex.getInt(56)];
+		this.stringIdsOff = this.dex.getInt(60);
+		this.typeIdsOff = this.dex.getInt(68);
+		this.protoIdsOff = this.dex.getInt(76);
+		this.fieldIdsOff = this.dex.getInt(84);
+		this.methodIdsOff = this.dex.getInt(92);
+		this.classDefsOff = this.dex.getInt(100);
+		int classDefsSize = this.dex.getInt(96);
+		Map<String, Integer> classDefs = new LinkedHashMap<>(classDefsSize * 4 / 3 + 1);
+		for (int i = 0; i < classDefsSize; i++) {
+			int classDefOff = this.classDefsOff + i * CLASS_DEF_SIZE;
+			classDefs.put(toClassName(typeDescriptor(this.dex.getInt(classDefOff))), classDefOff);
+		}
+		this.classDefs = Collections.unmodifiableMap(classDefs);
+	}
+
+
+	/**
+	 * Return the names of all classes defined in this DEX file.
+	 */
+	Iterable<String> getClassNames() {
+		return this.classDefs.keySet();
+	}
+
+	/**
+	 * Return whether this DEX file defines the given class.
+	 */
+	boolean hasClass(String className) {
+		return this.classDefs.containsKey(className);
+	}
+
+	/**
+	 * Make the given visitor visit the given class of this DEX file.
+	 * @param className the name of the class to visit
+	 * @param visitor the visitor to report the class to
+	 */
+	void accept(String className, ClassVisitor visitor) {
+		Integer classDefOff = this.classDefs.get(className);
+		if (classDefOff == null) {
+			throw new IllegalArgumentException("Class " + className + " is not defined in this DEX file");
+		}
+		int off = classDefOff;
+		String name = typeInternalName(this.dex.getInt(off));
+		int access = this.dex.getInt(off + 4) & ACC_CLASS_FILE_MASK;
+		int superclassIdx = this.dex.getInt(off + 8);
+		int interfacesOff = this.dex.getInt(off + 12);
+		int annotationsOff = this.dex.getInt(off + 20);
+		int classDataOff = this.dex.getInt(off + 24);
+
+		String[] interfaces = new String[interfacesOff != 0 ? this.dex.getInt(interfacesOff) : 0];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = typeInternalName(ushort(interfacesOff + 4 + i * 2));
+		}
+		visitor.visit(Opcodes.V1_8, access, name, null,
+				(superclassIdx != NO_INDEX ? typeInternalName(superclassIdx) : null), interfaces);
+
+		int classAnnotationsOff = 0;
+		Map<Integer, Integer> methodAnnotations = Collections.emptyMap();
+		if (annotationsOff != 0) {
+			classAnnotationsOff = this.dex.getInt(annotationsOff);
+			int fieldsSize = this.dex.getInt(annotationsOff + 4);
+			int methodsSize = this.dex.getInt(annotationsOff + 8);
+			int methodsOff = annotationsOff + 16 + fieldsSize * 8;
+			methodAnnotations = new LinkedHashMap<>(methodsSize * 4 / 3 + 1);
+			for (int i = 0; i < methodsSize; i++) {
+				methodAnnotations.put(this.dex.getInt(methodsOff + i * 8), this.dex.getInt(methodsOff + i * 8 + 4));
+			}
+		}
+
+		if (classAnnotationsOff != 0) {
+			visitSystemAnnotations(visitor, name, classAnnotationsOff);
+			visitAnnotations(classAnnotationsOff, (descriptor, visible) -> visitor.visitAnnotation(descriptor, visible));
+		}
+
+		if (classDataOff != 0) {
+			Cursor cursor = new Cursor(classDataOff);
+			int staticFieldsSize = cursor.readUleb128();
+			int instanceFieldsSize = cursor.readUleb128();
+			int directMethodsSize = cursor.readUleb128();
+			int virtualMethodsSize = cursor.readUleb128();
+			for (int i = 0; i < staticFieldsSize + instanceFieldsSize; i++) {
+				cursor.readUleb128();
+				cursor.readUleb128();
+			}
+			visitMethods(visitor, cursor, directMethodsSize, methodAnnotations);
+			visitMethods(visitor, cursor, virtualMethodsSize, methodAnnotations);
+		}
+		visitor.visitEnd();
+	}
+
+	private void visitMethods(ClassVisitor visitor, Cursor cursor, int size, Map<Integer, Integer> methodAnnotations) {
+		int methodIdx = 0;
+		for (int i = 0; i < size; i++) {
+			methodIdx += cursor.readUleb128();
+			int access = cursor.readUleb128();
+			cursor.readUleb128();
+			if ((access & ACC_DECLARED_SYNCHRONIZED) != 0) {
+				access |= Opcodes.ACC_SYNCHRONIZED;
+			}
+			int methodIdOff = this.methodIdsOff + methodIdx * 8;
+			String methodName = string(this.dex.getInt(methodIdOff + 4));
+			String descriptor = protoDescriptor(ushort(methodIdOff + 2));
+			MethodVisitor methodVisitor = visitor.visitMethod(access & ACC_CLASS_FILE_MASK, methodName, descriptor, null, null);
+			if (methodVisitor != null) {
+				Integer annotationsOff = methodAnnotations.get(methodIdx);
+				if (annotationsOff != null) {
+					visitAnnotations(annotationsOff, methodVisitor::visitAnnotation);
+				}
+				methodVisitor.visitEnd();
+			}
+		}
+	}
+
+	/**
+	 * Report the enclosing and member classes recorded in Dalvik system annotations
+	 * the way the corresponding class file attributes would be reported.
+	 */
+	private void visitSystemAnnotations(ClassVisitor visitor, String name, int annotationSetOff) {
+		String enclosingClass = null;
+		String innerName = null;
+		int innerAccess = 0;
+		boolean inner = false;
+		int size = this.dex.getInt(annotationSetOff);
+		for (int i = 0; i < size; i++) {
+			int annotationOff = this.dex.getInt(annotationSetOff + 4 + i * 4);
+			Cursor cursor = new Cursor(annotationOff + 1);
+			String type = typeDescriptor(cursor.readUleb128());
+			int elements = cursor.readUleb128();
+			for (int j = 0; j < elements; j++) {
+				String element = string(cursor.readUleb128());
+				int valueType = cursor.peekValueType();
+				if (ENCLOSING_CLASS.equals(type) && valueType == VALUE_TYPE) {
+					enclosingClass = typeInternalName(cursor.readValueIndex());
+				}
+				else if (ENCLOSING_METHOD.equals(type) && valueType == VALUE_METHOD) {
+					int methodIdOff = this.methodIdsOff + cursor.readValueIndex() * 8;
+					visitor.visitOuterClass(typeInternalName(ushort(methodIdOff)),
+							string(this.dex.getInt(methodIdOff + 4)), protoDescriptor(ushort(methodIdOff + 2)));
+				}
+				else if (INNER_CLASS.equals(type) && "name".equals(element)) {
+					inner = true;
+					innerName = (valueType == VALUE_STRING ? string(cursor.readValueIndex()) : null);
+					if (innerName == null) {
+						cursor.skipValue();
+					}
+				}
+				else if (INNER_CLASS.equals(type) && "accessFlags".equals(element) && valueType == VALUE_INT) {
+					innerAccess = (int) cursor.readValueBits(true);
+				}
+				else if (MEMBER_CLASSES.equals(type) && valueType == VALUE_ARRAY) {
+					cursor.readUnsignedByte(); // value header
+					int members = cursor.readUleb128();
+					for (int k = 0; k < members; k++) {
+						if (cursor.peekValueType() == VALUE_TYPE) {
+							String member = typeInternalName(cursor.readValueIndex());
+							visitor.visitInnerClass(member, name, simpleName(member, name), 0);
+						}
+						else {
+							cursor.skipValue();
+						}
+					}
+				}
+				else {
+					cursor.skipValue();
+				}
+			}
+		}
+		if (inner && enclosingClass != null) {
+			if (innerName != null) {
+				visitor.visitInnerClass(name, enclosingClass, innerName, innerAccess & ACC_CLASS_FILE_MASK);
+			}
+			else {
+				// anonymous class in a field initializer
+				visitor.visitOuterClass(enclosingClass, null, null);
+			}
+		}
+	}
+
+	private void visitAnnotations(int annotationSetOff, AnnotationVisitorFactory factory) {
+		int size = this.dex.getInt(annotationSetOff);
+		for (int i = 0; i < size; i++) {
+			int annotationOff = this.dex.getInt(annotationSetOff + 4 + i * 4);
+			int visibility = this.dex.get(annotationOff) & 0xFF;
+			if (visibility != VISIBILITY_RUNTIME && visibility != VISIBILITY_BUILD) {
+				continue;
+			}
+			Cursor cursor = new Cursor(annotationOff + 1);
+			String descriptor = typeDescriptor(cursor.readUleb128());
+			AnnotationVisitor annotationVisitor = factory.visitAnnotation(descriptor, visibility == VISIBILITY_RUNTIME);
+			readAnnotationElements(cursor, annotationVisitor);
+		}
+	}
+
+	private void readAnnotationElements(Cursor cursor, @Nullable AnnotationVisitor visitor) {
+		int size = cursor.readUleb128();
+		for (int i = 0; i < size; i++) {
+			String name = string(cursor.readUleb128());
+			if (visitor != null) {
+				readValue(cursor, name, visitor);
+			}
+			else {
+				cursor.skipValue();
+			}
+		}
+		if (visitor != null) {
+			visitor.visitEnd();
+		}
+	}
+
+	private void readValue(Cursor cursor, @Nullable String name, AnnotationVisitor visitor) {
+		int valueType = cursor.peekValueType();
+		switch (valueType) {
+			case VALUE_ENUM: {
+				int fieldIdOff = this.fieldIdsOff + cursor.readValueIndex() * 8;
+				visitor.visitEnum(name, typeDescriptor(ushort(fieldIdOff)), string(this.dex.getInt(fieldIdOff + 4)));
+				break;
+			}
+			case VALUE_ANNOTATION: {
+				cursor.readUnsignedByte(); // value header
+				String descriptor = typeDescriptor(cursor.readUleb128());
+				readAnnotationElements(cursor, visitor.visitAnnotation(name, descriptor));
+				break;
+			}
+			case VALUE_ARRAY: {
+				cursor.readUnsignedByte(); // value header
+				int size = cursor.readUleb128();
+				Object primitives = (size > 0 ? newPrimitiveArray(cursor.peekValueType(), size) : null);
+				if (primitives != null) {
+					// like ASM, report arrays of primitives as a single value
+					for (int i = 0; i < size; i++) {
+						Array.set(primitives, i, readPrimitive(cursor));
+					}
+					visitor.visit(name, primitives);
+				}
+				else {
+					AnnotationVisitor arrayVisitor = visitor.visitArray(name);
+					for (int i = 0; i < size; i++) {
+						if (arrayVisitor != null) {
+							readValue(cursor, null, arrayVisitor);
+						}
+						else {
+							cursor.skipValue();
+						}
+					}
+					if (arrayVisitor != null) {
+						arrayVisitor.visitEnd();
+					}
+				}
+				break;
+			}
+			case VALUE_STRING:
+				visitor.visit(name, string(cursor.readValueIndex()));
+				break;
+			case VALUE_TYPE:
+				visitor.visit(name, Type.getType(typeDescriptor(cursor.readValueIndex())));
+				break;
+			case VALUE_NULL:
+			case VALUE_METHOD_TYPE:
+			case VALUE_METHOD_HANDLE:
+			case VALUE_FIELD:
+			case VALUE_METHOD:
+				// not valid in Java annotations
+				cursor.skipValue();
+				break;
+			default:
+				visitor.visit(name, readPrimitive(cursor));
+		}
+	}
+
+	@Nullable
+	private static Object newPrimitiveArray(int valueType, int size) {
+		switch (valueType) {
+			case VALUE_BYTE: return new byte[size];
+			case VALUE_SHORT: return new short[size];
+			case VALUE_CHAR: return new char[size];
+			case VALUE_INT: return new int[size];
+			case VALUE_LONG: return new long[size];
+			case VALUE_FLOAT: return new float[size];
+			case VALUE_DOUBLE: return new double[size];
+			case VALUE_BOOLEAN: return new boolean[size];
+			default: return null;
+		}
+	}
+
+	private static Object readPrimitive(Cursor cursor) {
+		int valueType = cursor.peekValueType();
+		switch (valueType) {
+			case VALUE_BYTE: return (byte) cursor.readValueBits(true);
+			case VALUE_SHORT: return (short) cursor.readValueBits(true);
+			case VALUE_CHAR: return (char) cursor.readValueBits(false);
+			case VALUE_INT: return (int) cursor.readValueBits(true);
+			case VALUE_LONG: return cursor.readValueBits(true);
+			case VALUE_FLOAT: return Float.intBitsToFloat((int) (cursor.readRightAlignedBits(4)));
+			case VALUE_DOUBLE: return Double.longBitsToDouble(cursor.readRightAlignedBits(8));
+			case VALUE_BOOLEAN: return cursor.readBoolean();
+			default: throw new IllegalStateException("Unexpected encoded value type " + valueType);
+		}
+	}
+
+	private String protoDescriptor(int protoIdx) {
+		int protoIdOff = this.protoIdsOff + protoIdx * 12;
+		StringBuilder sb = new StringBuilder("(");
+		int parametersOff = this.dex.getInt(protoIdOff + 8);
+		if (parametersOff != 0) {
+			int size = this.dex.getInt(parametersOff);
+			for (int i = 0; i < size; i++) {
+				sb.append(typeDescriptor(ushort(parametersOff + 4 + i * 2)));
+			}
+		}
+		return sb.append(')').append(typeDescriptor(this.dex.getInt(protoIdOff + 4))).toString();
+	}
+
+	private String typeInternalName(int typeIdx) {
+		String descriptor = typeDescriptor(typeIdx);
+		return (descriptor.charAt(0) == 'L' ? descriptor.substring(1, descriptor.length() - 1) : descriptor);
+	}
+
+	private String typeDescriptor(int typeIdx) {
+		return string(this.dex.getInt(this.typeIdsOff + typeIdx * 4));
+	}
+
+	private String string(int stringIdx) {
+		String string = this.strings[stringIdx];
+		if (string == null) {
+			string = readString(this.stringIdsOff + stringIdx * 4);
+			this.strings[stringIdx] = string;
+		}
+		return string;
+	}
+
+	private String readString(int stringIdOff) {
+		Cursor cursor = new Cursor(this.dex.getInt(stringIdOff));
+		char[] chars = new char[cursor.readUleb128()];
+		try {
+			for (int i = 0; i < chars.length; i++) {
+				int a = cursor.readUnsignedByte();
+				if (a < 0x80) {
+					chars[i] = (char) a;
+				}
+				else if ((a & 0xE0) == 0xC0) {
+					int b = cursor.readUnsignedByte();
+					if ((b & 0xC0) != 0x80) {
+						throw new UTFDataFormatException("Bad second byte");
+					}
+					chars[i] = (char) (((a & 0x1F) << 6) | (b & 0x3F));
+				}
+				else if ((a & 0xF0) == 0xE0) {
+					int b = cursor.readUnsignedByte();
+					int c = cursor.readUnsignedByte();
+					if ((b & 0xC0) != 0x80 || (c & 0xC0) != 0x80) {
+						throw new UTFDataFormatException("Bad second or third byte");
+					}
+					chars[i] = (char) (((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F));
+				}
+				else {
+					throw new UTFDataFormatException("Bad byte");
+				}
+			}
+		}
+		catch (UTFDataFormatException ex) {
+			throw new IllegalArgumentException("Malformed MUTF-8 string in DEX file at " + stringIdOff, ex);
+		}
+		return new String(chars);
+	}
+
+	private int ushort(int off) {
+		return this.dex.getShort(off) & 0xFFFF;
+	}
+
+	private static String toClassName(String descriptor) {
+		return Type.getType(descriptor).getClassName();
+	}
+
+	private static String simpleName(String member, String outer) {
+		return (member.startsWith(outer + '$') ? member.substring(outer.length() + 1) :
+				member.substring(member.lastIndexOf('/') + 1));
+	}
+
+
+	/**
+	 * Factory for the visitor of one annotation of a class or method.
+	 */
+	@FunctionalInterface
+	private interface AnnotationVisitorFactory {
+
+		@Nullable
+		AnnotationVisitor visitAnnotation(String descriptor, boolean visible);
+	}
+
+
+	/**
+	 * Sequential position in the DEX file for variable-length structures.
+	 */
+	private final class Cursor {
+
+		private int pos;
+
+		Cursor(int pos) {
+			this.pos = pos;
+		}
+
+		int readUnsignedByte() {
+			return dex.get(this.pos++) & 0xFF;
+		}
+
+		int readUleb128() {
+			int result = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = readUnsignedByte();
+				result |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((b & 0x80) != 0);
+			return result;
+		}
+
+		int peekValueType() {
+			return dex.get(this.pos) & 0x1F;
+		}
+
+		/**
+		 * Read an encoded value holding an index, including its header.
+		 */
+		int readValueIndex() {
+			return (int) readValueBits(false);
+		}
+
+		long readValueBits(boolean signed) {
+			int size = (readUnsignedByte() >>> 5) + 1;
+			long result = 0;
+			for (int i = 0; i < size; i++) {
+				result |= ((long) readUnsignedByte()) << (8 * i);
+			}
+			if (signed && size < 8) {
+				int shift = 64 - 8 * size;
+				result = (result << shift) >> shift;
+			}
+			return result;
+		}
+
+		long readRightAlignedBits(int width) {
+			int size = (readUnsignedByte() >>> 5) + 1;
+			long result = 0;
+			for (int i = 0; i < size; i++) {
+				result |= ((long) readUnsignedByte()) << (8 * i);
+			}
+			return result << (8 * (width - size));
+		}
+
+		boolean readBoolean() {
+			return (readUnsignedByte() >>> 5) != 0;
+		}
+
+		void skipValue() {
+			int header = readUnsignedByte();
+			int valueType = header & 0x1F;
+			int valueArg = header >>> 5;
+			switch (valueType) {
+				case VALUE_ARRAY: {
+					int size = readUleb128();
+					for (int i = 0; i < size; i++) {
+						skipValue();
+					}
+					break;
+				}
+				case VALUE_ANNOTATION: {
+					readUleb128();
+					int size = readUleb128();
+					for (int i = 0; i < size; i++) {
+						readUleb128();
+						skipValue();
+					}
+					break;
+				}
+				case VALUE_NULL:
+				case VALUE_BOOLEAN:
+					break;
+				default:
+					this.pos += valueArg + 1;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link org.springframework.core.io.Resource} handle for a class defined in
+ * a DEX file, as returned by {@link DexMetadataReaderFactory#getResources}.
+ *
+ * <p>There is no class file to read: the resource exists and is readable in
+ * the sense that the factory can read the metadata of its class, but
+ * {@link #getInputStream()} always fails.
+ */
+final class DexClassResource extends AbstractResource {
+
+	private final String className;
+
+	private final DexClassReader classReader;
+
+	private final String dexDescription;
+
+	private final long lastModified;
+
+
+	DexClassResource(String className, DexClassReader classReader, String dexDescription, long lastModified) {
+		this.className = className;
+		this.classReader = classReader;
+		this.dexDescription = dexDescription;
+		this.lastModified = lastModified;
+	}
+
+
+	String getClassName() {
+		return this.className;
+	}
+
+	DexClassReader getClassReader() {
+		return this.classReader;
+	}
+
+	@Override
+	public boolean exists() {
+		return true;
+	}
+
+	@Override
+	public boolean isReadable() {
+		return true;
+	}
+
+	/**
+	 * This implementation returns the last-modified timestamp of the DEX file,
+	 * or of the APK containing it.
+	 */
+	@Override
+	public long lastModified() {
+		return this.lastModified;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		throw new FileNotFoundException(
+				getDescription() + " cannot be opened because there is no class file for a DEX class");
+	}
+
+	@Override
+	public String getFilename() {
+		return this.className.substring(this.className.lastIndexOf('.') + 1) + ClassUtils.CLASS_FILE_SUFFIX;
+	}
+
+	@Override
+	public String getDescription() {
+		return "class [" + this.className + "] in DEX file [" + this.dexDescription + "]";
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		return (this == other || (other instanceof DexClassResource &&
+				((DexClassResource) other).className.equals(this.className) &&
+				((DexClassResource) other).classReader == this.classReader));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.className.hashCode();
+	}
+
+}
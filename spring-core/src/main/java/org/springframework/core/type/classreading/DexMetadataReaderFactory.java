@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.asm.ClassVisitor;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StreamUtils;
+
+/**
+ * {@link MetadataReaderFactory} that reads class metadata straight from the
+ * {@code classes*.dex} files of an Android application, where there are no
+ * class files for an ASM {@link org.springframework.asm.ClassReader} to parse.
+ *
+ * <p>Plain {@code .dex} files are memory-mapped; the DEX entries of APK, JAR
+ * and ZIP files are read into memory once. Metadata readers for the classes of
+ * these files report the same {@link org.springframework.core.type.AnnotationMetadata}
+ * as {@link SimpleMetadataReaderFactory} does for class files, without loading
+ * or initializing the classes, and are cached like those of a
+ * {@link CachingMetadataReaderFactory}. Classes not defined in any of the given
+ * files are read from class file resources as usual.
+ *
+ * <p>{@link #getResources(String)} lists the classes of the DEX files as
+ * resources, so that classpath scanning can find its candidates without
+ * searching the class loader for class files: see
+ * {@code ClassPathScanningCandidateComponentProvider#setMetadataReaderFactory}.
+ *
+ * @see DexClassReader
+ */
+public class DexMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	private static final String DEX_FILE_SUFFIX = ".dex";
+
+	private static final String DEX_ENTRY_PREFIX = "classes";
+
+	private final Map<String, DexClassResource> classResources = new LinkedHashMap<>();
+
+	private final PathMatcher pathMatcher = new AntPathMatcher();
+
+
+	/**
+	 * Create a new DexMetadataReaderFactory for the given DEX files.
+	 * @param classLoader the ClassLoader to use
+	 * @param dexFiles the {@code .dex} files, or APK, JAR or ZIP files
+	 * containing {@code classes*.dex} entries, to read class metadata from
+	 * @throws IOException if one of the files cannot be read
+	 * @throws IllegalArgumentException if one of the files is not a DEX file
+	 */
+	public DexMetadataReaderFactory(@Nullable ClassLoader classLoader, File... dexFiles) throws IOException {
+		super(classLoader);
+		for (File dexFile : dexFiles) {
+			if (dexFile.getName().endsWith(DEX_FILE_SUFFIX)) {
+				addDex(mapDexFile(dexFile), dexFile.getPath(), dexFile.lastModified());
+			}
+			else {
+				try (ZipFile zipFile = new ZipFile(dexFile)) {
+					for (ZipEntry entry : getDexEntries(zipFile)) {
+						try (InputStream is = zipFile.getInputStream(entry)) {
+							addDex(ByteBuffer.wrap(StreamUtils.copyToByteArray(is)),
+								dexFile.getPath() + '!' + entry.getName(), dexFile.lastModified());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static ByteBuffer mapDexFile(File dexFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(dexFile.toPath(), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Return the DEX entries of an APK in the order the runtime loads them:
+	 * {@code classes.dex}, {@code classes2.dex}, {@code classes3.dex}, and so on.
+	 */
+	private static List<ZipEntry> getDexEntries(ZipFile zipFile) {
+		List<ZipEntry> entries = new ArrayList<>();
+		ZipEntry entry = zipFile.getEntry(DEX_ENTRY_PREFIX + DEX_FILE_SUFFIX);
+		for (int i = 2; entry != null; i++) {
+			entries.add(entry);
+			entry = zipFile.getEntry(DEX_ENTRY_PREFIX + i + DEX_FILE_SUFFIX);
+		}
+		if (entries.isEmpty()) {
+			// not an APK: any DEX entry at the root
+			for (Enumeration<? extends ZipEntry> en = zipFile.entries(); en.hasMoreElements();) {
+				entry = en.nextElement();
+				if (!entry.isDirectory() && entry.getName().indexOf('/') == -1 &&
+						entry.getName().endsWith(DEX_FILE_SUFFIX)) {
+					entries.add(entry);
+				}
+			}
+		}
+		return entries;
+	}
+
+	private void addDex(ByteBuffer dex, String description, long lastModified) {
+		DexClassReader classReader = new DexClassReader(dex);
+		for (String className : classReader.getClassNames()) {
+			// as on the runtime class path, the first definition of a class wins
+			this.classResources.putIfAbsent(className,
+					new DexClassResource(className, classReader, description, lastModified));
+		}
+	}
+
+
+	/**
+	 * Return resources for the classes of the DEX files whose class file path
+	 * would match the given pattern, e.g. {@code "com/mycompany/**&#47;*.class"}.
+	 * <p>A {@code "classpath*:"} or {@code "classpath:"} prefix is ignored.
+	 * The returned resources are not readable as streams but can be passed
+	 * to {@link #getMetadataReader(Resource)}.
+	 * @param locationPattern the class file location pattern to match
+	 * @return the matching resources, in the order of the DEX files
+	 */
+	public Resource[] getResources(String locationPattern) {
+		String pattern = locationPattern;
+		int prefixEnd = pattern.indexOf(':');
+		if (prefixEnd != -1 && pattern.startsWith("classpath")) {
+			pattern = pattern.substring(prefixEnd + 1);
+		}
+		if (pattern.startsWith("/")) {
+			pattern = pattern.substring(1);
+		}
+		List<Resource> resources = new ArrayList<>();
+		for (DexClassResource resource : this.classResources.values()) {
+			String path = ClassUtils.convertClassNameToResourcePath(resource.getClassName()) +
+					ClassUtils.CLASS_FILE_SUFFIX;
+			if (this.pathMatcher.match(pattern, path)) {
+				resources.add(resource);
+			}
+		}
+		return resources.toArray(new Resource[0]);
+	}
+
+	/**
+	 * Return whether the given class is defined in one of the DEX files.
+	 */
+	public boolean containsClass(String className) {
+		return this.classResources.containsKey(className);
+	}
+
+	@Override
+	public MetadataReader getMetadataReader(String className) throws IOException {
+		DexClassResource resource = this.classResources.get(className);
+		if (resource == null) {
+			// Maybe an inner class name using the dot name syntax?
+			int lastDotIndex = className.lastIndexOf('.');
+			if (lastDotIndex != -1) {
+				resource = this.classResources.get(
+						className.substring(0, lastDotIndex) + '$' + className.substring(lastDotIndex + 1));
+			}
+		}
+		if (resource != null) {
+			return getMetadataReader(resource);
+		}
+		return super.getMetadataReader(className);
+	}
+
+	@Override
+	void accept(Resource resource, ClassVisitor visitor) throws IOException {
+		if (resource instanceof DexClassResource) {
+			DexClassResource classResource = (DexClassResource) resource;
+			classResource.getClassReader().accept(classResource.getClassName(), visitor);
+		}
+		else {
+			super.accept(resource, visitor);
+		}
+	}
+
+}
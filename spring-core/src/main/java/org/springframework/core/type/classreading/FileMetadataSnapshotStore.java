@@ -0,0 +1,268 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link MetadataSnapshotStore} that keeps snapshots in memory and persists
+ * them to a single file, loaded on first access.
+ *
+ * <p>The store holds at most a given number of snapshots, evicting the least
+ * recently used ones. Snapshots are written by {@link #save()}, typically once
+ * the application context has been refreshed; the file is replaced atomically,
+ * so a process killed while saving leaves the previous file in place. A file
+ * that cannot be read is ignored and replaced on the next save.
+ *
+ * <p>Hit and miss counts cover all lookups since this store was created.
+ */
+public class FileMetadataSnapshotStore implements MetadataSnapshotStore {
+
+	/** Default maximum number of snapshots: 4096. */
+	public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+	private static final int MAGIC = 0x534d4453;  // "SMDS"
+
+	private static final int VERSION = 1;
+
+	private static final Log logger = LogFactory.getLog(FileMetadataSnapshotStore.class);
+
+
+	private final File file;
+
+	private final int maxEntries;
+
+	private final Map<String, byte[]> snapshots;
+
+	private boolean loaded;
+
+	private boolean modified;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Create a new FileMetadataSnapshotStore for the given file, holding up to
+	 * {@link #DEFAULT_MAX_ENTRIES} snapshots.
+	 * @param file the file to load snapshots from and save them to
+	 */
+	public FileMetadataSnapshotStore(File file) {
+		this(file, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create a new FileMetadataSnapshotStore for the given file.
+	 * @param file the file to load snapshots from and save them to
+	 * @param maxEntries the maximum number of snapshots to hold
+	 */
+	public FileMetadataSnapshotStore(File file, int maxEntries) {
+		Assert.notNull(file, "File must not be null");
+		Assert.isTrue(maxEntries > 0, "maxEntries must be greater than 0");
+		this.file = file;
+		this.maxEntries = maxEntries;
+		this.snapshots = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+				return size() > FileMetadataSnapshotStore.this.maxEntries;
+			}
+		};
+	}
+
+
+	/**
+	 * Return the file this store is backed by.
+	 */
+	public final File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Return the maximum number of snapshots this store holds.
+	 */
+	public final int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	@Override
+	@Nullable
+	public byte[] get(String key) {
+		byte[] snapshot;
+		synchronized (this.snapshots) {
+			loadIfNecessary();
+			snapshot = this.snapshots.get(key);
+		}
+		(snapshot != null ? this.hitCount : this.missCount).incrementAndGet();
+		return snapshot;
+	}
+
+	@Override
+	public void put(String key, byte[] snapshot) {
+		synchronized (this.snapshots) {
+			loadIfNecessary();
+			this.snapshots.put(key, snapshot);
+			this.modified = true;
+		}
+	}
+
+	/**
+	 * Return the number of snapshots currently held.
+	 */
+	public int size() {
+		synchronized (this.snapshots) {
+			loadIfNecessary();
+			return this.snapshots.size();
+		}
+	}
+
+	/**
+	 * Return the number of lookups that found a snapshot.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of lookups that did not find a snapshot.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the share of lookups that found a snapshot, between 0 and 1,
+	 * or 0 if there were no lookups yet.
+	 */
+	public double getHitRate() {
+		long hits = this.hitCount.get();
+		long total = hits + this.missCount.get();
+		return (total > 0 ? (double) hits / total : 0);
+	}
+
+	/**
+	 * Write the snapshots to the file, if any were added since it was loaded
+	 * or last saved.
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save() throws IOException {
+		List<Map.Entry<String, byte[]>> entries;
+		synchronized (this.snapshots) {
+			if (!this.modified) {
+				return;
+			}
+			entries = new ArrayList<>(this.snapshots.entrySet());
+			this.modified = false;
+		}
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new FileNotFoundException("Cannot create directory " + parent);
+		}
+		File tempFile = File.createTempFile(this.file.getName(), ".tmp", parent);
+		try {
+			try (OutputStream os = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+				DataOutputStream out = new DataOutputStream(os);
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, byte[]> entry : entries) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(entry.getValue().length);
+					out.write(entry.getValue());
+				}
+				out.flush();
+			}
+			Files.move(tempFile.toPath(), this.file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException | RuntimeException ex) {
+			synchronized (this.snapshots) {
+				this.modified = true;
+			}
+			tempFile.delete();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Remove all snapshots, from memory and from the file.
+	 */
+	public void clear() {
+		synchronized (this.snapshots) {
+			this.snapshots.clear();
+			this.loaded = true;
+			this.modified = false;
+			this.file.delete();
+		}
+	}
+
+	private void loadIfNecessary() {
+		if (this.loaded) {
+			return;
+		}
+		this.loaded = true;
+		if (!this.file.isFile()) {
+			return;
+		}
+		try (InputStream is = new BufferedInputStream(new FileInputStream(this.file))) {
+			DataInputStream in = new DataInputStream(is);
+			if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION) {
+				throw new IOException("Not a metadata snapshot file of version " + VERSION);
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				byte[] snapshot = new byte[in.readInt()];
+				in.readFully(snapshot);
+				this.snapshots.put(key, snapshot);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + this.snapshots.size() + " metadata snapshots from " + this.file);
+			}
+		}
+		catch (IOException ex) {
+			this.snapshots.clear();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable metadata snapshot file " + this.file, ex);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,597 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * Records the class visitor events that make up the metadata of a class in a
+ * compact binary snapshot, and replays a snapshot to another visitor.
+ *
+ * <p>Only the events that a {@link SimpleAnnotationMetadataReadingVisitor}
+ * consumes are recorded: the class header, its inner and outer class
+ * information, its visible annotations and the visible annotations of its
+ * methods. Replaying a snapshot therefore produces the same metadata as
+ * reading the class again, without parsing a class or DEX file.
+ *
+ * @see MetadataSnapshotStore
+ */
+final class MetadataSnapshot {
+
+	private static final int FORMAT = 1;
+
+	private static final int END = 0;
+
+	private static final int CLASS = 1;
+
+	private static final int OUTER_CLASS = 2;
+
+	private static final int INNER_CLASS = 3;
+
+	private static final int ANNOTATION = 4;
+
+	private static final int METHOD = 5;
+
+	private static final int VALUE = 6;
+
+	private static final int ENUM = 7;
+
+	private static final int ARRAY = 8;
+
+
+	private MetadataSnapshot() {
+	}
+
+
+	/**
+	 * Replay the given snapshot to the given visitor.
+	 * @param snapshot a snapshot taken by a {@link Recorder}
+	 * @param visitor the visitor to report the recorded events to
+	 * @throws IOException if the snapshot is corrupt or of another format
+	 */
+	static void replay(byte[] snapshot, ClassVisitor visitor) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+		if (in.readUnsignedByte() != FORMAT) {
+			throw new IOException("Unsupported metadata snapshot format");
+		}
+		int event;
+		while ((event = in.readUnsignedByte()) != END) {
+			switch (event) {
+				case CLASS: {
+					int access = in.readInt();
+					String name = in.readUTF();
+					String superName = readNullableUTF(in);
+					String[] interfaces = new String[in.readUnsignedShort()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = in.readUTF();
+					}
+					visitor.visit(Opcodes.V1_8, access, name, null, superName, interfaces);
+					break;
+				}
+				case OUTER_CLASS:
+					visitor.visitOuterClass(in.readUTF(), readNullableUTF(in), readNullableUTF(in));
+					break;
+				case INNER_CLASS:
+					visitor.visitInnerClass(in.readUTF(), readNullableUTF(in), readNullableUTF(in), in.readInt());
+					break;
+				case ANNOTATION:
+					replayValues(in, visitor.visitAnnotation(in.readUTF(), true));
+					break;
+				case METHOD: {
+					MethodVisitor methodVisitor = visitor.visitMethod(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+					while (in.readUnsignedByte() == ANNOTATION) {
+						String descriptor = in.readUTF();
+						replayValues(in, (methodVisitor != null ? methodVisitor.visitAnnotation(descriptor, true) : null));
+					}
+					if (methodVisitor != null) {
+						methodVisitor.visitEnd();
+					}
+					break;
+				}
+				default:
+					throw new IOException("Corrupt metadata snapshot");
+			}
+		}
+		visitor.visitEnd();
+	}
+
+	private static void replayValues(DataInputStream in, @Nullable AnnotationVisitor visitor) throws IOException {
+		int event;
+		while ((event = in.readUnsignedByte()) != END) {
+			String name = readNullableUTF(in);
+			switch (event) {
+				case VALUE: {
+					Object value = readValue(in);
+					if (visitor != null) {
+						visitor.visit(name, value);
+					}
+					break;
+				}
+				case ENUM: {
+					String descriptor = in.readUTF();
+					String value = in.readUTF();
+					if (visitor != null) {
+						visitor.visitEnum(name, descriptor, value);
+					}
+					break;
+				}
+				case ANNOTATION: {
+					String descriptor = in.readUTF();
+					replayValues(in, (visitor != null ? visitor.visitAnnotation(name, descriptor) : null));
+					break;
+				}
+				case ARRAY:
+					replayValues(in, (visitor != null ? visitor.visitArray(name) : null));
+					break;
+				default:
+					throw new IOException("Corrupt metadata snapshot");
+			}
+		}
+		if (visitor != null) {
+			visitor.visitEnd();
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		char type = (char) in.readUnsignedByte();
+		switch (type) {
+			case 'Z': return in.readBoolean();
+			case 'B': return in.readByte();
+			case 'C': return in.readChar();
+			case 'S': return in.readShort();
+			case 'I': return in.readInt();
+			case 'J': return in.readLong();
+			case 'F': return in.readFloat();
+			case 'D': return in.readDouble();
+			case 's': return in.readUTF();
+			case 'T': return Type.getType(in.readUTF());
+			case '[': {
+				char componentType = (char) in.readUnsignedByte();
+				int length = in.readInt();
+				switch (componentType) {
+					case 'Z': {
+						boolean[] array = new boolean[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readBoolean();
+						}
+						return array;
+					}
+					case 'B': {
+						byte[] array = new byte[length];
+						in.readFully(array);
+						return array;
+					}
+					case 'C': {
+						char[] array = new char[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readChar();
+						}
+						return array;
+					}
+					case 'S': {
+						short[] array = new short[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readShort();
+						}
+						return array;
+					}
+					case 'I': {
+						int[] array = new int[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readInt();
+						}
+						return array;
+					}
+					case 'J': {
+						long[] array = new long[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readLong();
+						}
+						return array;
+					}
+					case 'F': {
+						float[] array = new float[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readFloat();
+						}
+						return array;
+					}
+					case 'D': {
+						double[] array = new double[length];
+						for (int i = 0; i < length; i++) {
+							array[i] = in.readDouble();
+						}
+						return array;
+					}
+				}
+				break;
+			}
+		}
+		throw new IOException("Corrupt metadata snapshot");
+	}
+
+	@Nullable
+	private static String readNullableUTF(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static void writeNullableUTF(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+
+	/**
+	 * {@link ClassVisitor} that passes all events on to a delegate visitor
+	 * and records those needed to replay the class metadata.
+	 */
+	static final class Recorder extends ClassVisitor {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+		private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+		/** Set if the metadata cannot be recorded, e.g. a string too long for the format. */
+		private boolean failed;
+
+		Recorder(ClassVisitor delegate) {
+			super(SpringAsmInfo.ASM_VERSION, delegate);
+			record(() -> this.out.writeByte(FORMAT));
+		}
+
+		/**
+		 * Return the recorded snapshot, or {@code null} if the class could
+		 * not be recorded.
+		 */
+		@Nullable
+		byte[] getSnapshot() {
+			return (!this.failed ? this.bytes.toByteArray() : null);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature,
+				@Nullable String superName, String[] interfaces) {
+
+			super.visit(version, access, name, signature, superName, interfaces);
+			record(() -> {
+				this.out.writeByte(CLASS);
+				this.out.writeInt(access);
+				this.out.writeUTF(name);
+				writeNullableUTF(this.out, superName);
+				this.out.writeShort(interfaces.length);
+				for (String anInterface : interfaces) {
+					this.out.writeUTF(anInterface);
+				}
+			});
+		}
+
+		@Override
+		public void visitOuterClass(String owner, @Nullable String name, @Nullable String descriptor) {
+			super.visitOuterClass(owner, name, descriptor);
+			record(() -> {
+				this.out.writeByte(OUTER_CLASS);
+				this.out.writeUTF(owner);
+				writeNullableUTF(this.out, name);
+				writeNullableUTF(this.out, descriptor);
+			});
+		}
+
+		@Override
+		public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+			super.visitInnerClass(name, outerName, innerName, access);
+			record(() -> {
+				this.out.writeByte(INNER_CLASS);
+				this.out.writeUTF(name);
+				writeNullableUTF(this.out, outerName);
+				writeNullableUTF(this.out, innerName);
+				this.out.writeInt(access);
+			});
+		}
+
+		@Override
+		@Nullable
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			AnnotationVisitor delegate = super.visitAnnotation(descriptor, visible);
+			if (!visible) {
+				return delegate;
+			}
+			record(() -> {
+				this.out.writeByte(ANNOTATION);
+				this.out.writeUTF(descriptor);
+			});
+			return new AnnotationRecorder(delegate, this.out);
+		}
+
+		@Override
+		@Nullable
+		public MethodVisitor visitMethod(int access, String name, String descriptor,
+				String signature, String[] exceptions) {
+
+			MethodVisitor delegate = super.visitMethod(access, name, descriptor, signature, exceptions);
+			return new MethodRecorder(delegate, access, name, descriptor);
+		}
+
+		@Override
+		public void visitEnd() {
+			super.visitEnd();
+			record(() -> this.out.writeByte(END));
+		}
+
+		private void record(IoAction action) {
+			if (!this.failed) {
+				try {
+					action.run();
+				}
+				catch (IOException ex) {
+					this.failed = true;
+				}
+			}
+		}
+
+
+		/**
+		 * Records the visible annotations of a method into a buffer of its own,
+		 * appended to the class snapshot only if the method has any.
+		 */
+		private final class MethodRecorder extends MethodVisitor {
+
+			private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream(64);
+
+			private final DataOutputStream methodOut = new DataOutputStream(this.methodBytes);
+
+			private boolean annotated;
+
+			MethodRecorder(@Nullable MethodVisitor delegate, int access, String name, String descriptor) {
+				super(SpringAsmInfo.ASM_VERSION, delegate);
+				record(() -> {
+					this.methodOut.writeByte(METHOD);
+					this.methodOut.writeInt(access);
+					this.methodOut.writeUTF(name);
+					this.methodOut.writeUTF(descriptor);
+				});
+			}
+
+			@Override
+			@Nullable
+			public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+				AnnotationVisitor delegate = super.visitAnnotation(descriptor, visible);
+				if (!visible) {
+					return delegate;
+				}
+				this.annotated = true;
+				record(() -> {
+					this.methodOut.writeByte(ANNOTATION);
+					this.methodOut.writeUTF(descriptor);
+				});
+				return new AnnotationRecorder(delegate, this.methodOut);
+			}
+
+			@Override
+			public void visitEnd() {
+				super.visitEnd();
+				if (this.annotated) {
+					record(() -> {
+						this.methodOut.writeByte(END);
+						this.methodBytes.writeTo(Recorder.this.out);
+					});
+				}
+			}
+		}
+
+
+		/**
+		 * Records the values of an annotation, or of an array value.
+		 */
+		private final class AnnotationRecorder extends AnnotationVisitor {
+
+			private final DataOutputStream out;
+
+			AnnotationRecorder(@Nullable AnnotationVisitor delegate, DataOutputStream out) {
+				super(SpringAsmInfo.ASM_VERSION, delegate);
+				this.out = out;
+			}
+
+			@Override
+			public void visit(@Nullable String name, Object value) {
+				super.visit(name, value);
+				record(() -> {
+					this.out.writeByte(VALUE);
+					writeNullableUTF(this.out, name);
+					writeValue(value);
+				});
+			}
+
+			@Override
+			public void visitEnum(@Nullable String name, String descriptor, String value) {
+				super.visitEnum(name, descriptor, value);
+				record(() -> {
+					this.out.writeByte(ENUM);
+					writeNullableUTF(this.out, name);
+					this.out.writeUTF(descriptor);
+					this.out.writeUTF(value);
+				});
+			}
+
+			@Override
+			public AnnotationVisitor visitAnnotation(@Nullable String name, String descriptor) {
+				AnnotationVisitor delegate = super.visitAnnotation(name, descriptor);
+				record(() -> {
+					this.out.writeByte(ANNOTATION);
+					writeNullableUTF(this.out, name);
+					this.out.writeUTF(descriptor);
+				});
+				return new AnnotationRecorder(delegate, this.out);
+			}
+
+			@Override
+			public AnnotationVisitor visitArray(@Nullable String name) {
+				AnnotationVisitor delegate = super.visitArray(name);
+				record(() -> {
+					this.out.writeByte(ARRAY);
+					writeNullableUTF(this.out, name);
+				});
+				return new AnnotationRecorder(delegate, this.out);
+			}
+
+			@Override
+			public void visitEnd() {
+				super.visitEnd();
+				record(() -> this.out.writeByte(END));
+			}
+
+			private void writeValue(Object value) throws IOException {
+				if (value instanceof Boolean) {
+					this.out.writeByte('Z');
+					this.out.writeBoolean((Boolean) value);
+				}
+				else if (value instanceof Byte) {
+					this.out.writeByte('B');
+					this.out.writeByte((Byte) value);
+				}
+				else if (value instanceof Character) {
+					this.out.writeByte('C');
+					this.out.writeChar((Character) value);
+				}
+				else if (value instanceof Short) {
+					this.out.writeByte('S');
+					this.out.writeShort((Short) value);
+				}
+				else if (value instanceof Integer) {
+					this.out.writeByte('I');
+					this.out.writeInt((Integer) value);
+				}
+				else if (value instanceof Long) {
+					this.out.writeByte('J');
+					this.out.writeLong((Long) value);
+				}
+				else if (value instanceof Float) {
+					this.out.writeByte('F');
+					this.out.writeFloat((Float) value);
+				}
+				else if (value instanceof Double) {
+					this.out.writeByte('D');
+					this.out.writeDouble((Double) value);
+				}
+				else if (value instanceof String) {
+					this.out.writeByte('s');
+					this.out.writeUTF((String) value);
+				}
+				else if (value instanceof Type) {
+					this.out.writeByte('T');
+					this.out.writeUTF(((Type) value).getDescriptor());
+				}
+				else {
+					writeArray(value);
+				}
+			}
+
+			private void writeArray(Object value) throws IOException {
+				this.out.writeByte('[');
+				if (value instanceof boolean[]) {
+					boolean[] array = (boolean[]) value;
+					this.out.writeByte('Z');
+					this.out.writeInt(array.length);
+					for (boolean element : array) {
+						this.out.writeBoolean(element);
+					}
+				}
+				else if (value instanceof byte[]) {
+					byte[] array = (byte[]) value;
+					this.out.writeByte('B');
+					this.out.writeInt(array.length);
+					this.out.write(array);
+				}
+				else if (value instanceof char[]) {
+					char[] array = (char[]) value;
+					this.out.writeByte('C');
+					this.out.writeInt(array.length);
+					for (char element : array) {
+						this.out.writeChar(element);
+					}
+				}
+				else if (value instanceof short[]) {
+					short[] array = (short[]) value;
+					this.out.writeByte('S');
+					this.out.writeInt(array.length);
+					for (short element : array) {
+						this.out.writeShort(element);
+					}
+				}
+				else if (value instanceof int[]) {
+					int[] array = (int[]) value;
+					this.out.writeByte('I');
+					this.out.writeInt(array.length);
+					for (int element : array) {
+						this.out.writeInt(element);
+					}
+				}
+				else if (value instanceof long[]) {
+					long[] array = (long[]) value;
+					this.out.writeByte('J');
+					this.out.writeInt(array.length);
+					for (long element : array) {
+						this.out.writeLong(element);
+					}
+				}
+				else if (value instanceof float[]) {
+					float[] array = (float[]) value;
+					this.out.writeByte('F');
+					this.out.writeInt(array.length);
+					for (float element : array) {
+						this.out.writeFloat(element);
+					}
+				}
+				else if (value instanceof double[]) {
+					double[] array = (double[]) value;
+					this.out.writeByte('D');
+					this.out.writeInt(array.length);
+					for (double element : array) {
+						this.out.writeDouble(element);
+					}
+				}
+				else {
+					throw new IOException("Unsupported annotation value type: " + value.getClass().getName());
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Write operation on a snapshot stream.
+	 */
+	@FunctionalInterface
+	private interface IoAction {
+
+		void run() throws IOException;
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Backing store for class metadata snapshots that outlive a
+ * {@link CachingMetadataReaderFactory}, typically across process restarts.
+ *
+ * <p>Snapshots are opaque byte arrays, keyed by the description of the class
+ * resource plus its last-modified timestamp, so an updated class file or DEX
+ * file is never read from a stale snapshot. A store may drop entries at any
+ * time; implementations must be thread-safe.
+ *
+ * @see CachingMetadataReaderFactory#setMetadataSnapshotStore
+ * @see FileMetadataSnapshotStore
+ */
+public interface MetadataSnapshotStore {
+
+	/**
+	 * Return the snapshot stored under the given key.
+	 * @param key the key of the snapshot
+	 * @return the snapshot, or {@code null} if none is stored
+	 */
+	@Nullable
+	byte[] get(String key);
+
+	/**
+	 * Store the given snapshot under the given key.
+	 * @param key the key of the snapshot
+	 * @param snapshot the snapshot
+	 */
+	void put(String key, byte[] snapshot);
+
+}
@@ -21,11 +21,11 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
 import org.springframework.core.NestedIOException;
 import org.springframework.core.io.Resource;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.ClassMetadata;
-import org.springframework.lang.Nullable;
 
 /**
  * {@link MetadataReader} implementation based on an ASM
@@ -45,11 +45,17 @@ final class SimpleMetadataReader implements MetadataReader {
 	private final AnnotationMetadata annotationMetadata;
 
 
-	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
-		SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
-		getClassReader(resource).accept(visitor, PARSING_OPTIONS);
+	SimpleMetadataReader(Resource resource, AnnotationMetadata annotationMetadata) {
 		this.resource = resource;
-		this.annotationMetadata = visitor.getMetadata();
+		this.annotationMetadata = annotationMetadata;
+	}
+
+	/**
+	 * Make the given visitor visit the class file behind the given resource,
+	 * skipping code and debug information.
+	 */
+	static void accept(Resource resource, ClassVisitor visitor) throws IOException {
+		getClassReader(resource).accept(visitor, PARSING_OPTIONS);
 	}
 
 	private static ClassReader getClassReader(Resource resource) throws IOException {
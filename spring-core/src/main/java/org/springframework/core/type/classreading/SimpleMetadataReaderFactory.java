@@ -19,6 +19,7 @@ package org.springframework.core.type.classreading;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import org.springframework.asm.ClassVisitor;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -100,7 +101,21 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
-		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
+		SimpleAnnotationMetadataReadingVisitor visitor =
+				new SimpleAnnotationMetadataReadingVisitor(this.resourceLoader.getClassLoader());
+		accept(resource, visitor);
+		return new SimpleMetadataReader(resource, visitor.getMetadata());
+	}
+
+	/**
+	 * Make the given visitor visit the class behind the given resource.
+	 * <p>The default implementation parses the class file with ASM; factories
+	 * reading classes from other sources override this.
+	 * @param resource the resource of the class
+	 * @param visitor the visitor to report the class to
+	 */
+	void accept(Resource resource, ClassVisitor visitor) throws IOException {
+		SimpleMetadataReader.accept(resource, visitor);
 	}
 
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Concurrent cache holding its entries strongly up to a maximum number,
+ * evicting the least recently used ones once it outgrows that budget.
+ *
+ * <p>Lookups do not block: entries live in a concurrent map along with the
+ * time they were last used, and a cache that outgrows its budget is trimmed
+ * by an eighth of its entries at a time, by one thread at a time. Since
+ * entries are held strongly, callers need to make sure that keys and values
+ * do not keep a class loader alive that may need to be released.
+ *
+ * <p>Mainly intended for internal use within the framework.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see CacheStatistics
+ */
+public final class BoundedLruCache<K, V> {
+
+	private final int maxEntries;
+
+	private final ConcurrentMap<K, Node<V>> entries = new ConcurrentHashMap<>(64);
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache.
+	 * @param maxEntries the maximum number of entries held
+	 */
+	public BoundedLruCache(int maxEntries) {
+		this.maxEntries = Math.max(maxEntries, 1);
+	}
+
+
+	/**
+	 * Return the cached value for the given key, if any.
+	 */
+	@Nullable
+	public V get(K key) {
+		Node<V> node = this.entries.get(key);
+		if (node != null) {
+			node.lastAccess = this.clock.get();
+			this.hitCount.increment();
+			return node.value;
+		}
+		this.missCount.increment();
+		return null;
+	}
+
+	/**
+	 * Cache the given value for the given key.
+	 */
+	public void put(K key, V value) {
+		this.entries.put(key, new Node<>(value, this.clock.incrementAndGet()));
+		trimIfNecessary();
+	}
+
+	/**
+	 * Cache the given value for the given key unless a value is cached already.
+	 * @return the value cached already, or {@code null} if the given value has been cached
+	 */
+	@Nullable
+	public V putIfAbsent(K key, V value) {
+		Node<V> existing = this.entries.putIfAbsent(key, new Node<>(value, this.clock.incrementAndGet()));
+		if (existing != null) {
+			return existing.value;
+		}
+		trimIfNecessary();
+		return null;
+	}
+
+	/**
+	 * Remove all entries from this cache.
+	 */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Return the number of entries currently held.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Return the maximum number of entries held.
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Return the number of lookups that found an entry.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that did not find an entry.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries evicted to stay within budget.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this cache.
+	 * @param name the name of the cache to expose
+	 */
+	public CacheStatistics getStatistics(String name) {
+		return new CacheStatistics(name, size(), this.maxEntries, 1,
+				getHitCount(), getMissCount(), getEvictionCount());
+	}
+
+	/**
+	 * Evict the least recently used eighth of the entries once the budget is
+	 * exceeded, unless another thread is already at it.
+	 */
+	private void trimIfNecessary() {
+		if (this.entries.size() <= this.maxEntries || !this.evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			int excess = this.entries.size() - (this.maxEntries - this.maxEntries / 8);
+			if (excess <= 0) {
+				return;
+			}
+			List<Eviction<K, V>> candidates = new ArrayList<>(this.entries.size());
+			this.entries.forEach((key, node) -> candidates.add(new Eviction<>(key, node)));
+			candidates.sort(Comparator.comparingLong(eviction -> eviction.lastAccess));
+			for (int i = 0; i < excess && i < candidates.size(); i++) {
+				Eviction<K, V> eviction = candidates.get(i);
+				if (this.entries.remove(eviction.key, eviction.node)) {
+					this.evictionCount.increment();
+				}
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+
+	/**
+	 * Parse the given configured maximum number of entries.
+	 * @param value the configured value, if any
+	 * @param defaultMaxEntries the default to fall back to if the value
+	 * is not set or not a number
+	 */
+	public static int parseMaxEntries(@Nullable String value, int defaultMaxEntries) {
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			}
+			catch (NumberFormatException ex) {
+				// fall back to the default
+			}
+		}
+		return defaultMaxEntries;
+	}
+
+
+	/**
+	 * A cached value along with the time it was last used, in ticks of the
+	 * clock of the cache, which advances on every entry added.
+	 */
+	private static final class Node<V> {
+
+		final V value;
+
+		volatile long lastAccess;
+
+		Node(V value, long lastAccess) {
+			this.value = value;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+
+	/**
+	 * A candidate for eviction, with its access time frozen for sorting.
+	 */
+	private static final class Eviction<K, V> {
+
+		final K key;
+
+		final Node<V> node;
+
+		final long lastAccess;
+
+		Eviction(K key, Node<V> node) {
+			this.key = key;
+			this.node = node;
+			this.lastAccess = node.lastAccess;
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+/**
+ * Snapshot of the statistics of an internal bounded cache.
+ *
+ * <p>Counts cover all lookups since the cache was created; they are not reset
+ * when the cache is cleared.
+ *
+ * @see BoundedLruCache
+ * @see org.springframework.core.annotation.AnnotationUtils#getCacheStatistics()
+ * @see org.springframework.core.ResolvableType#getInternStatistics()
+ */
+public final class CacheStatistics {
+
+	private final String name;
+
+	private final int size;
+
+	private final int maxEntries;
+
+	private final int partitionCount;
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long evictionCount;
+
+
+	/**
+	 * Create a new statistics snapshot.
+	 * @param name the name of the cache
+	 * @param size the number of entries currently held
+	 * @param maxEntries the maximum number of entries held per partition
+	 * @param partitionCount the number of partitions holding entries
+	 * @param hitCount the number of lookups that found an entry
+	 * @param missCount the number of lookups that did not find an entry
+	 * @param evictionCount the number of entries evicted to stay within budget
+	 */
+	public CacheStatistics(String name, int size, int maxEntries, int partitionCount,
+			long hitCount, long missCount, long evictionCount) {
+
+		this.name = name;
+		this.size = size;
+		this.maxEntries = maxEntries;
+		this.partitionCount = partitionCount;
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+	}
+
+
+	/**
+	 * Return the name of the cache.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Return the number of entries currently held.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Return the maximum number of entries held per partition,
+	 * or 0 if the cache is disabled.
+	 */
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * Return the number of partitions the cache holds entries in with a budget
+	 * of their own, e.g. one per class loader.
+	 */
+	public int getPartitionCount() {
+		return this.partitionCount;
+	}
+
+	/**
+	 * Return the number of lookups that found an entry.
+	 */
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Return the number of lookups that did not find an entry.
+	 */
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Return the number of entries evicted to stay within budget.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Return the share of lookups that found an entry, between 0 and 1,
+	 * or 0 if there were no lookups yet.
+	 */
+	public double getHitRate() {
+		long total = this.hitCount + this.missCount;
+		return (total > 0 ? (double) this.hitCount / total : 0);
+	}
+
+
+	@Override
+	public String toString() {
+		return this.name + ": size=" + this.size + ", maxEntries=" + this.maxEntries +
+				", partitions=" + this.partitionCount + ", hits=" + this.hitCount +
+				", misses=" + this.missCount + ", evictions=" + this.evictionCount;
+	}
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.android.dx.cf.direct.DirectClassFile;
+import com.android.dx.cf.direct.StdAttributeFactory;
+import com.android.dx.command.dexer.DxContext;
+import com.android.dx.dex.DexOptions;
+import com.android.dx.dex.cf.CfOptions;
+import com.android.dx.dex.cf.CfTranslator;
+import com.android.dx.dex.file.DexFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DexMetadataReaderFactory}, comparing the metadata it reads
+ * from a DEX file translated by dx with the metadata that
+ * {@link SimpleMetadataReaderFactory} reads from the original class files.
+ */
+public class DexMetadataReaderFactoryTests {
+
+	private static final String[] ANNOTATION_TYPES = {
+			Attributes.class.getName(), Nested.class.getName(), Composed.class.getName(),
+			Invisible.class.getName(), Retention.class.getName(), AliasFor.class.getName()};
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<String> classNames = new ArrayList<>();
+
+	private final SimpleMetadataReaderFactory classFileReaderFactory = new SimpleMetadataReaderFactory();
+
+	private byte[] dex;
+
+
+	@Before
+	public void translateClassFiles() throws IOException {
+		for (Class<?> fixture : new Class<?>[] {AnnotatedClass.class, AnnotatedClass.Member.class,
+				AnnotatedClass.Inner.class, AnnotatedClass.MemberInterface.class,
+				new AnnotatedClass().anonymous().getClass(), AbstractBase.class, AnnotatedInterface.class,
+				FixtureEnum.class, FixtureEnum.B.getClass(), Attributes.class, Nested.class,
+				Composed.class, Invisible.class}) {
+			this.classNames.add(fixture.getName());
+		}
+		this.dex = toDex(this.classNames);
+	}
+
+
+	@Test
+	public void metadataMatchesClassFileMetadata() throws IOException {
+		File dexFile = this.temporaryFolder.newFile("classes.dex");
+		try (OutputStream out = new FileOutputStream(dexFile)) {
+			out.write(this.dex);
+		}
+		assertSameMetadata(new DexMetadataReaderFactory(getClass().getClassLoader(), dexFile));
+	}
+
+	@Test
+	public void metadataFromArchiveMatchesClassFileMetadata() throws IOException {
+		File archive = this.temporaryFolder.newFile("fixtures.apk");
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+			out.putNextEntry(new ZipEntry("classes.dex"));
+			out.write(this.dex);
+			out.closeEntry();
+		}
+		assertSameMetadata(new DexMetadataReaderFactory(getClass().getClassLoader(), archive));
+	}
+
+	@Test
+	public void resourcesListClassesOfDexFile() throws IOException {
+		File dexFile = this.temporaryFolder.newFile("classes.dex");
+		try (OutputStream out = new FileOutputStream(dexFile)) {
+			out.write(this.dex);
+		}
+		DexMetadataReaderFactory readerFactory = new DexMetadataReaderFactory(getClass().getClassLoader(), dexFile);
+		String packagePath = ClassUtils.classPackageAsResourcePath(getClass());
+		Resource[] resources = readerFactory.getResources("classpath*:" + packagePath + "/**/*.class");
+		Set<String> listed = new TreeSet<>();
+		for (Resource resource : resources) {
+			listed.add(readerFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+		}
+		assertEquals(new TreeSet<>(this.classNames), listed);
+		assertTrue(readerFactory.containsClass(AnnotatedClass.class.getName()));
+		assertEquals(0, readerFactory.getResources("java/**/*.class").length);
+	}
+
+
+	private void assertSameMetadata(DexMetadataReaderFactory dexReaderFactory) throws IOException {
+		for (String className : this.classNames) {
+			assertTrue(className, dexReaderFactory.containsClass(className));
+			AnnotationMetadata expected = this.classFileReaderFactory.getMetadataReader(className).getAnnotationMetadata();
+			AnnotationMetadata actual = dexReaderFactory.getMetadataReader(className).getAnnotationMetadata();
+			assertEquals(className, describe(expected), describe(actual));
+			assertArrayEquals(className, expected.getInterfaceNames(), actual.getInterfaceNames());
+		}
+	}
+
+	private static String describe(AnnotationMetadata metadata) {
+		StringBuilder description = new StringBuilder();
+		description.append("class ").append(metadata.getClassName())
+				.append(" interface=").append(metadata.isInterface())
+				.append(" annotation=").append(metadata.isAnnotation())
+				.append(" abstract=").append(metadata.isAbstract())
+				.append(" final=").append(metadata.isFinal())
+				.append(" independent=").append(metadata.isIndependent())
+				.append(" enclosing=").append(metadata.getEnclosingClassName())
+				.append(" super=").append(metadata.getSuperClassName())
+				.append(" members=").append(new TreeSet<>(Arrays.asList(metadata.getMemberClassNames())))
+				.append('\n');
+		for (String annotationType : new TreeSet<>(metadata.getAnnotationTypes())) {
+			description.append("@").append(annotationType)
+					.append(" meta=").append(new TreeSet<>(metadata.getMetaAnnotationTypes(annotationType)))
+					.append('\n');
+		}
+		for (String annotationType : ANNOTATION_TYPES) {
+			description.append("attributes of @").append(annotationType)
+					.append(" present=").append(metadata.hasAnnotation(annotationType))
+					.append(" metaPresent=").append(metadata.hasMetaAnnotation(annotationType))
+					.append(describeAttributes(metadata.getAnnotationAttributes(annotationType, true)))
+					.append(describeAllAttributes(metadata.getAllAnnotationAttributes(annotationType, true)))
+					.append('\n');
+			Set<String> methods = new TreeSet<>();
+			for (MethodMetadata method : metadata.getAnnotatedMethods(annotationType)) {
+				methods.add(method.getDeclaringClassName() + "." + method.getMethodName() +
+						" returns=" + method.getReturnTypeName() +
+						" abstract=" + method.isAbstract() +
+						" static=" + method.isStatic() +
+						" final=" + method.isFinal() +
+						" overridable=" + method.isOverridable() +
+						describeAttributes(method.getAnnotationAttributes(annotationType, true)) +
+						describeAllAttributes(method.getAllAnnotationAttributes(annotationType, true)));
+			}
+			for (String method : methods) {
+				description.append("  method ").append(method).append('\n');
+			}
+		}
+		return description.toString();
+	}
+
+	private static String describeAttributes(Map<String, Object> attributes) {
+		return " " + describeValue(attributes);
+	}
+
+	private static String describeAllAttributes(MultiValueMap<String, Object> attributes) {
+		if (attributes == null) {
+			return " all=null";
+		}
+		Map<String, Object> sorted = new TreeMap<>();
+		for (Map.Entry<String, List<Object>> entry : attributes.entrySet()) {
+			List<String> values = new ArrayList<>();
+			for (Object value : entry.getValue()) {
+				values.add(describeValue(value));
+			}
+			sorted.put(entry.getKey(), values);
+		}
+		return " all=" + sorted;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String describeValue(Object value) {
+		if (value instanceof Map) {
+			Map<String, String> sorted = new TreeMap<>();
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+				sorted.put(entry.getKey(), describeValue(entry.getValue()));
+			}
+			return sorted.toString();
+		}
+		if (value instanceof Object[]) {
+			List<String> elements = new ArrayList<>();
+			for (Object element : (Object[]) value) {
+				elements.add(describeValue(element));
+			}
+			return elements.toString();
+		}
+		if (value != null && value.getClass().isArray()) {
+			List<Object> elements = new ArrayList<>();
+			for (int i = 0; i < Array.getLength(value); i++) {
+				elements.add(Array.get(value, i));
+			}
+			return value.getClass().getComponentType().getName() + elements;
+		}
+		return (value != null ? value.getClass().getSimpleName() + ":" + value : "null");
+	}
+
+	/**
+	 * Translate the class files of the given classes into a single DEX file,
+	 * the way the Android build does.
+	 */
+	private byte[] toDex(List<String> classNames) throws IOException {
+		DxContext context = new DxContext();
+		CfOptions cfOptions = new CfOptions();
+		cfOptions.strictNameCheck = true;
+		DexOptions dexOptions = new DexOptions();
+		dexOptions.minSdkVersion = 26;
+		DexFile dexFile = new DexFile(dexOptions);
+		for (String className : classNames) {
+			String path = ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
+			byte[] bytes;
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+				bytes = StreamUtils.copyToByteArray(in);
+			}
+			DirectClassFile classFile = new DirectClassFile(bytes, path, cfOptions.strictNameCheck);
+			classFile.setAttributeFactory(StdAttributeFactory.THE_ONE);
+			dexFile.add(CfTranslator.translate(context, classFile, bytes, cfOptions, dexOptions, dexFile));
+		}
+		return dexFile.toDex(null, false);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Attributes {
+
+		String value() default "";
+
+		int number() default 0;
+
+		long[] longs() default {};
+
+		char character() default 'c';
+
+		boolean flag() default false;
+
+		double decimal() default 0;
+
+		Class<?> type() default Object.class;
+
+		Class<?>[] types() default {};
+
+		ElementType elementType() default ElementType.TYPE;
+
+		Nested nested() default @Nested;
+
+		Nested[] nestedArray() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Nested {
+
+		String value() default "nested";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Attributes("meta")
+	@interface Composed {
+
+		@AliasFor(annotation = Attributes.class, attribute = "number")
+		int number() default 1;
+	}
+
+
+	@Retention(RetentionPolicy.CLASS)
+	@interface Invisible {
+	}
+
+
+	@Composed
+	public abstract static class AbstractBase {
+
+		@Composed
+		public abstract void abstractMethod();
+	}
+
+
+	public interface AnnotatedInterface {
+
+		@Attributes("default")
+		default void defaultMethod() {
+		}
+
+		@Attributes("interface")
+		void interfaceMethod();
+	}
+
+
+	@Attributes(value = "type", number = 42, longs = {1L, 2L}, character = 'x', flag = true, decimal = 1.5,
+			type = String.class, types = {int.class, String[].class}, elementType = ElementType.METHOD,
+			nested = @Nested("one"), nestedArray = {@Nested("two"), @Nested})
+	@Invisible
+	public static class AnnotatedClass extends AbstractBase implements AnnotatedInterface, Serializable {
+
+		@Override
+		@Composed(number = 7)
+		public void abstractMethod() {
+		}
+
+		@Override
+		@Attributes("method")
+		public void interfaceMethod() {
+		}
+
+		@Attributes(types = Map.class)
+		public static String staticMethod(int number) {
+			return String.valueOf(number);
+		}
+
+		@Attributes
+		@Invisible
+		protected final int finalMethod() {
+			return 0;
+		}
+
+		@Attributes(nested = @Nested("private"))
+		private void privateMethod() {
+		}
+
+		Object anonymous() {
+			return new Object() {
+				@Attributes("anonymous")
+				public void method() {
+				}
+			};
+		}
+
+
+		public static class Member {
+		}
+
+
+		class Inner {
+		}
+
+
+		interface MemberInterface {
+		}
+	}
+
+
+	enum FixtureEnum {
+
+		A,
+
+		B {
+			@Override
+			@Attributes("constant")
+			void method() {
+			}
+		};
+
+		void method() {
+		}
+	}
+
+}